@@ -0,0 +1,102 @@
+package org.wildfly.extras.creaper.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.online.CliException;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.OnlineOptions;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Latency of creating an {@code OnlineManagementClient}. The CLI {@code CommandContext} is only created
+ * when the client is first used with an operation in the CLI syntax, so {@link #connect()} doesn't pay for it,
+ * while {@link #connectAndUseCli()} does (which is what every client creation cost before).</p>
+ *
+ * <p>The {@link #main(String[]) main} method measures retained heap of a number of clients in both variants.
+ * Run it with {@code java -cp benchmarks.jar org.wildfly.extras.creaper.benchmarks.ClientStartupBenchmark}.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientStartupBenchmark {
+    private static final int RETAINED_HEAP_CLIENTS = 100;
+
+    @Param({"0"})
+    public int latencyMicros;
+
+    @Benchmark
+    public OnlineManagementClient connect() throws IOException {
+        OnlineManagementClient client = createClient(latencyMicros);
+        client.close();
+        return client;
+    }
+
+    @Benchmark
+    public OnlineManagementClient connectAndUseCli() throws IOException, CliException {
+        OnlineManagementClient client = createClient(latencyMicros);
+        client.execute(":whoami");
+        client.close();
+        return client;
+    }
+
+    private static OnlineManagementClient createClient(int latencyMicros) throws IOException {
+        return ManagementClient.online(OnlineOptions.standalone()
+                .wrap(new StubModelControllerClient(latencyMicros, TimeUnit.MICROSECONDS)));
+    }
+
+    public static void main(String[] args) throws Exception {
+        // warm up, so that class loading isn't counted
+        measureRetainedHeap(false);
+        measureRetainedHeap(true);
+
+        System.out.printf("Retained heap per client, without CLI: %d bytes%n", measureRetainedHeap(false));
+        System.out.printf("Retained heap per client, with CLI:    %d bytes%n", measureRetainedHeap(true));
+    }
+
+    private static long measureRetainedHeap(boolean useCli) throws Exception {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        long before = usedHeapAfterGc(memory);
+        List<OnlineManagementClient> clients = new ArrayList<OnlineManagementClient>();
+        for (int i = 0; i < RETAINED_HEAP_CLIENTS; i++) {
+            OnlineManagementClient client = createClient(0);
+            if (useCli) {
+                client.execute(":whoami");
+            }
+            clients.add(client);
+        }
+        long after = usedHeapAfterGc(memory);
+
+        for (OnlineManagementClient client : clients) {
+            client.close();
+        }
+
+        return (after - before) / RETAINED_HEAP_CLIENTS;
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
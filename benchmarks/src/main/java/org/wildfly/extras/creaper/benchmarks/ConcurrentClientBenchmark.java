@@ -0,0 +1,106 @@
+package org.wildfly.extras.creaper.benchmarks;
+
+import org.jboss.dmr.ModelNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.OnlineOptions;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a single shared {@code OnlineManagementClient} with increasing number of caller threads.
+ * The {@code onlineConcurrent} client is compared with an ordinary client whose every use is guarded by a lock,
+ * which is what callers had to do so far. With non-zero latency of the server, throughput of the concurrent client
+ * should grow with the number of threads, while throughput of the guarded client should stay flat.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentClientBenchmark {
+    @Param({"100"})
+    public int latencyMicros;
+
+    private OnlineManagementClient concurrentClient;
+    private OnlineManagementClient guardedClient;
+    private final Object guard = new Object();
+
+    private ModelNode operation;
+
+    @Setup
+    public void setUp() throws IOException {
+        concurrentClient = ManagementClient.onlineConcurrent(OnlineOptions.standalone()
+                .wrap(new StubModelControllerClient(latencyMicros, TimeUnit.MICROSECONDS)));
+        guardedClient = ManagementClient.online(OnlineOptions.standalone()
+                .wrap(new StubModelControllerClient(latencyMicros, TimeUnit.MICROSECONDS)));
+
+        operation = new ModelNode();
+        operation.get("operation").set("whoami");
+        operation.get("address").setEmptyList();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        concurrentClient.close();
+        guardedClient.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ModelNodeResult concurrent01Threads() throws IOException {
+        return concurrentClient.execute(operation);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ModelNodeResult concurrent04Threads() throws IOException {
+        return concurrentClient.execute(operation);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public ModelNodeResult concurrent16Threads() throws IOException {
+        return concurrentClient.execute(operation);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ModelNodeResult guarded01Threads() throws IOException {
+        return executeGuarded();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ModelNodeResult guarded04Threads() throws IOException {
+        return executeGuarded();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public ModelNodeResult guarded16Threads() throws IOException {
+        return executeGuarded();
+    }
+
+    private ModelNodeResult executeGuarded() throws IOException {
+        synchronized (guard) {
+            return guardedClient.execute(operation);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.wildfly.extras.creaper.benchmarks;
+
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.as.controller.client.Operation;
+import org.jboss.as.controller.client.OperationMessageHandler;
+import org.jboss.as.controller.client.OperationResponse;
+import org.jboss.dmr.ModelNode;
+import org.jboss.threads.AsyncFuture;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link ModelControllerClient} that doesn't talk to any server. It answers just enough operations
+ * for an {@code OnlineManagementClient} to be created (it pretends to be a standalone server), performs
+ * steps of composite operations and returns a successful empty result for everything else. Each operation
+ * takes a configurable amount of time, which simulates network round trip and server-side processing.
+ */
+public final class StubModelControllerClient implements ModelControllerClient {
+    private static final int MANAGEMENT_MAJOR_VERSION = 4;
+    private static final int MANAGEMENT_MINOR_VERSION = 1;
+
+    private final long latencyNanos;
+
+    public StubModelControllerClient(long latency, TimeUnit unit) {
+        this.latencyNanos = unit.toNanos(latency);
+    }
+
+    @Override
+    public ModelNode execute(ModelNode operation) throws IOException {
+        simulateLatency();
+        return respond(operation);
+    }
+
+    private static ModelNode respond(ModelNode operation) {
+        ModelNode response = new ModelNode();
+        response.get("outcome").set("success");
+
+        String name = operation.get("operation").asString();
+        if ("composite".equals(name)) {
+            ModelNode result = response.get("result");
+            int i = 1;
+            for (ModelNode step : operation.get("steps").asList()) {
+                result.get("step-" + i).set(respond(step));
+                i++;
+            }
+        } else if ("read-resource".equals(name)) {
+            ModelNode result = response.get("result");
+            result.get("management-major-version").set(MANAGEMENT_MAJOR_VERSION);
+            result.get("management-minor-version").set(MANAGEMENT_MINOR_VERSION);
+            result.get("management-micro-version").set(0);
+        } else if ("read-attribute".equals(name)) {
+            String attribute = operation.get("name").asString();
+            if ("management-major-version".equals(attribute)) {
+                response.get("result").set(MANAGEMENT_MAJOR_VERSION);
+            } else if ("management-minor-version".equals(attribute)) {
+                response.get("result").set(MANAGEMENT_MINOR_VERSION);
+            } else if ("management-micro-version".equals(attribute)) {
+                response.get("result").set(0);
+            }
+        } else if ("read-children-types".equals(name)) {
+            response.get("result").add("subsystem");
+        }
+
+        return response;
+    }
+
+    private void simulateLatency() {
+        if (latencyNanos > 0) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+    }
+
+    @Override
+    public ModelNode execute(Operation operation) throws IOException {
+        return execute(operation.getOperation());
+    }
+
+    @Override
+    public ModelNode execute(ModelNode operation, OperationMessageHandler messageHandler) throws IOException {
+        return execute(operation);
+    }
+
+    @Override
+    public ModelNode execute(Operation operation, OperationMessageHandler messageHandler) throws IOException {
+        return execute(operation.getOperation());
+    }
+
+    @Override
+    public OperationResponse executeOperation(Operation operation, OperationMessageHandler messageHandler)
+            throws IOException {
+        return OperationResponse.Factory.createSimple(execute(operation.getOperation()));
+    }
+
+    @Override
+    public AsyncFuture<ModelNode> executeAsync(ModelNode operation, OperationMessageHandler messageHandler) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public AsyncFuture<ModelNode> executeAsync(Operation operation, OperationMessageHandler messageHandler) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public AsyncFuture<OperationResponse> executeOperationAsync(Operation operation,
+                                                                OperationMessageHandler messageHandler) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+        // nothing to close
+    }
+}
@@ -0,0 +1,117 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Cost of the work the client does around each operation: adjusting composite operations for domain
+ * ({@link AdjustOperationForDomain}), converting operations to the CLI syntax for logging
+ * ({@link ModelNodeOperationToCliString}) and creating and reading {@link ModelNodeResult}s, including results
+ * of composite operations. {@code adjust} modifies the operation, so it's applied to a copy; {@link #copy()}
+ * measures the cost of the copy alone.</p>
+ *
+ * <p>This benchmark lives in the same package as the code it measures, because some of it is package-private.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultHandlingBenchmark {
+    @Param({"10", "500"})
+    public int steps;
+
+    private AdjustOperationForDomain adjustOperationForDomain;
+    private ModelNode composite;
+    private ModelNode compositeResponse;
+    private ModelNodeResult compositeResult;
+    private ModelNodeResult singleResult;
+
+    @Setup
+    public void setUp() {
+        adjustOperationForDomain = new AdjustOperationForDomain(OnlineOptions.domain()
+                .forProfile("full")
+                .forHost("master")
+                .build()
+                .localDefault()
+                .build());
+
+        composite = new ModelNode();
+        composite.get(Constants.OP).set(Constants.COMPOSITE);
+        composite.get(Constants.OP_ADDR).setEmptyList();
+        compositeResponse = new ModelNode();
+        compositeResponse.get(Constants.OUTCOME).set(Constants.SUCCESS);
+        for (int i = 1; i <= steps; i++) {
+            ModelNode step = new ModelNode();
+            step.get(Constants.OP).set(Constants.WRITE_ATTRIBUTE_OPERATION);
+            step.get(Constants.OP_ADDR).add(Constants.SUBSYSTEM, "datasources").add("data-source", "ds" + i);
+            step.get(Constants.NAME).set("max-pool-size");
+            step.get(Constants.VALUE).set(i);
+            composite.get(Constants.STEPS).add(step);
+
+            ModelNode stepResponse = compositeResponse.get(Constants.RESULT, "step-" + i);
+            stepResponse.get(Constants.OUTCOME).set(Constants.SUCCESS);
+            stepResponse.get(Constants.RESULT).set("value " + i);
+        }
+        compositeResult = new ModelNodeResult(compositeResponse);
+
+        ModelNode singleResponse = new ModelNode();
+        singleResponse.get(Constants.OUTCOME).set(Constants.SUCCESS);
+        singleResponse.get(Constants.RESULT).set("value");
+        singleResult = new ModelNodeResult(singleResponse);
+    }
+
+    @Benchmark
+    public ModelNode copy() {
+        return composite.clone();
+    }
+
+    @Benchmark
+    public ModelNode adjustCompositeForDomain() {
+        return adjustOperationForDomain.adjust(composite.clone());
+    }
+
+    @Benchmark
+    public String convertCompositeToCliString() {
+        return ModelNodeOperationToCliString.convert(composite);
+    }
+
+    @Benchmark
+    public ModelNodeResult copyResult() {
+        return new ModelNodeResult(compositeResponse);
+    }
+
+    @Benchmark
+    public void singleResultAccessors(Blackhole blackhole) {
+        blackhole.consume(singleResult.isSuccess());
+        blackhole.consume(singleResult.hasDefinedValue());
+        blackhole.consume(singleResult.stringValue());
+        blackhole.consume(singleResult.isFailed());
+    }
+
+    @Benchmark
+    public ModelNodeResult lastBatchStep() {
+        return compositeResult.forBatchStep(steps);
+    }
+
+    @Benchmark
+    public void allBatchSteps(Blackhole blackhole) {
+        for (ModelNodeResult stepResult : compositeResult.forAllBatchSteps()) {
+            blackhole.consume(stepResult.isSuccess());
+        }
+    }
+}
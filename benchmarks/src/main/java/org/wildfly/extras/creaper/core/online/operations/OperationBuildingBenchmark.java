@@ -0,0 +1,148 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import org.jboss.dmr.ModelNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.extras.creaper.benchmarks.StubModelControllerClient;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.OnlineOptions;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Cost of building management operations: {@link Address} and {@link Values} construction, single operations
+ * built by {@link OperationsModelNodeBuilder} and composite operations built by {@link Batch}. The last benchmark
+ * performs the whole batch through an {@code OnlineManagementClient} connected to a stub server with no latency,
+ * so it shows the overhead of the client itself.</p>
+ *
+ * <p>Allocation rates are best observed with the GC profiler: {@code java -jar benchmarks.jar OperationBuilding
+ * -prof gc}. Building {@code Values} with many attributes (e.g. a data source definition) shouldn't allocate
+ * more than linearly, and operations for the same {@code Address} reuse its {@code ModelNode} form.</p>
+ *
+ * <p>This benchmark lives in the same package as the code it measures, because some of it is package-private.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OperationBuildingBenchmark {
+    private static final int MANY_VALUES = 60;
+
+    @Param({"10", "500"})
+    public int batchSize;
+
+    private final OperationsModelNodeBuilder builder = new OperationsModelNodeBuilder();
+    private Address address;
+    private Values values;
+    private Values manyValues;
+    private Batch batch;
+
+    private OnlineManagementClient client;
+    private Operations ops;
+
+    @Setup
+    public void setUp() throws IOException {
+        address = datasource("ExampleDS");
+        values = datasourceValues();
+        manyValues = manyValues();
+        batch = batch(batchSize);
+
+        client = ManagementClient.online(OnlineOptions.standalone()
+                .wrap(new StubModelControllerClient(0, TimeUnit.NANOSECONDS)));
+        ops = new Operations(client);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+    }
+
+    private static Address datasource(String name) {
+        return Address.subsystem("datasources").and("data-source", name);
+    }
+
+    private static Values datasourceValues() {
+        return Values.of("jndi-name", "java:jboss/datasources/ExampleDS")
+                .and("driver-name", "h2")
+                .and("connection-url", "jdbc:h2:mem:test")
+                .and("min-pool-size", 5)
+                .and("max-pool-size", 20)
+                .and("enabled", true);
+    }
+
+    private static Values manyValues() {
+        Values values = Values.empty();
+        for (int i = 0; i < MANY_VALUES; i++) {
+            values = values.and("attribute-" + i, i);
+        }
+        return values;
+    }
+
+    private static Batch batch(int size) {
+        Batch batch = new Batch();
+        for (int i = 0; i < size; i++) {
+            batch.writeAttribute(datasource("ds" + i), "max-pool-size", i);
+        }
+        return batch;
+    }
+
+    @Benchmark
+    public Address address() {
+        return Address.subsystem("datasources").and("data-source", "ExampleDS").and("connection-properties", "url");
+    }
+
+    @Benchmark
+    public Values values() {
+        return datasourceValues();
+    }
+
+    @Benchmark
+    public Values manyValuesCreation() {
+        return manyValues();
+    }
+
+    @Benchmark
+    public ModelNode addOperation() {
+        return builder.add(address, values);
+    }
+
+    @Benchmark
+    public ModelNode addOperationWithManyValues() {
+        return builder.add(address, manyValues);
+    }
+
+    @Benchmark
+    public ModelNode writeAttributeOperation() {
+        return builder.writeAttribute(address, "enabled", true);
+    }
+
+    @Benchmark
+    public ModelNode batchToModelNode() {
+        return batch.toModelNode();
+    }
+
+    @Benchmark
+    public ModelNode buildBatchAndConvertToModelNode() {
+        return batch(batchSize).toModelNode();
+    }
+
+    @Benchmark
+    public ModelNodeResult performBatch() throws IOException {
+        return ops.batch(batch);
+    }
+}
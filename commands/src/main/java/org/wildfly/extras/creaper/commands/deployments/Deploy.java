@@ -1,7 +1,14 @@
 package org.wildfly.extras.creaper.commands.deployments;
 
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
 import org.jboss.as.controller.client.OperationBuilder;
 import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.logging.Logger;
 import org.wildfly.extras.creaper.core.online.Constants;
 import org.wildfly.extras.creaper.core.online.OnlineCommand;
 import org.wildfly.extras.creaper.core.online.OnlineCommandContext;
@@ -11,6 +18,7 @@ import org.wildfly.extras.creaper.core.online.operations.Operations;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -19,6 +27,8 @@ import java.util.List;
 
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DEPLOY;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ENABLED;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.FULL_REPLACE_DEPLOYMENT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.HASH;
 
 /**
  * Command which takes care about deploying specified deployment under specified deployment name.
@@ -26,23 +36,37 @@ import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ENA
  * In case of domain it is deployed by default to all server groups
  */
 public final class Deploy implements OnlineCommand {
+    private static final Logger log = Logger.getLogger(Deploy.class);
 
     private final String deploymentName;
     private final InputStream deploymentInputStream;
+    private final File deploymentFile;
     private final boolean autoCloseInputStream;
     private final List<String> serverGroups;
+    private final boolean skipIfUnchanged;
 
     private Deploy(InputStream deploymentInputStream, Builder deployCmdOptions) {
         this.deploymentInputStream = deploymentInputStream;
+        this.deploymentFile = deployCmdOptions.deploymentFile;
         this.deploymentName = deployCmdOptions.deploymentName;
         this.autoCloseInputStream = deployCmdOptions.autoCloseInputStream;
         this.serverGroups = deployCmdOptions.serverGroups;
+        this.skipIfUnchanged = deployCmdOptions.skipIfUnchanged;
     }
 
     @Override
     public void apply(OnlineCommandContext ctx) throws Exception {
-        Operations ops = new Operations(ctx.client);
+        if (skipIfUnchanged) {
+            applyIfChanged(ctx);
+            return;
+        }
 
+        OperationBuilder builder = new OperationBuilder(deployRequest(ctx), autoCloseInputStream);
+        builder.addInputStream(deploymentInputStream);
+        ctx.client.execute(builder.build());
+    }
+
+    private ModelNode deployRequest(OnlineCommandContext ctx) throws IOException {
         // deploy and add to server groups
         ModelNode content = new ModelNode();
         content.get(Constants.INPUT_STREAM_INDEX).set(0);
@@ -50,17 +74,10 @@ public final class Deploy implements OnlineCommand {
         ModelNode deployRequest;
 
         if (ctx.options.isDomain) {
-            List<String> groups = serverGroups;
-            if (serverGroups == null)
-                groups = ops.readChildrenNames(Address.root(), Constants.SERVER_GROUP)
-                        .stringListValue(Collections.<String>emptyList());
-
+            List<String> groups = serverGroups(ctx);
             List<ModelNode> groupDeploymentAddresses = new ArrayList<ModelNode>(groups.size());
             for (String serverGroup : groups) {
-                ModelNode mn = new ModelNode();
-                mn.add(Constants.SERVER_GROUP, serverGroup);
-                mn.add(Constants.DEPLOYMENT, deploymentName);
-                groupDeploymentAddresses.add(mn);
+                groupDeploymentAddresses.add(serverGroupDeploymentAddress(serverGroup));
             }
             deployRequest = createDeploymentOperation(content,
                     groupDeploymentAddresses.toArray(new ModelNode[groupDeploymentAddresses.size()]));
@@ -71,10 +88,116 @@ public final class Deploy implements OnlineCommand {
             deploymentAddress.add(Constants.DEPLOYMENT, deploymentName);
             deployStep.set(getEmptyOperation(DEPLOY, deploymentAddress));
         }
+        return deployRequest;
+    }
 
-        OperationBuilder builder = new OperationBuilder(deployRequest, autoCloseInputStream);
-        builder.addInputStream(deploymentInputStream);
-        ctx.client.execute(builder.build());
+    private List<String> serverGroups(OnlineCommandContext ctx) throws IOException {
+        if (serverGroups != null) {
+            return serverGroups;
+        }
+        return new Operations(ctx.client).readChildrenNames(Address.root(), Constants.SERVER_GROUP)
+                .stringListValue(Collections.<String>emptyList());
+    }
+
+    private ModelNode serverGroupDeploymentAddress(String serverGroup) {
+        ModelNode address = new ModelNode();
+        address.add(Constants.SERVER_GROUP, serverGroup);
+        address.add(Constants.DEPLOYMENT, deploymentName);
+        return address;
+    }
+
+    private boolean isSameContent(ModelNode existingContent, HashCode hash) {
+        // managed content has a hash, unmanaged content (a path on the server) is always considered changed
+        if (existingContent.getType() != ModelType.LIST || existingContent.asInt() != 1) {
+            return false;
+        }
+        ModelNode existingHash = existingContent.get(0).get(HASH);
+        return existingHash.isDefined() && Arrays.equals(existingHash.asBytes(), hash.asBytes());
+    }
+
+    /**
+     * The SHA-1 hash of the deployment is computed up front and compared with the hash of the content
+     * of the existing deployment. The content is only uploaded if it's different, or if the deployment doesn't
+     * exist yet. An input stream must be read to compute the hash, so it's copied to a temporary file at the same
+     * time, which is then uploaded if needed.
+     */
+    private void applyIfChanged(OnlineCommandContext ctx) throws Exception {
+        Operations ops = new Operations(ctx.client);
+
+        Address deploymentAddress = Address.deployment(deploymentName);
+        if (!ops.exists(deploymentAddress)) {
+            log.debugf("Deployment %s doesn't exist yet, deploying", deploymentName);
+            OperationBuilder builder = new OperationBuilder(deployRequest(ctx), autoCloseInputStream);
+            builder.addInputStream(deploymentInputStream);
+            ctx.client.execute(builder.build());
+            return;
+        }
+
+        File temporaryFile = null;
+        try {
+            File file = deploymentFile;
+            HashCode hash;
+            if (file != null) {
+                hash = Files.hash(file, Hashing.sha1());
+            } else {
+                temporaryFile = File.createTempFile("creaper-deployment", null);
+                file = temporaryFile;
+                HashingInputStream hashingInputStream = new HashingInputStream(Hashing.sha1(), deploymentInputStream);
+                Files.asByteSink(file).writeFrom(hashingInputStream);
+                hash = hashingInputStream.hash();
+            }
+
+            ModelNode existingContent = ops.readAttribute(deploymentAddress, Constants.CONTENT).value();
+            ModelNode steps = new ModelNode().setEmptyList();
+            boolean changed = !isSameContent(existingContent, hash);
+            if (changed) {
+                ModelNode replace = getEmptyOperation(FULL_REPLACE_DEPLOYMENT, new ModelNode().setEmptyList());
+                replace.get(Constants.NAME).set(deploymentName);
+                replace.get(Constants.CONTENT).add().get(Constants.INPUT_STREAM_INDEX).set(0);
+                if (!ctx.options.isDomain) {
+                    replace.get(ENABLED).set(true);
+                }
+                steps.add(replace);
+            } else {
+                log.infof("Content of deployment %s is unchanged (SHA-1 %s), skipping upload", deploymentName, hash);
+                // the existing deployment could have been undeployed; full-replace-deployment would enable it
+                if (!ctx.options.isDomain && !ops.readAttribute(deploymentAddress, ENABLED).booleanValue(false)) {
+                    steps.add(getEmptyOperation(DEPLOY, new ModelNode().add(Constants.DEPLOYMENT, deploymentName)));
+                }
+            }
+
+            if (ctx.options.isDomain) {
+                // the content of the deployment is replaced in all server groups it is deployed to;
+                // server groups that don't have the deployment yet must be added explicitly
+                for (String serverGroup : serverGroups(ctx)) {
+                    if (!ops.exists(Address.of(Constants.SERVER_GROUP, serverGroup)
+                            .and(Constants.DEPLOYMENT, deploymentName))) {
+                        ModelNode add = getEmptyOperation(Constants.ADD, serverGroupDeploymentAddress(serverGroup));
+                        add.get(ENABLED).set(true);
+                        steps.add(add);
+                    }
+                }
+            }
+
+            if (steps.asList().isEmpty()) {
+                return;
+            }
+
+            ModelNode composite = getEmptyOperation(Constants.COMPOSITE, new ModelNode().setEmptyList());
+            composite.get(Constants.STEPS).set(steps);
+            OperationBuilder builder = new OperationBuilder(composite, true);
+            if (changed) {
+                builder.addFileAsAttachment(file);
+            }
+            ctx.client.execute(builder.build());
+        } finally {
+            if (autoCloseInputStream) {
+                Closeables.closeQuietly(deploymentInputStream);
+            }
+            if (temporaryFile != null) {
+                temporaryFile.delete();
+            }
+        }
     }
 
     private ModelNode createDeploymentOperation(ModelNode content, ModelNode... serverGroupAddresses) {
@@ -115,6 +238,7 @@ public final class Deploy implements OnlineCommand {
         private final boolean autoCloseInputStream;
         private final String deploymentName;
         private List<String> serverGroups;
+        private boolean skipIfUnchanged;
 
         public Builder(File deploymentFile) {
             if (!deploymentFile.exists()) {
@@ -178,5 +302,27 @@ public final class Deploy implements OnlineCommand {
             return this;
         }
 
+        /**
+         * <p>
+         *     If a deployment with the same name already exists, its content is only replaced (using
+         *     {@code full-replace-deployment}) if it's different from the deployment being deployed; the contents
+         *     are compared using their SHA-1 hashes. If the content is the same, it's not uploaded to the server
+         *     at all, but if the existing deployment is disabled (e.g. it was undeployed keeping the content),
+         *     it's deployed again. Without this option, deploying a deployment that already exists is a failure.
+         * </p>
+         * <p>
+         *     The hash of a deployment {@link File} is computed before it's uploaded, which means it's read twice.
+         *     A deployment {@link InputStream} is copied to a temporary file while computing the hash.
+         * </p>
+         * <p>
+         *     In domain, the content is replaced in all server groups the deployment is deployed to,
+         *     and the deployment is added to those of the specified server groups that don't have it yet.
+         * </p>
+         */
+        public Builder skipIfUnchanged() {
+            this.skipIfUnchanged = true;
+            return this;
+        }
+
     }
 }
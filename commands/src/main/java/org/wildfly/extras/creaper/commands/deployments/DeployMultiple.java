@@ -0,0 +1,351 @@
+package org.wildfly.extras.creaper.commands.deployments;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.io.Closeables;
+import org.jboss.as.controller.client.Operation;
+import org.jboss.as.controller.client.OperationBuilder;
+import org.jboss.dmr.ModelNode;
+import org.jboss.logging.Logger;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.OnlineCommand;
+import org.wildfly.extras.creaper.core.online.OnlineCommandContext;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.operations.Address;
+import org.wildfly.extras.creaper.core.online.operations.Operations;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DEPLOY;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ENABLED;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.HASH;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.UPLOAD_DEPLOYMENT_STREAM;
+
+/**
+ * <p>Command which deploys multiple deployments at once. It works in two phases:</p>
+ *
+ * <ol>
+ * <li>The contents of all deployments are uploaded to the server's content repository
+ * ({@code upload-deployment-stream}). At most {@link Builder#maxConcurrentUploads(int) maxConcurrentUploads}
+ * uploads are performed concurrently, each on a separate connection to the server. The time of each upload
+ * is logged and available from {@link #uploadMillis()} after the command is applied.</li>
+ * <li>All the deployments are added (and, in domain, assigned to server groups) in a single composite operation.
+ * If deploying any of them fails, none of them is deployed.</li>
+ * </ol>
+ *
+ * <p>If an upload fails, nothing is deployed. The uploaded content that isn't used by any deployment is eventually
+ * removed from the content repository by the server.</p>
+ *
+ * <p>In case of domain, the deployments are deployed by default to all server groups.</p>
+ */
+public final class DeployMultiple implements OnlineCommand {
+    private static final Logger log = Logger.getLogger(DeployMultiple.class);
+
+    private final List<DeploymentContent> deployments;
+    private final List<String> serverGroups;
+    private final int maxConcurrentUploads;
+    private volatile Map<String, Long> uploadMillis = Collections.emptyMap();
+
+    private DeployMultiple(Builder builder) {
+        this.deployments = Collections.unmodifiableList(new ArrayList<DeploymentContent>(builder.deployments));
+        this.serverGroups = builder.serverGroups;
+        this.maxConcurrentUploads = builder.maxConcurrentUploads;
+    }
+
+    /**
+     * Returns how long it took to upload each deployment during the last {@code apply} of this command,
+     * in milliseconds. The map is keyed by deployment names and ordered the same as the deployments were added.
+     * Empty if the command wasn't applied yet or if some upload failed.
+     */
+    public Map<String, Long> uploadMillis() {
+        return uploadMillis;
+    }
+
+    @Override
+    public void apply(OnlineCommandContext ctx) throws Exception {
+        uploadMillis = Collections.emptyMap();
+        ModelNode[] hashes = new ModelNode[deployments.size()];
+        long[] millis = new long[deployments.size()];
+        try {
+            upload(ctx, hashes, millis);
+        } finally {
+            for (DeploymentContent deployment : deployments) {
+                deployment.closeIfNeeded();
+            }
+        }
+
+        Map<String, Long> uploadTimes = new LinkedHashMap<String, Long>();
+        for (int i = 0; i < deployments.size(); i++) {
+            uploadTimes.put(deployments.get(i).name, millis[i]);
+        }
+        uploadMillis = Collections.unmodifiableMap(uploadTimes);
+
+        ModelNode composite = new ModelNode();
+        composite.get(Constants.OP).set(Constants.COMPOSITE);
+        composite.get(Constants.OP_ADDR).setEmptyList();
+        ModelNode steps = composite.get(Constants.STEPS).setEmptyList();
+
+        List<String> groups = Collections.emptyList();
+        if (ctx.options.isDomain) {
+            groups = serverGroups;
+            if (groups == null) {
+                groups = new Operations(ctx.client).readChildrenNames(Address.root(), Constants.SERVER_GROUP)
+                        .stringListValue(Collections.<String>emptyList());
+            }
+        }
+
+        for (int i = 0; i < deployments.size(); i++) {
+            String name = deployments.get(i).name;
+
+            ModelNode add = steps.add();
+            add.get(Constants.OP).set(Constants.ADD);
+            add.get(Constants.OP_ADDR).add(Constants.DEPLOYMENT, name);
+            add.get(Constants.CONTENT).add().get(HASH).set(hashes[i]);
+
+            if (ctx.options.isDomain) {
+                for (String serverGroup : groups) {
+                    ModelNode addToServerGroup = steps.add();
+                    addToServerGroup.get(Constants.OP).set(Constants.ADD);
+                    addToServerGroup.get(Constants.OP_ADDR).add(Constants.SERVER_GROUP, serverGroup)
+                            .add(Constants.DEPLOYMENT, name);
+                    addToServerGroup.get(ENABLED).set(true);
+                }
+            } else {
+                ModelNode deploy = steps.add();
+                deploy.get(Constants.OP).set(DEPLOY);
+                deploy.get(Constants.OP_ADDR).add(Constants.DEPLOYMENT, name);
+            }
+        }
+
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        ctx.client.execute(composite);
+        log.infof("Deployed %d deployments in %d ms", deployments.size(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Fills in hashes of the uploaded contents and the time each upload took, in the same order
+     * as {@link #deployments}.
+     */
+    private void upload(OnlineCommandContext ctx, final ModelNode[] hashes, final long[] millis) throws Exception {
+        int threads = Math.min(maxConcurrentUploads, deployments.size());
+
+        // a wrapped client is shared by all clients created from the same options, closing them would close it
+        if (threads <= 1 || ctx.options.isWrappedClient) {
+            for (int i = 0; i < deployments.size(); i++) {
+                upload(ctx.client, i, hashes, millis);
+            }
+            return;
+        }
+
+        final OnlineCommandContext context = ctx;
+        final AtomicInteger nextDeployment = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>(threads);
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        OnlineManagementClient client = null;
+                        try {
+                            client = ManagementClient.online(context.options);
+                            int index;
+                            while ((index = nextDeployment.getAndIncrement()) < hashes.length) {
+                                upload(client, index, hashes, millis);
+                            }
+                        } catch (Exception e) {
+                            nextDeployment.set(hashes.length); // stop other uploaders
+                            throw e;
+                        } finally {
+                            if (client != null) {
+                                client.close();
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<Void> future : futures) {
+                try {
+                    future.get(); // also makes the results written by the uploader visible to this thread
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof CommandFailedException) {
+                        throw (CommandFailedException) cause;
+                    }
+                    throw new CommandFailedException("Uploading deployments failed", cause);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void upload(OnlineManagementClient client, int index, ModelNode[] hashes, long[] millis)
+            throws IOException, CommandFailedException {
+        DeploymentContent deployment = deployments.get(index);
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        ModelNodeResult result = client.execute(deployment.uploadOperation());
+        if (result.isFailed()) {
+            throw new CommandFailedException("Uploading deployment " + deployment.name + " failed: "
+                    + result.asString());
+        }
+        hashes[index] = result.value();
+        millis[index] = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+        log.infof("Uploaded deployment %s in %d ms", deployment.name, millis[index]);
+    }
+
+    private static final class DeploymentContent {
+        final String name;
+        final File file;
+        final InputStream inputStream;
+        final boolean autoCloseInputStream;
+
+        DeploymentContent(String name, File file, InputStream inputStream, boolean autoCloseInputStream) {
+            this.name = name;
+            this.file = file;
+            this.inputStream = inputStream;
+            this.autoCloseInputStream = autoCloseInputStream;
+        }
+
+        Operation uploadOperation() {
+            ModelNode upload = new ModelNode();
+            upload.get(Constants.OP).set(UPLOAD_DEPLOYMENT_STREAM);
+            upload.get(Constants.OP_ADDR).setEmptyList();
+            upload.get(Constants.INPUT_STREAM_INDEX).set(0);
+
+            OperationBuilder builder = new OperationBuilder(upload, file != null || autoCloseInputStream);
+            if (file != null) {
+                builder.addFileAsAttachment(file);
+            } else {
+                builder.addInputStream(inputStream);
+            }
+            return builder.build();
+        }
+
+        /** The input stream might not have been uploaded (and hence closed), e.g. if another upload failed. */
+        void closeIfNeeded() {
+            if (inputStream != null && autoCloseInputStream) {
+                Closeables.closeQuietly(inputStream);
+            }
+        }
+    }
+
+    /**
+     * Builder for creating command for deploying multiple deployments to the server.
+     */
+    public static final class Builder {
+        private final List<DeploymentContent> deployments = new ArrayList<DeploymentContent>();
+        private final Set<String> deploymentNames = new HashSet<String>();
+        private List<String> serverGroups;
+        private int maxConcurrentUploads = 4;
+
+        /**
+         * Adds a deployment from the filesystem; the deployment name is the file name.
+         * @throws IllegalArgumentException if the {@code deploymentFile} doesn't exist or if a deployment with
+         * the same name was already added
+         */
+        public Builder deployment(File deploymentFile) {
+            if (!deploymentFile.exists()) {
+                throw new IllegalArgumentException(deploymentFile + " doesn't exist!");
+            }
+            return add(new DeploymentContent(deploymentFile.getName(), deploymentFile, null, false));
+        }
+
+        /**
+         * Adds a deployment provided as an input stream.
+         * @throws IllegalArgumentException if a deployment with the same name was already added
+         */
+        public Builder deployment(InputStream deploymentInputStream, String deploymentName,
+                                  boolean autoCloseInputStream) {
+            if (deploymentInputStream == null || deploymentName == null) {
+                throw new IllegalArgumentException("Deployment input stream and name must be set");
+            }
+            return add(new DeploymentContent(deploymentName, null, deploymentInputStream, autoCloseInputStream));
+        }
+
+        private Builder add(DeploymentContent deployment) {
+            if (!deploymentNames.add(deployment.name)) {
+                throw new IllegalArgumentException("Deployment " + deployment.name + " was already added");
+            }
+            deployments.add(deployment);
+            return this;
+        }
+
+        /**
+         * Maximum number of deployments that are uploaded at the same time, each on a separate connection
+         * to the server. The default is 4. If the client was created by wrapping an existing
+         * {@code ModelControllerClient}, the deployments are always uploaded one by one.
+         */
+        public Builder maxConcurrentUploads(int maxConcurrentUploads) {
+            if (maxConcurrentUploads <= 0) {
+                throw new IllegalArgumentException("Maximum number of concurrent uploads must be positive");
+            }
+            this.maxConcurrentUploads = maxConcurrentUploads;
+            return this;
+        }
+
+        /**
+         * <p>Domain mode only</p>
+         * <p>
+         *     Adds list of server groups to which all the deployments should be deployed.
+         * </p>
+         * <p>
+         *     Note you should use either {@code toAllServerGroup} or {@code toServerGroups}, not both.
+         * </p>
+         */
+        public Builder toServerGroups(String... serverGroups) {
+            if (this.serverGroups == null && serverGroups != null) {
+                this.serverGroups = new ArrayList<String>();
+            }
+            if (serverGroups != null) {
+                this.serverGroups.addAll(Arrays.asList(serverGroups));
+            }
+            return this;
+        }
+
+        /**
+         * <p>Domain mode only</p>
+         * <p>
+         *     Specifies that all the deployments should be deployed to all server groups
+         * </p>
+         * <p>
+         *     Note you should use either {@code toAllServerGroup} or {@code toServerGroups}, not both.
+         * </p>
+         */
+        public Builder toAllServerGroups() {
+            this.serverGroups = null;
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if no deployment was added
+         */
+        public DeployMultiple build() {
+            if (deployments.isEmpty()) {
+                throw new IllegalArgumentException("At least one deployment must be added");
+            }
+            return new DeployMultiple(this);
+        }
+    }
+}
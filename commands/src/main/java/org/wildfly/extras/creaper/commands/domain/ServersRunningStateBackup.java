@@ -6,9 +6,11 @@ import org.wildfly.extras.creaper.core.online.OnlineCommandContext;
 import org.wildfly.extras.creaper.core.online.operations.admin.DomainAdministration;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Provides a pair of online commands to backup and then restore running state of servers in domain. The {@code backup}
@@ -31,11 +33,7 @@ public final class ServersRunningStateBackup {
             }
 
             DomainAdministration domainAdministration = new DomainAdministration(ctx.client);
-            Map<String, List<String>> runningServers = new HashMap<String, List<String>>();
-            for (String host : domainAdministration.hosts()) {
-                runningServers.put(host, domainAdministration.allRunningServers());
-            }
-            ServersRunningStateBackup.this.runningServersOnHosts = runningServers;
+            ServersRunningStateBackup.this.runningServersOnHosts = domainAdministration.allRunningServersOnAllHosts();
         }
 
         @Override
@@ -46,7 +44,8 @@ public final class ServersRunningStateBackup {
 
     private final OnlineCommand restorePart = new OnlineCommand() {
         @Override
-        public void apply(OnlineCommandContext ctx) throws CommandFailedException, IOException {
+        public void apply(OnlineCommandContext ctx) throws CommandFailedException, IOException, InterruptedException,
+                TimeoutException {
             if (!ctx.options.isDomain) {
                 throw new CommandFailedException(this.toString() + " only makes sense in domain");
             }
@@ -55,16 +54,23 @@ public final class ServersRunningStateBackup {
             }
 
             DomainAdministration domainAdministration = new DomainAdministration(ctx.client);
+            Map<String, List<String>> serversToStart = new HashMap<String, List<String>>();
+            Map<String, List<String>> serversToStop = new HashMap<String, List<String>>();
             for (String host : domainAdministration.hosts()) {
-                List<String> servers = domainAdministration.allServers(host);
-                for (String server : servers) {
+                serversToStart.put(host, new ArrayList<String>());
+                serversToStop.put(host, new ArrayList<String>());
+                for (String server : domainAdministration.allServers(host)) {
                     if (runningServersOnHosts.containsKey(host) && runningServersOnHosts.get(host).contains(server)) {
-                        domainAdministration.startServer(host, server);
+                        serversToStart.get(host).add(server);
                     } else {
-                        domainAdministration.stopServer(host, server);
+                        serversToStop.get(host).add(server);
                     }
                 }
             }
+
+            // servers on all hosts are stopped and started concurrently
+            domainAdministration.stopServers(serversToStop);
+            domainAdministration.startServers(serversToStart);
             ServersRunningStateBackup.this.runningServersOnHosts = null;
         }
 
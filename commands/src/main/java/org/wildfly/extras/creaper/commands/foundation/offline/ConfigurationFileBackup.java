@@ -29,6 +29,10 @@ public final class ConfigurationFileBackup {
                         + ConfigurationFileBackup.this.backupFile);
             }
 
+            if (ctx.configurationFileBuffer != null) {
+                ctx.configurationFileBuffer.flush();
+            }
+
             File tempFile = File.createTempFile("creaper-backup", null);
             Files.copy(ctx.configurationFile, tempFile);
             ConfigurationFileBackup.this.backupFile = tempFile;
@@ -47,6 +51,11 @@ public final class ConfigurationFileBackup {
                 throw new CommandFailedException("There's no configuration file backup to restore");
             }
 
+            if (ctx.configurationFileBuffer != null) {
+                // pending changes would be overwritten by the restore anyway, so they aren't written at all
+                ctx.configurationFileBuffer.discard();
+            }
+
             Files.copy(ConfigurationFileBackup.this.backupFile, ctx.configurationFile);
             boolean deleted = ConfigurationFileBackup.this.backupFile.delete();
             if (!deleted) {
@@ -0,0 +1,81 @@
+package org.wildfly.extras.creaper.commands.foundation.offline.xml;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Resources;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import groovy.lang.GroovyCodeSource;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * <p>A bounded, thread-safe cache of compiled transformation scripts. Compiling a Groovy script is by far the most
+ * expensive part of applying a {@link GroovyXmlTransform}, and the same handful of scripts is typically applied
+ * over and over again.</p>
+ *
+ * <p>The cache key consists of the script URL and a hash of the script content, so that a changed script (e.g.
+ * a different version of the same JAR on the classpath) is never served from the cache. Reading the script content
+ * is necessary for computing the hash, but it is negligible compared to the compilation.</p>
+ */
+final class CompiledScriptCache {
+    private static final int MAXIMUM_SIZE = 256;
+
+    static final CompiledScriptCache INSTANCE = new CompiledScriptCache(MAXIMUM_SIZE);
+
+    private final Cache<String, Class> cache;
+
+    CompiledScriptCache(int maximumSize) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns a compiled class of the script at given {@code url}, compiling it if it's not present in the cache.
+     * @throws IOException if the script can't be read
+     */
+    Class get(final URL url) throws IOException {
+        byte[] content = Resources.toByteArray(url);
+        String key = url.toExternalForm() + "#" + Hashing.sha1().hashBytes(content);
+
+        try {
+            return cache.get(key, new Callable<Class>() {
+                @Override
+                public Class call() throws IOException {
+                    // the GroovyClassLoader has its own cache, keyed only by the script name and unbounded;
+                    // it is bypassed here so that this class is the only place where compiled scripts are kept
+                    return GroovyHolder.GROOVY.parseClass(new GroovyCodeSource(url), false);
+                }
+            });
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            // e.g. a compilation failure
+            throw (RuntimeException) e.getCause();
+        } catch (ExecutionError e) {
+            throw (Error) e.getCause();
+        }
+    }
+
+    CacheStats stats() {
+        return cache.stats();
+    }
+
+    long size() {
+        return cache.size();
+    }
+
+    void clear() {
+        cache.invalidateAll();
+    }
+}
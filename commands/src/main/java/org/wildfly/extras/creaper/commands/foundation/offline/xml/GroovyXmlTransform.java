@@ -1,11 +1,12 @@
 package org.wildfly.extras.creaper.commands.foundation.offline.xml;
 
-import groovy.lang.GroovyCodeSource;
+import com.google.common.cache.CacheStats;
 import groovy.lang.Script;
 import groovy.util.XmlSlurper;
 import groovy.util.slurpersupport.GPathResult;
 import groovy.xml.XmlUtil;
 import org.wildfly.extras.creaper.core.CommandFailedException;
+import org.wildfly.extras.creaper.core.offline.ConfigurationFileBuffer;
 import org.wildfly.extras.creaper.core.offline.OfflineCommand;
 import org.wildfly.extras.creaper.core.offline.OfflineCommandContext;
 
@@ -90,14 +91,13 @@ public final class GroovyXmlTransform implements OfflineCommand {
             throw new CommandFailedException("Couldn't load " + script);
         }
 
-        GroovyCodeSource codeSource;
+        Class clazz;
         try {
-            codeSource = new GroovyCodeSource(url);
+            clazz = CompiledScriptCache.INSTANCE.get(url);
         } catch (IOException e) {
             throw new CommandFailedException(e);
         }
 
-        Class clazz = GroovyHolder.GROOVY.parseClass(codeSource);
         if (!Script.class.isAssignableFrom(clazz)) {
             throw new CommandFailedException("Not a valid Groovy script: " + script);
         }
@@ -115,24 +115,39 @@ public final class GroovyXmlTransform implements OfflineCommand {
             loadedScript.setProperty(parameter.getKey(), parameter.getValue());
         }
 
+        ConfigurationFileBuffer buffer = ctx.configurationFileBuffer;
+
         if (entireFile) {
+            if (buffer != null) {
+                // the script works with the file directly
+                buffer.flush();
+            }
             loadedScript.setProperty("file", ctx.configurationFile);
             loadedScript.run();
         } else {
             try {
-                GPathResult root = new XmlSlurper(false, false).parse(ctx.configurationFile);
+                GPathResult root;
+                if (buffer != null) {
+                    root = new XmlSlurper(false, false).parseText(buffer.read());
+                } else {
+                    root = new XmlSlurper(false, false).parse(ctx.configurationFile);
+                }
+
                 if (subtrees.isEmpty()) {
                     loadedScript.setProperty("root", root);
                 } else {
+                    boolean anySubtreeAdded = false;
                     for (Subtree subtree : subtrees.values()) {
-                        subtree.addIfMissing(root, ctx.options);
+                        anySubtreeAdded |= subtree.addIfMissing(root, ctx.options);
+                    }
+                    if (anySubtreeAdded) {
+                        // two things happening here:
+                        // 1. nodes were added, but possibly to a wrong place (fixing it post facto is easier than
+                        //    adding them to the correct location in the first place)
+                        // 2. XmlSlurper can't see the changes it made, so we need to serialize and reparse here
+                        String fixedXml = FirstLevelXmlElementOrder.fix(XmlUtil.serialize(root));
+                        root = new XmlSlurper(false, false).parseText(fixedXml);
                     }
-                    // two things happening here:
-                    // 1. nodes might have been added, but to a wrong place (fixing it post facto is easier than adding
-                    //    them to the correct location in the first place)
-                    // 2. XmlSlurper can't see the changes it made, so we need to serialize and reparse here
-                    String fixedXml = FirstLevelXmlElementOrder.fix(XmlUtil.serialize(root));
-                    root = new XmlSlurper(false, false).parseText(fixedXml);
 
                     for (Map.Entry<String, Subtree> subtree : subtrees.entrySet()) {
                         loadedScript.setProperty(subtree.getKey(), subtree.getValue().locate(root, ctx.options));
@@ -141,10 +156,14 @@ public final class GroovyXmlTransform implements OfflineCommand {
 
                 loadedScript.run();
 
-                Writer writer = new BufferedWriter(new OutputStreamWriter(
-                        new FileOutputStream(ctx.configurationFile), "utf-8"));
-                XmlUtil.serialize(root, writer);
-                writer.close();
+                if (buffer != null) {
+                    buffer.write(XmlUtil.serialize(root));
+                } else {
+                    Writer writer = new BufferedWriter(new OutputStreamWriter(
+                            new FileOutputStream(ctx.configurationFile), "utf-8"));
+                    XmlUtil.serialize(root, writer);
+                    writer.close();
+                }
             } catch (Exception e) {
                 throw new CommandFailedException(e);
             }
@@ -156,6 +175,15 @@ public final class GroovyXmlTransform implements OfflineCommand {
         return "GroovyXmlTransform " + script.toString();
     }
 
+    /**
+     * Returns statistics (hits, misses, evictions etc.) of the JVM-wide cache of compiled transformation scripts.
+     * Each script is compiled only once (as long as it stays in the cache and its content doesn't change)
+     * and then reused for all subsequent applications of all {@code GroovyXmlTransform}s that use the same script.
+     */
+    public static CacheStats compiledScriptCacheStats() {
+        return CompiledScriptCache.INSTANCE.stats();
+    }
+
     // ---
 
     public static final class Builder {
@@ -26,10 +26,9 @@ public final class Subtree {
         this.creator = creator;
     }
 
-    void addIfMissing(GPathResult root, OfflineOptions options) {
-        if (creator != null) {
-            creator.addIfMissing(root, options);
-        }
+    /** @return {@code true} if the subtree was missing and was added, {@code false} otherwise */
+    boolean addIfMissing(GPathResult root, OfflineOptions options) {
+        return creator != null && creator.addIfMissing(root, options);
     }
 
     GPathResult locate(GPathResult root, OfflineOptions options) throws Exception {
@@ -317,22 +316,27 @@ public final class Subtree {
         }
 
         private SubtreeCreator(String tagName, boolean skipInDomain) {
-            String script = "if (root.\"" + tagName + "\".isEmpty()) root << { \"" + tagName + "\"() }";
+            String script = ""
+                    + "if (root.\"" + tagName + "\".isEmpty()) {\n"
+                    + "    root << { \"" + tagName + "\"() }\n"
+                    + "    return true\n"
+                    + "}\n"
+                    + "return false";
             this.scriptClass = GroovyHolder.GROOVY.parseClass(script);
             this.skipInDomain = skipInDomain;
         }
 
-        void addIfMissing(GPathResult root, OfflineOptions options) {
+        boolean addIfMissing(GPathResult root, OfflineOptions options) {
             boolean domain = Type.of(root) == Type.DOMAIN;
 
             if (skipInDomain && domain) {
-                return;
+                return false;
             }
 
             try {
                 Script script = (Script) scriptClass.newInstance();
                 script.setProperty("root", root);
-                script.run();
+                return Boolean.TRUE.equals(script.run());
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -4,24 +4,28 @@ import com.google.common.base.Charsets;
 import com.google.common.io.CharSource;
 import com.google.common.io.Files;
 import com.google.common.io.Resources;
-import org.wildfly.extras.creaper.core.CommandFailedException;
-import org.wildfly.extras.creaper.core.online.CliException;
 import org.wildfly.extras.creaper.core.online.OnlineCommand;
 import org.wildfly.extras.creaper.core.online.OnlineCommandContext;
 
+import java.io.BufferedReader;
 import java.io.File;
-import java.io.IOException;
 import java.net.URL;
 
 /**
  * <p>Apply a list of CLI operations (a CLI script) read from a file. The file is treated as UTF-8 text. If you already
  * have the script text as a {@code String}, use the {@link CliScript} command.</p>
  *
- * <p>See the documentation of {@link CliScript} for more information about special handling of certain operations.</p>
+ * <p>See the documentation of {@link CliScript} for more information about special handling of certain operations,
+ * failures and resuming a failed script. Very large scripts can be performed without reading the whole file
+ * into memory, see {@link #streaming()}.</p>
  */
 public final class CliFile implements OnlineCommand {
     private final CharSource source;
     private final String description;
+    private final int maxOperationsPerComposite; // 0 <=> line by line
+    private final boolean streaming;
+    private final int firstLine;
+    private volatile int savedRoundTrips;
 
     /**
      * Apply a CLI script from the filesystem ({@code file}).
@@ -38,6 +42,9 @@ public final class CliFile implements OnlineCommand {
 
         this.source = Files.asByteSource(file).asCharSource(Charsets.UTF_8);
         this.description = file.toString();
+        this.maxOperationsPerComposite = 0;
+        this.streaming = false;
+        this.firstLine = 1;
     }
 
     /**
@@ -56,6 +63,9 @@ public final class CliFile implements OnlineCommand {
         URL url = Resources.getResource(clazz, path);
         this.source = Resources.asByteSource(url).asCharSource(Charsets.UTF_8);
         this.description = path;
+        this.maxOperationsPerComposite = 0;
+        this.streaming = false;
+        this.firstLine = 1;
     }
 
     /**
@@ -76,11 +86,91 @@ public final class CliFile implements OnlineCommand {
         URL url = Resources.getResource(resourceLoader, path);
         this.source = Resources.asByteSource(url).asCharSource(Charsets.UTF_8);
         this.description = path;
+        this.maxOperationsPerComposite = 0;
+        this.streaming = false;
+        this.firstLine = 1;
+    }
+
+    private CliFile(CharSource source, String description, int maxOperationsPerComposite, boolean streaming,
+                    int firstLine) {
+        this.source = source;
+        this.description = description;
+        this.maxOperationsPerComposite = maxOperationsPerComposite;
+        this.streaming = streaming;
+        this.firstLine = firstLine;
+    }
+
+    /**
+     * Returns a command that applies the same script, but consecutive plain management operations are performed
+     * as composite operations. See {@link CliScript#compileToComposites(int)} for details.
+     * @throws IllegalArgumentException if {@code maxOperationsPerComposite} is not positive
+     */
+    public CliFile compileToComposites(int maxOperationsPerComposite) {
+        if (maxOperationsPerComposite <= 0) {
+            throw new IllegalArgumentException("Maximum number of operations in a composite must be positive");
+        }
+        return new CliFile(source, description, maxOperationsPerComposite, streaming, firstLine);
+    }
+
+    /**
+     * Returns a command that applies the same script, but the file is not read into memory; each line is checked
+     * and performed as soon as it's read. This is useful for very large scripts. Note that the check
+     * for forbidden {@code connect} operations (see {@link CliScript}) is also done line by line, so if the script
+     * contains one, the lines that precede it have already been performed.
+     */
+    public CliFile streaming() {
+        return new CliFile(source, description, maxOperationsPerComposite, true, firstLine);
+    }
+
+    /**
+     * Returns a command that applies the same script, but skips all lines before {@code lineNumber}. This is useful
+     * for resuming a script that failed, see {@link CliScriptFailedException#resumeFromLine()}. Note that local CLI
+     * operations (such as {@code cd}) on the skipped lines are skipped as well.
+     * @param lineNumber number of the first line to perform; the first line of the script has number 1
+     * @throws IllegalArgumentException if {@code lineNumber} is not positive
+     */
+    public CliFile resumeFromLine(int lineNumber) {
+        if (lineNumber <= 0) {
+            throw new IllegalArgumentException("Line number must be positive");
+        }
+        return new CliFile(source, description, maxOperationsPerComposite, streaming, lineNumber);
+    }
+
+    /**
+     * Returns how many round trips to the server were saved during the last {@code apply} of this command
+     * by performing operations as composite operations (see {@link #compileToComposites(int)}). Zero if the command
+     * wasn't applied yet, if the script failed or if the script wasn't compiled to composite operations.
+     */
+    public int savedRoundTrips() {
+        return savedRoundTrips;
     }
 
     @Override
-    public void apply(OnlineCommandContext ctx) throws IOException, CliException, CommandFailedException {
-        ctx.client.apply(new CliScript(source.read(), description));
+    public void apply(OnlineCommandContext ctx) throws Exception {
+        savedRoundTrips = 0;
+        if (!streaming) {
+            CliScript script = new CliScript(source.read(), description);
+            if (maxOperationsPerComposite > 0) {
+                script = script.compileToComposites(maxOperationsPerComposite);
+            }
+            script = script.resumeFromLine(firstLine);
+            script.apply(ctx);
+            savedRoundTrips = script.savedRoundTrips();
+            return;
+        }
+
+        CliScriptExecution execution = new CliScriptExecution(ctx, toString(), maxOperationsPerComposite, firstLine);
+        BufferedReader reader = source.openBufferedStream();
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                execution.line(line);
+            }
+        } finally {
+            reader.close();
+        }
+        execution.finish();
+        savedRoundTrips = execution.savedRoundTrips();
     }
 
     @Override
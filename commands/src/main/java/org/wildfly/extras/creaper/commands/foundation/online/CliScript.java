@@ -1,12 +1,13 @@
 package org.wildfly.extras.creaper.commands.foundation.online;
 
-import com.google.common.base.Predicates;
 import com.google.common.collect.Iterables;
 import com.google.common.io.CharSource;
 import org.wildfly.extras.creaper.core.CommandFailedException;
 import org.wildfly.extras.creaper.core.online.OnlineCommand;
 import org.wildfly.extras.creaper.core.online.OnlineCommandContext;
 
+import java.util.List;
+
 /**
  * <p>Apply a list of CLI operations (a CLI script), provided as a {@code String}. If you want to read the script
  * from a file or a classpath resource, use the {@link CliFile} command.</p>
@@ -16,10 +17,21 @@ import org.wildfly.extras.creaper.core.online.OnlineCommandContext;
  * that specifies the host and port to connect to) are considered a failure. The script is scanned for the forbidden
  * {@code connect} operations <i>before</i> is it executed, so if this error happens, no operation from the script
  * has been performed yet.</p>
+ *
+ * <p>By default, each line of the script is performed separately, which means one round trip to the server for each
+ * management operation. If the script consists mostly of plain management operations (such as
+ * {@code /subsystem=foo:add(...)}), it can be performed much faster by grouping consecutive operations into
+ * composite operations, see {@link #compileToComposites(int)}.</p>
+ *
+ * <p>If a line of the script fails, a {@link CliScriptFailedException} with the number of the failed line
+ * is thrown. A failed script can be resumed, see {@link #resumeFromLine(int)}.</p>
  */
 public final class CliScript implements OnlineCommand {
     private final String script;
     private final String description;
+    private final int maxOperationsPerComposite; // 0 <=> line by line
+    private final int firstLine;
+    private volatile int savedRoundTrips;
 
     /**
      * Apply the given CLI {@code script}.
@@ -35,26 +47,82 @@ public final class CliScript implements OnlineCommand {
      * @param description human-readable description of the script to use for {@code toString}; may be {@code null}
      */
     CliScript(String script, String description) {
+        this(script, description, 0, 1);
+    }
+
+    private CliScript(String script, String description, int maxOperationsPerComposite, int firstLine) {
         if (script == null) {
             throw new IllegalArgumentException("The script text must be provided");
         }
 
         this.script = script;
         this.description = description;
+        this.maxOperationsPerComposite = maxOperationsPerComposite;
+        this.firstLine = firstLine;
+    }
+
+    /**
+     * <p>Returns a command that applies the same script, but consecutive plain management operations are parsed
+     * up front and performed as composite operations of at most {@code maxOperationsPerComposite} steps, which saves
+     * a round trip to the server for each operation but the first in each composite. The order of operations
+     * is preserved. All other lines (e.g. {@code module add}, {@code deploy} or {@code cd}) are performed
+     * one by one, as usual; the same applies to all lines in {@code batch}, {@code if}, {@code for}
+     * and {@code try} blocks. Empty lines and comments are skipped. The number of saved round trips is logged
+     * and available from {@link #savedRoundTrips()} after the command is applied.</p>
+     *
+     * <p>Note that a composite operation is atomic: if one of its steps fails, none of its steps takes effect.
+     * When a script is performed line by line, the operations that preceded the failed one take effect.</p>
+     *
+     * @param maxOperationsPerComposite the maximum number of steps in a single composite operation
+     * @throws IllegalArgumentException if {@code maxOperationsPerComposite} is not positive
+     */
+    public CliScript compileToComposites(int maxOperationsPerComposite) {
+        if (maxOperationsPerComposite <= 0) {
+            throw new IllegalArgumentException("Maximum number of operations in a composite must be positive");
+        }
+        return new CliScript(script, description, maxOperationsPerComposite, firstLine);
+    }
+
+    /**
+     * Returns a command that applies the same script, but skips all lines before {@code lineNumber}. This is useful
+     * for resuming a script that failed, see {@link CliScriptFailedException#resumeFromLine()}. Note that local CLI
+     * operations (such as {@code cd}) on the skipped lines are skipped as well.
+     * @param lineNumber number of the first line to perform; the first line of the script has number 1
+     * @throws IllegalArgumentException if {@code lineNumber} is not positive
+     */
+    public CliScript resumeFromLine(int lineNumber) {
+        if (lineNumber <= 0) {
+            throw new IllegalArgumentException("Line number must be positive");
+        }
+        return new CliScript(script, description, maxOperationsPerComposite, lineNumber);
+    }
+
+    /**
+     * Returns how many round trips to the server were saved during the last {@code apply} of this command
+     * by performing operations as composite operations (see {@link #compileToComposites(int)}). Zero if the command
+     * wasn't applied yet, if the script failed or if the script wasn't compiled to composite operations.
+     */
+    public int savedRoundTrips() {
+        return savedRoundTrips;
     }
 
     @Override
     public void apply(OnlineCommandContext ctx) throws Exception {
-        Iterable<String> lines = CharSource.wrap(script).readLines();
-        lines = Iterables.filter(lines, Predicates.not(Predicates.containsPattern("^\\s*connect\\s*$")));
+        savedRoundTrips = 0;
+        List<String> lines = CharSource.wrap(script).readLines();
 
-        if (Iterables.any(lines, Predicates.containsPattern("^\\s*connect"))) {
-            throw new CommandFailedException("The script contains an unsupported 'connect' operation");
+        for (String line : Iterables.skip(lines, firstLine - 1)) {
+            if (CliScriptExecution.isForbiddenConnect(line)) {
+                throw new CommandFailedException("The script contains an unsupported 'connect' operation");
+            }
         }
 
+        CliScriptExecution execution = new CliScriptExecution(ctx, toString(), maxOperationsPerComposite, firstLine);
         for (String line : lines) {
-            ctx.client.executeCli(line.trim());
+            execution.line(line);
         }
+        execution.finish();
+        savedRoundTrips = execution.savedRoundTrips();
     }
 
     @Override
@@ -0,0 +1,243 @@
+package org.wildfly.extras.creaper.commands.foundation.online;
+
+import com.google.common.collect.ImmutableSet;
+import org.jboss.dmr.ModelNode;
+import org.jboss.logging.Logger;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.FailuresAllowedBlock;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.OnlineCommandContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Performs lines of a CLI script one by one, as they are read; shared by {@link CliScript} and {@link CliFile}.
+ * Keeps track of line numbers, so that a failed script can be resumed (see {@link CliScriptFailedException}),
+ * and optionally groups consecutive plain operations into composite operations
+ * (see {@link CliScript#compileToComposites(int)}).
+ */
+final class CliScriptExecution {
+    private static final Logger log = Logger.getLogger(CliScriptExecution.class);
+
+    private static final Pattern BARE_CONNECT = Pattern.compile("^\\s*connect\\s*$");
+    private static final Pattern CONNECT = Pattern.compile("^\\s*connect");
+
+    /** Operations that can't be performed as a step of a composite operation. */
+    private static final Set<String> NON_COMPOSABLE_OPERATIONS = ImmutableSet.of(
+            Constants.RELOAD, Constants.SHUTDOWN, Constants.RESTART);
+    /** CLI commands that start a block of lines that must be performed line by line. */
+    private static final Set<String> BLOCK_START = ImmutableSet.of("batch", "if", "for", "try");
+    /** CLI commands that end a block of lines that must be performed line by line. */
+    private static final Set<String> BLOCK_END = ImmutableSet.of("run-batch", "discard-batch", "end-if", "done",
+            "end-try");
+
+    private final OnlineCommandContext ctx;
+    private final String description;
+    private final int maxOperationsPerComposite; // 0 <=> line by line
+    private final int firstLine;
+
+    private final List<ModelNode> pending = new ArrayList<ModelNode>();
+    /** Line numbers of the {@link #pending} operations. */
+    private final List<Integer> pendingLines = new ArrayList<Integer>();
+    private int pendingFirstLine;
+    private int lineNumber;
+    private int failedLine;
+    private int blockDepth;
+    private int blockFirstLine;
+    private boolean inBatch;
+    private int resumeLine;
+
+    private int compiledOperations;
+    private int composites;
+
+    CliScriptExecution(OnlineCommandContext ctx, String description, int maxOperationsPerComposite, int firstLine) {
+        this.ctx = ctx;
+        this.description = description;
+        this.maxOperationsPerComposite = maxOperationsPerComposite;
+        this.firstLine = firstLine;
+    }
+
+    /** A {@code connect} operation with arguments, which is not supported; bare {@code connect} is ignored. */
+    static boolean isForbiddenConnect(String line) {
+        return CONNECT.matcher(line).find() && !BARE_CONNECT.matcher(line).find();
+    }
+
+    /** Performs the next line of the script, unless it precedes the first line that should be performed. */
+    void line(String line) throws CommandFailedException {
+        lineNumber++;
+        if (lineNumber < firstLine || BARE_CONNECT.matcher(line).find()) {
+            return;
+        }
+        if (CONNECT.matcher(line).find()) {
+            throw new CommandFailedException("The script contains an unsupported 'connect' operation on line "
+                    + lineNumber);
+        }
+
+        try {
+            failedLine = lineNumber;
+            perform(line.trim());
+        } catch (Exception e) {
+            throw failure(e);
+        }
+    }
+
+    /** Performs the operations that are still waiting to be grouped into a composite operation. */
+    void finish() throws CommandFailedException {
+        try {
+            failedLine = lineNumber;
+            executePending();
+        } catch (Exception e) {
+            throw failure(e);
+        }
+
+        if (maxOperationsPerComposite > 0) {
+            log.infof("%s: %d operations performed using %d requests, %d round trips saved", description,
+                    compiledOperations, composites, savedRoundTrips());
+        }
+    }
+
+    /** Number of round trips saved by performing operations as composite operations. */
+    int savedRoundTrips() {
+        return compiledOperations - composites;
+    }
+
+    private void perform(String line) throws Exception {
+        if (maxOperationsPerComposite > 0 && blockDepth == 0) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                return;
+            }
+
+            if (isOperation(line)) {
+                resumeLine = pending.isEmpty() ? lineNumber : pendingFirstLine;
+                ModelNode operation = ctx.client.parseCli(line);
+                if (!NON_COMPOSABLE_OPERATIONS.contains(operation.get(Constants.OP).asString())) {
+                    if (pending.isEmpty()) {
+                        pendingFirstLine = lineNumber;
+                    }
+                    pending.add(operation);
+                    pendingLines.add(lineNumber);
+                    compiledOperations++;
+                    if (pending.size() == maxOperationsPerComposite) {
+                        executePending();
+                    }
+                    return;
+                }
+            }
+        }
+
+        executePending();
+
+        // if a line inside a block fails, the whole block must be performed again
+        resumeLine = blockDepth > 0 ? blockFirstLine : lineNumber;
+
+        String command = line.split("\\s+", 2)[0];
+        if (BLOCK_START.contains(command)) {
+            if (blockDepth == 0) {
+                blockFirstLine = lineNumber;
+            }
+            blockDepth++;
+            inBatch |= "batch".equals(command);
+        } else if (BLOCK_END.contains(command) && blockDepth > 0) {
+            blockDepth--;
+        }
+
+        ctx.client.executeCli(line);
+
+        if ("run-batch".equals(command) || "discard-batch".equals(command)) {
+            inBatch = false;
+        }
+    }
+
+    private static boolean isOperation(String line) {
+        return line.startsWith("/") || line.startsWith(":") || line.startsWith("./");
+    }
+
+    /** A single operation is performed directly. */
+    private void executePending() throws Exception {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        resumeLine = pendingFirstLine;
+
+        ModelNode operation;
+        if (pending.size() == 1) {
+            operation = pending.get(0);
+        } else {
+            operation = new ModelNode();
+            operation.get(Constants.OP).set(Constants.COMPOSITE);
+            operation.get(Constants.OP_ADDR).setEmptyList();
+            ModelNode steps = operation.get(Constants.STEPS).setEmptyList();
+            for (ModelNode step : pending) {
+                steps.add(step);
+            }
+        }
+        List<Integer> lines = new ArrayList<Integer>(pendingLines);
+        pending.clear();
+        pendingLines.clear();
+        composites++;
+
+        ModelNodeResult result;
+        FailuresAllowedBlock allowFailures = ctx.client.allowFailures();
+        try {
+            result = ctx.client.execute(operation);
+        } finally {
+            allowFailures.close();
+        }
+
+        // same as CLI operations performed line by line, a failure is always an error, even if failures are allowed
+        if (result.isFailed()) {
+            failedLine = lines.size() == 1 ? lines.get(0) : failedStepLine(result, lines);
+            throw new CommandFailedException("Operation " + operation.asString() + " failed: " + result.asString());
+        }
+    }
+
+    /**
+     * Steps of a failed composite operation that were rolled back are also marked as failed, but only the step
+     * that caused the failure has a failure description.
+     */
+    private static int failedStepLine(ModelNodeResult result, List<Integer> lines) {
+        if (result.hasDefinedValue()) {
+            int step = 0;
+            for (ModelNodeResult stepResult : result.forAllBatchSteps()) {
+                if (step < lines.size() && stepResult.isFailed()
+                        && stepResult.hasDefined(Constants.FAILURE_DESCRIPTION)) {
+                    return lines.get(step);
+                }
+                step++;
+            }
+        }
+        return lines.get(0);
+    }
+
+    private CliScriptFailedException failure(Exception cause) {
+        pending.clear();
+        pendingLines.clear();
+        blockDepth = 0;
+        if (inBatch) {
+            inBatch = false;
+            try {
+                ctx.client.executeCli("discard-batch");
+            } catch (Exception ignored) {
+                // the batch was already discarded
+            }
+        }
+
+        return new CliScriptFailedException(description, failedLine, resumeLine, unwrap(cause));
+    }
+
+    /**
+     * Inside a command, failures of the client are thrown as an internal runtime exception, which is unwrapped
+     * to the original {@code CommandFailedException} by {@code OnlineManagementClient.apply}; do the same here.
+     */
+    private static Throwable unwrap(Exception e) {
+        if (e instanceof RuntimeException && e.getCause() instanceof CommandFailedException) {
+            return e.getCause();
+        }
+        return e;
+    }
+}
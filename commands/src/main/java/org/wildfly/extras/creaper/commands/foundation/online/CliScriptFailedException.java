@@ -0,0 +1,36 @@
+package org.wildfly.extras.creaper.commands.foundation.online;
+
+import org.wildfly.extras.creaper.core.CommandFailedException;
+
+/**
+ * <p>Signifies that a line of a {@link CliScript} or a {@link CliFile} failed. Since
+ * {@code OnlineManagementClient.apply} wraps exceptions thrown by commands, this exception is the <i>cause</i>
+ * of the {@code CommandFailedException} thrown from {@code apply}.</p>
+ *
+ * <p>After the problem is fixed, the script can be resumed from {@link #resumeFromLine()}
+ * (see {@link CliFile#resumeFromLine(int)}). This is the failed line itself, unless it was inside a block
+ * (such as {@code batch} ... {@code run-batch}) or its operation was a step of a composite operation
+ * (see {@link CliScript#compileToComposites(int)}); then it's the first line of the block or of the composite
+ * operation, because none of its lines took effect. If the failed line was inside a batch, the batch is discarded.
+ * </p>
+ */
+public final class CliScriptFailedException extends CommandFailedException {
+    private final int failedLine;
+    private final int resumeFromLine;
+
+    CliScriptFailedException(String script, int failedLine, int resumeFromLine, Throwable cause) {
+        super(script + " failed on line " + failedLine + ", it can be resumed from line " + resumeFromLine, cause);
+        this.failedLine = failedLine;
+        this.resumeFromLine = resumeFromLine;
+    }
+
+    /** Number of the line that failed; the first line of the script has number 1. */
+    public int failedLine() {
+        return failedLine;
+    }
+
+    /** Number of the first line that didn't take effect; the first line of the script has number 1. */
+    public int resumeFromLine() {
+        return resumeFromLine;
+    }
+}
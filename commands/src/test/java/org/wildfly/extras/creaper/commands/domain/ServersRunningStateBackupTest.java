@@ -0,0 +1,244 @@
+package org.wildfly.extras.creaper.commands.domain;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.as.controller.client.Operation;
+import org.jboss.as.controller.client.OperationMessageHandler;
+import org.jboss.as.controller.client.OperationResponse;
+import org.jboss.dmr.ModelNode;
+import org.jboss.threads.AsyncFuture;
+import org.jboss.threads.AsyncFutureTask;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.OnlineOptions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class ServersRunningStateBackupTest {
+    private FakeDomain domain;
+    private OnlineManagementClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        domain = new FakeDomain();
+        domain.server("a", "a-1", true);
+        domain.server("a", "a-2", false);
+        domain.server("b", "b-1", true);
+        domain.server("b", "b-2", false);
+
+        client = ManagementClient.online(OnlineOptions.domain().build().wrap(domain));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        client.close();
+    }
+
+    @Test
+    public void restoreStopsAndStartsServersConcurrently() throws Exception {
+        ServersRunningStateBackup backup = new ServersRunningStateBackup();
+        client.apply(backup.backup());
+
+        domain.setRunning("a/a-1", false);
+        domain.setRunning("a/a-2", true);
+        domain.setRunning("b/b-1", false);
+        domain.setRunning("b/b-2", true);
+
+        client.apply(backup.restore());
+
+        assertEquals(new HashSet<String>(Arrays.asList("a/a-1", "b/b-1")), domain.running);
+
+        // first all the stops, then all the starts, each of them on all hosts at once
+        assertEquals(4, domain.asyncOperations.size());
+        assertEquals(new HashSet<String>(Arrays.asList("stop a/a-2", "stop b/b-2")),
+                new HashSet<String>(domain.asyncOperations.subList(0, 2)));
+        assertEquals(new HashSet<String>(Arrays.asList("start a/a-1", "start b/b-1")),
+                new HashSet<String>(domain.asyncOperations.subList(2, 4)));
+        assertEquals(2, domain.maxInFlight.get());
+    }
+
+    /**
+     * Answers the operations used by {@code ServersRunningStateBackup} (and by creating the client). Asynchronous
+     * operations take some time, so that concurrently submitted operations are in flight at the same time.
+     */
+    private static final class FakeDomain implements ModelControllerClient {
+        private final ExecutorService executor = Executors.newCachedThreadPool();
+
+        final Map<String, List<String>> servers = new LinkedHashMap<String, List<String>>();
+        final Set<String> running = new LinkedHashSet<String>();
+        final List<String> asyncOperations = new ArrayList<String>();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        void server(String host, String server, boolean isRunning) {
+            if (!servers.containsKey(host)) {
+                servers.put(host, new ArrayList<String>());
+            }
+            servers.get(host).add(server);
+            setRunning(host + "/" + server, isRunning);
+        }
+
+        synchronized void setRunning(String hostAndServer, boolean isRunning) {
+            if (isRunning) {
+                running.add(hostAndServer);
+            } else {
+                running.remove(hostAndServer);
+            }
+        }
+
+        @Override
+        public synchronized ModelNode execute(ModelNode operation) {
+            ModelNode response = new ModelNode();
+            response.get(Constants.OUTCOME).set(Constants.SUCCESS);
+            ModelNode result = response.get(Constants.RESULT);
+
+            String name = operation.get(Constants.OP).asString();
+            List<ModelNode> address = operation.get(Constants.OP_ADDR).asList();
+            String host = address.isEmpty() ? null : address.get(0).asProperty().getValue().asString();
+            String hostAndServer = address.size() < 2 ? null
+                    : host + "/" + address.get(1).asProperty().getValue().asString();
+
+            if (Constants.COMPOSITE.equals(name)) {
+                int i = 1;
+                for (ModelNode step : operation.get(Constants.STEPS).asList()) {
+                    result.get("step-" + i).set(execute(step));
+                    i++;
+                }
+            } else if (Constants.READ_CHILDREN_TYPES.equals(name)) {
+                result.add(Constants.PROFILE).add(Constants.HOST).add(Constants.SERVER_GROUP);
+            } else if (Constants.READ_CHILDREN_NAMES_OPERATION.equals(name)) {
+                String childType = operation.get(Constants.CHILD_TYPE).asString();
+                result.setEmptyList();
+                if (Constants.HOST.equals(childType)) {
+                    for (String knownHost : servers.keySet()) {
+                        result.add(knownHost);
+                    }
+                } else {
+                    for (String server : servers.get(host)) {
+                        if (Constants.SERVER_CONFIG.equals(childType) || running.contains(host + "/" + server)) {
+                            result.add(server);
+                        }
+                    }
+                }
+            } else if (Constants.READ_ATTRIBUTE_OPERATION.equals(name)) {
+                String attribute = operation.get(Constants.NAME).asString();
+                if (Constants.STATUS.equals(attribute)) {
+                    result.set(running.contains(hostAndServer) ? "STARTED" : "STOPPED");
+                } else if ("management-major-version".equals(attribute)) {
+                    result.set(4);
+                } else {
+                    result.set(0);
+                }
+            } else if (Constants.START.equals(name) || Constants.STOP.equals(name)) {
+                setRunning(hostAndServer, Constants.START.equals(name));
+            } else {
+                response.get(Constants.OUTCOME).set(Constants.FAILED);
+                response.get(Constants.FAILURE_DESCRIPTION).set("Unknown operation " + name);
+            }
+            return response;
+        }
+
+        @Override
+        public ModelNode execute(Operation operation) {
+            return execute(operation.getOperation());
+        }
+
+        @Override
+        public ModelNode execute(ModelNode operation, OperationMessageHandler messageHandler) {
+            return execute(operation);
+        }
+
+        @Override
+        public ModelNode execute(Operation operation, OperationMessageHandler messageHandler) {
+            return execute(operation.getOperation());
+        }
+
+        @Override
+        public OperationResponse executeOperation(Operation operation, OperationMessageHandler messageHandler) {
+            return OperationResponse.Factory.createSimple(execute(operation.getOperation()));
+        }
+
+        @Override
+        public AsyncFuture<ModelNode> executeAsync(final ModelNode operation, OperationMessageHandler messageHandler) {
+            List<ModelNode> address = operation.get(Constants.OP_ADDR).asList();
+            synchronized (this) {
+                asyncOperations.add(operation.get(Constants.OP).asString() + " "
+                        + address.get(0).asProperty().getValue().asString() + "/"
+                        + address.get(1).asProperty().getValue().asString());
+            }
+
+            int currentlyInFlight = inFlight.incrementAndGet();
+            while (true) {
+                int max = maxInFlight.get();
+                if (currentlyInFlight <= max || maxInFlight.compareAndSet(max, currentlyInFlight)) {
+                    break;
+                }
+            }
+
+            final Task task = new Task();
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(100);
+                    } catch (InterruptedException ignored) {
+                        // just finish earlier
+                    }
+                    ModelNode result = execute(operation);
+                    inFlight.decrementAndGet();
+                    task.complete(result);
+                }
+            });
+            return task;
+        }
+
+        @Override
+        public AsyncFuture<ModelNode> executeAsync(Operation operation, OperationMessageHandler messageHandler) {
+            return executeAsync(operation.getOperation(), messageHandler);
+        }
+
+        @Override
+        public AsyncFuture<OperationResponse> executeOperationAsync(Operation operation,
+                                                                    OperationMessageHandler messageHandler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+            executor.shutdownNow();
+        }
+    }
+
+    private static final class Task extends AsyncFutureTask<ModelNode> {
+        Task() {
+            super(MoreExecutors.directExecutor());
+        }
+
+        void complete(ModelNode result) {
+            setResult(result);
+        }
+
+        @Override
+        public void asyncCancel(boolean interruptionDesired) {
+            setCancelled();
+        }
+    }
+}
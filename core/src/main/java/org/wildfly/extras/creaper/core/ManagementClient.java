@@ -13,7 +13,7 @@ import java.io.IOException;
  * {@link org.wildfly.extras.creaper.core.offline.OfflineManagementClient offline} management clients.
  * Note that creating a management client is generally fairly heavy-weight, so reusing a client is a good idea.
  * Also note that the <b>entire</b> Creaper library is meant for <b>single-threaded</b> use and <b>no</b> thread-safety
- * guarantees are made!
+ * guarantees are made! The only exception is the client created by {@link #onlineConcurrent(OnlineOptions)}.
  */
 public final class ManagementClient {
     private ManagementClient() {} // avoid instantiation
@@ -45,6 +45,24 @@ public final class ManagementClient {
         return OnlineClientFactory.instance.createLazy(options);
     }
 
+    /**
+     * <p>Creates an eagerly-initialized {@link org.wildfly.extras.creaper.core.online.OnlineManagementClient} that
+     * can be shared by multiple threads. Management operations performed from multiple threads are performed
+     * concurrently over a single connection to the server. Operations in the CLI syntax are performed one at a time.
+     * Reconnecting and closing the client waits for the operations in progress and blocks new ones until it's
+     * finished; if multiple threads want to reconnect at the same time, only one reconnect is actually done.</p>
+     *
+     * <p>Note that this only applies to the client itself. Other parts of the Creaper library (e.g. commands) are
+     * still meant to be used by a single thread at a time.</p>
+     *
+     * @param options connection options (host, port etc.)
+     * @throws IOException see {@link #online(OnlineOptions)}
+     * @throws IllegalStateException see {@link #online(OnlineOptions)}
+     */
+    public static OnlineManagementClient onlineConcurrent(OnlineOptions options) throws IOException {
+        return OnlineClientFactory.instance.createConcurrent(options);
+    }
+
     /**
      * Creates a {@link org.wildfly.extras.creaper.core.offline.OfflineManagementClient}.
      * @param options connection options (root directory of the application server etc.)
@@ -69,6 +87,8 @@ public final class ManagementClient {
         protected abstract OnlineManagementClient create(OnlineOptions options) throws IOException;
 
         protected abstract OnlineManagementClient createLazy(OnlineOptions options);
+
+        protected abstract OnlineManagementClient createConcurrent(OnlineOptions options) throws IOException;
     }
 
     /** Ignore, this is not a part of public API. */
@@ -0,0 +1,74 @@
+package org.wildfly.extras.creaper.core.offline;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * <p>In-memory content of the configuration file, shared by all commands applied in a single
+ * {@link OfflineManagementClient#applyBuffered(OfflineCommand...) applyBuffered} call. The file is read when
+ * the content is first needed and written back only once, at the end of {@code applyBuffered}. Writing is atomic
+ * where the filesystem allows that: the content is first written to a temporary file in the same directory, which is
+ * then renamed to the configuration file.</p>
+ *
+ * <p>Commands that work with the configuration file directly (through {@link OfflineCommandContext#configurationFile})
+ * must call {@link #flush()} before accessing the file, so that they see all the changes made by previous commands
+ * and so that their own changes are not overwritten later.</p>
+ */
+public final class ConfigurationFileBuffer {
+    private final File configurationFile;
+
+    private String content; // null <=> not loaded
+    private boolean modified;
+
+    ConfigurationFileBuffer(File configurationFile) {
+        this.configurationFile = configurationFile;
+    }
+
+    /** Returns current content of the configuration file, including changes that were not yet written to disk. */
+    public String read() throws IOException {
+        if (content == null) {
+            content = Files.toString(configurationFile, Charsets.UTF_8);
+            modified = false;
+        }
+        return content;
+    }
+
+    /** Replaces the content of the configuration file. The change is only written to disk on {@link #flush()}. */
+    public void write(String newContent) {
+        if (newContent == null) {
+            throw new IllegalArgumentException("Configuration file content must be set");
+        }
+
+        this.content = newContent;
+        this.modified = true;
+    }
+
+    /**
+     * Writes pending changes to the configuration file and forgets the in-memory content, so that the file
+     * can be safely accessed directly. Next call to {@link #read()} will read the file again.
+     */
+    public void flush() throws IOException {
+        if (modified) {
+            File tempFile = new File(configurationFile.getAbsoluteFile().getParentFile(),
+                    "." + configurationFile.getName() + ".tmp");
+            Files.write(content, tempFile, Charsets.UTF_8);
+            // this is a rename if possible, and a copy + delete otherwise
+            Files.move(tempFile, configurationFile);
+        }
+
+        content = null;
+        modified = false;
+    }
+
+    /**
+     * Forgets all changes that were not yet written to disk. The next {@link #read()} reads the configuration file
+     * again.
+     */
+    public void discard() {
+        content = null;
+        modified = false;
+    }
+}
@@ -9,11 +9,20 @@ public final class OfflineCommandContext {
     public final OfflineOptions options; // same as client.options()
     public final ServerVersion version;
     public final File configurationFile; // same as client.options().configurationFile
+    /**
+     * In-memory content of the {@link #configurationFile} when the commands are applied using
+     * {@link OfflineManagementClient#applyBuffered(OfflineCommand...) applyBuffered}, {@code null} otherwise.
+     * Commands that access the {@code configurationFile} directly must {@link ConfigurationFileBuffer#flush() flush}
+     * the buffer first.
+     */
+    public final ConfigurationFileBuffer configurationFileBuffer;
 
-    OfflineCommandContext(OfflineManagementClient client, ServerVersion version) {
+    OfflineCommandContext(OfflineManagementClient client, ServerVersion version,
+                          ConfigurationFileBuffer configurationFileBuffer) {
         this.client = client;
         this.options = client.options();
         this.version = version;
         this.configurationFile = client.options().configurationFile;
+        this.configurationFileBuffer = configurationFileBuffer;
     }
 }
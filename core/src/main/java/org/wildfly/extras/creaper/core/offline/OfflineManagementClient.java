@@ -29,4 +29,28 @@ public interface OfflineManagementClient {
      * details about error handling
      */
     void apply(Iterable<OfflineCommand> commands) throws CommandFailedException;
+
+    /**
+     * <p>Applies a set of {@code commands} sequentially, just like {@link #apply(OfflineCommand...) apply}, but
+     * the configuration file is only read once and kept in memory (see {@link ConfigurationFileBuffer}), so that
+     * all the commands work on the same in-memory content. The configuration file is written once, after all
+     * the commands were applied. This is much faster than {@code apply} when applying a lot of commands to a large
+     * configuration file.</p>
+     *
+     * <p>If any one of the commands fails, the rest of the commands is skipped, the changes that were not yet written
+     * to disk are discarded and the exception is rethrown. Note that some commands need to access the configuration
+     * file directly, in which case all the changes performed so far are written to disk before such command
+     * is applied.</p>
+     *
+     * <p>Commands applied from inside the {@code commands} (using {@link #apply(OfflineCommand...) apply}) share
+     * the same in-memory content. Calling {@code applyBuffered} inside another {@code applyBuffered} is the same
+     * as calling {@code apply}.</p>
+     *
+     * @throws CommandFailedException if any of the commands failed or if writing the configuration file failed;
+     * see documentation of the exception for more details about error handling
+     */
+    void applyBuffered(OfflineCommand... commands) throws CommandFailedException;
+
+    /** @see #applyBuffered(OfflineCommand...) */
+    void applyBuffered(Iterable<OfflineCommand> commands) throws CommandFailedException;
 }
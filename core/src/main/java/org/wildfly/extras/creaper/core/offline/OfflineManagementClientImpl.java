@@ -14,6 +14,8 @@ final class OfflineManagementClientImpl implements OfflineManagementClient {
     private final OfflineOptions options;
     private final ServerVersion version;
 
+    private ConfigurationFileBuffer buffer; // != null <=> applyBuffered in progress
+
     OfflineManagementClientImpl(OfflineOptions options) throws IOException {
         File configurationFile = options.configurationFile;
         if (!configurationFile.exists()) {
@@ -42,7 +44,7 @@ final class OfflineManagementClientImpl implements OfflineManagementClient {
     @Override
     public void apply(Iterable<OfflineCommand> commands) throws CommandFailedException {
         try {
-            OfflineCommandContext ctx = new OfflineCommandContext(this, version);
+            OfflineCommandContext ctx = new OfflineCommandContext(this, version, buffer);
             for (OfflineCommand command : commands) {
                 log.infof("Applying command %s", command);
                 command.apply(ctx);
@@ -54,4 +56,29 @@ final class OfflineManagementClientImpl implements OfflineManagementClient {
             throw new CommandFailedException(e);
         }
     }
+
+    @Override
+    public void applyBuffered(OfflineCommand... commands) throws CommandFailedException {
+        applyBuffered(Arrays.asList(commands));
+    }
+
+    @Override
+    public void applyBuffered(Iterable<OfflineCommand> commands) throws CommandFailedException {
+        if (buffer != null) {
+            // nested call, the outer applyBuffered is responsible for writing the file
+            apply(commands);
+            return;
+        }
+
+        buffer = new ConfigurationFileBuffer(options.configurationFile);
+        try {
+            apply(commands);
+            buffer.flush();
+        } catch (IOException e) {
+            throw new CommandFailedException("Failed to write configuration file " + options.configurationFile, e);
+        } finally {
+            buffer.discard(); // no-op if flushed successfully
+            buffer = null;
+        }
+    }
 }
@@ -1,11 +1,15 @@
 package org.wildfly.extras.creaper.core.online;
 
+import com.google.common.cache.CacheStats;
 import org.jboss.as.controller.client.Operation;
 import org.jboss.dmr.ModelNode;
 import org.wildfly.extras.creaper.core.CommandFailedException;
 import org.wildfly.extras.creaper.core.ServerVersion;
 
 import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 final class AutomaticErrorHandlingForCommands implements OnlineManagementClient {
@@ -101,6 +105,53 @@ final class AutomaticErrorHandlingForCommands implements OnlineManagementClient
         }
     }
 
+    @Override
+    public Future<ModelNodeResult> executeAsync(final ModelNode operation) {
+        final boolean throwExceptionOnOperationFailure = throwExceptionsOnOperationFailures;
+        final Future<ModelNodeResult> future;
+        try {
+            future = delegate.executeAsync(operation);
+        } catch (Exception e) {
+            commandFailedWithCause(e);
+            return null; // dead code
+        }
+
+        return new Future<ModelNodeResult>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                return future.cancel(mayInterruptIfRunning);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return future.isCancelled();
+            }
+
+            @Override
+            public boolean isDone() {
+                return future.isDone();
+            }
+
+            @Override
+            public ModelNodeResult get() throws InterruptedException, ExecutionException {
+                return check(future.get());
+            }
+
+            @Override
+            public ModelNodeResult get(long timeout, TimeUnit unit)
+                    throws InterruptedException, ExecutionException, TimeoutException {
+                return check(future.get(timeout, unit));
+            }
+
+            private ModelNodeResult check(ModelNodeResult result) {
+                if (result.isFailed() && throwExceptionOnOperationFailure) {
+                    commandFailedWithMessage("Operation " + operation.asString() + " failed: " + result.asString());
+                }
+                return result;
+            }
+        };
+    }
+
     @Override
     public void executeCli(String cliOperation) {
         try {
@@ -110,6 +161,16 @@ final class AutomaticErrorHandlingForCommands implements OnlineManagementClient
         }
     }
 
+    @Override
+    public ModelNode parseCli(String operation) {
+        try {
+            return delegate.parseCli(operation);
+        } catch (Exception e) {
+            commandFailedWithCause(e);
+            return null; // dead code
+        }
+    }
+
     @Override
     public void reconnect(int timeoutInSeconds) throws TimeoutException, InterruptedException {
         delegate.reconnect(timeoutInSeconds);
@@ -129,6 +190,11 @@ final class AutomaticErrorHandlingForCommands implements OnlineManagementClient
         };
     }
 
+    @Override
+    public CacheStats readCacheStats() {
+        return delegate.readCacheStats();
+    }
+
     @Override
     public void close() throws IOException {
         delegate.close();
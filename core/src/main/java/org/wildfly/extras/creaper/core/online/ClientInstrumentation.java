@@ -0,0 +1,53 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+
+/**
+ * <p>Gets notified about everything that an {@link OnlineManagementClient} spends time on: management operations
+ * (see {@link OperationListener}), applied commands, reconnect attempts and reloads and restarts performed by
+ * {@link org.wildfly.extras.creaper.core.online.operations.admin.Administration Administration}. Use
+ * {@link OnlineOptions.OptionalOnlineOptions#instrumentation(ClientInstrumentation)} to register an instrumentation.
+ * </p>
+ *
+ * <p>All methods do nothing by default, so subclasses only override what they are interested in. The same rules
+ * as for {@code OperationListener} apply: the methods must be fast, thread-safe and must not throw exceptions.
+ * {@link org.wildfly.extras.creaper.core.online.metrics.MetricsRegistry MetricsRegistry} is an implementation that
+ * collects metrics in memory.</p>
+ */
+public abstract class ClientInstrumentation implements OperationListener {
+    /** Instrumentation that does nothing. This is the default. */
+    public static final ClientInstrumentation NONE = new ClientInstrumentation() {};
+
+    @Override
+    public void beforeExecute(ModelNode operation) {
+    }
+
+    @Override
+    public void afterExecute(ModelNode operation, ModelNodeResult result, Throwable failure, long durationInNanos) {
+    }
+
+    /** Called after the {@code command} was applied, whether it succeeded or not. */
+    public void commandApplied(OnlineCommand command, long durationInNanos, boolean succeeded) {
+    }
+
+    /**
+     * Called after each attempt to reconnect the client to the server during
+     * {@link OnlineManagementClient#reconnect(int) reconnect}.
+     */
+    public void reconnectAttempted(boolean succeeded) {
+    }
+
+    /**
+     * Called after the server was reloaded (in domain, after the host was reloaded) and is running again.
+     * See {@link org.wildfly.extras.creaper.core.online.operations.admin.RestartTimings RestartTimings}.
+     */
+    public void reloadFinished(long durationInMillis) {
+    }
+
+    /**
+     * Called after the server was restarted (in domain, after the host was restarted) and is running again.
+     * See {@link org.wildfly.extras.creaper.core.online.operations.admin.RestartTimings RestartTimings}.
+     */
+    public void restartFinished(long durationInMillis) {
+    }
+}
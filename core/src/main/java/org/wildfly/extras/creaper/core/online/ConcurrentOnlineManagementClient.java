@@ -0,0 +1,273 @@
+package org.wildfly.extras.creaper.core.online;
+
+import com.google.common.cache.CacheStats;
+import org.jboss.as.controller.client.Operation;
+import org.jboss.dmr.ModelNode;
+import org.jboss.logging.Logger;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+import org.wildfly.extras.creaper.core.ServerVersion;
+import org.wildfly.extras.creaper.core.online.operations.admin.Administration;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <p>A thread-safe variant of {@link OnlineManagementClient}. It's a wrapper that delegates to the eager
+ * implementation and coordinates access to it.</p>
+ *
+ * <ul>
+ *     <li>Management operations ({@code execute}) from multiple threads are performed concurrently; they are
+ *     multiplexed over the single underlying {@code ModelControllerClient}, which is thread-safe.</li>
+ *     <li>Operations in the CLI syntax ({@code execute(String)}, {@code executeCli}) are serialized, because
+ *     the CLI {@code CommandContext} isn't thread-safe.</li>
+ *     <li>{@code reconnect} and {@code close} wait for operations in progress to finish and block new operations
+ *     until they are done.</li>
+ *     <li>Concurrent calls to {@code reconnect} are coalesced: only one thread actually reconnects, others wait
+ *     for the result of that reconnect ("single flight").</li>
+ * </ul>
+ *
+ * <p>Commands are applied by the calling thread. Commands applied concurrently from multiple threads can of course
+ * interfere with each other on the server side.</p>
+ */
+final class ConcurrentOnlineManagementClient implements OnlineManagementClient {
+    private static final Logger log = Logger.getLogger(OnlineManagementClient.class);
+
+    private final OnlineManagementClient delegate;
+
+    // read lock: using the delegate; write lock: changing the delegate's connection (reconnect, close)
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object cliLock = new Object();
+
+    private final Object reconnectLock = new Object();
+    private ReconnectAttempt reconnectInProgress; // guarded by reconnectLock
+
+    ConcurrentOnlineManagementClient(OnlineOptions options) throws IOException {
+        this(new OnlineManagementClientImpl(options));
+    }
+
+    // package-private for testing
+    ConcurrentOnlineManagementClient(OnlineManagementClient delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public OnlineOptions options() {
+        return delegate.options();
+    }
+
+    @Override
+    public ServerVersion version() throws IOException {
+        lock.readLock().lock();
+        try {
+            return delegate.version();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void apply(OnlineCommand... commands) throws CommandFailedException {
+        apply(Arrays.asList(commands));
+    }
+
+    @Override
+    public void apply(Iterable<OnlineCommand> commands) throws CommandFailedException {
+        // the commands must work with this client, not with the delegate, so that all the coordination applies
+        // even for operations performed from inside the commands (most notably, reconnects after reload)
+        try {
+            OnlineManagementClient client = AutomaticErrorHandlingForCommands.wrap(this);
+            OnlineCommandContext ctx = new OnlineCommandContext(client, version());
+            ClientInstrumentation instrumentation = options().instrumentation;
+            for (OnlineCommand command : commands) {
+                log.infof("Applying command %s", command);
+                long start = System.nanoTime();
+                boolean succeeded = false;
+                try {
+                    command.apply(ctx);
+                    succeeded = true;
+                } finally {
+                    instrumentation.commandApplied(command, System.nanoTime() - start, succeeded);
+                }
+            }
+        } catch (RuntimeCommandFailedException e) {
+            throw e.original;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CommandFailedException(e);
+        } catch (Exception e) {
+            throw new CommandFailedException(e);
+        }
+    }
+
+    @Override
+    public ModelNodeResult execute(ModelNode operation) throws IOException {
+        lock.readLock().lock();
+        try {
+            return delegate.execute(operation);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public ModelNodeResult execute(Operation operation) throws IOException {
+        lock.readLock().lock();
+        try {
+            return delegate.execute(operation);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public ModelNodeResult execute(String operation) throws CliException, IOException {
+        lock.readLock().lock();
+        try {
+            synchronized (cliLock) {
+                return delegate.execute(operation);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Future<ModelNodeResult> executeAsync(ModelNode operation) throws IOException {
+        lock.readLock().lock();
+        try {
+            return delegate.executeAsync(operation);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void executeCli(String cliOperation) throws CliException, IOException {
+        if ("reload".equals(cliOperation.trim())) {
+            // reload involves a reconnect, which can't be done while holding the read lock
+            executeReload();
+            return;
+        }
+
+        lock.readLock().lock();
+        try {
+            synchronized (cliLock) {
+                delegate.executeCli(cliOperation);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void executeReload() throws CliException, IOException {
+        try {
+            new Administration(this).reload();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CliException(e);
+        } catch (TimeoutException e) {
+            throw new CliException(e);
+        }
+    }
+
+    @Override
+    public ModelNode parseCli(String operation) throws CliException, IOException {
+        lock.readLock().lock();
+        try {
+            synchronized (cliLock) {
+                return delegate.parseCli(operation);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void reconnect(int timeoutInSeconds) throws TimeoutException, InterruptedException {
+        ReconnectAttempt attempt;
+        boolean leader = false;
+        synchronized (reconnectLock) {
+            if (reconnectInProgress == null) {
+                reconnectInProgress = new ReconnectAttempt();
+                leader = true;
+            }
+            attempt = reconnectInProgress;
+        }
+
+        if (!leader) {
+            log.debug("Reconnect already in progress, waiting for it to finish");
+            if (!attempt.done.await(timeoutInSeconds, TimeUnit.SECONDS)) {
+                throw new TimeoutException("Timeout waiting for another thread to reconnect to server");
+            }
+            attempt.rethrowFailure();
+            return;
+        }
+
+        try {
+            lock.writeLock().lock();
+            try {
+                delegate.reconnect(timeoutInSeconds);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (TimeoutException e) {
+            attempt.failure = e;
+            throw e;
+        } catch (InterruptedException e) {
+            attempt.failure = e;
+            throw e;
+        } catch (RuntimeException e) {
+            attempt.failure = e;
+            throw e;
+        } finally {
+            synchronized (reconnectLock) {
+                reconnectInProgress = null;
+            }
+            attempt.done.countDown();
+        }
+    }
+
+    @Override
+    public FailuresAllowedBlock allowFailures() throws IOException {
+        // no need to do anything here
+        // this must mainly be implemented in AutomaticErrorHandlingForCommands
+        return NoopCloseFailuresAllowedBlock.INSTANCE;
+    }
+
+    @Override
+    public CacheStats readCacheStats() {
+        return delegate.readCacheStats();
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            delegate.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class ReconnectAttempt {
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Exception failure; // set before "done" is counted down
+
+        void rethrowFailure() throws TimeoutException, InterruptedException {
+            if (failure instanceof TimeoutException) {
+                throw new TimeoutException(failure.getMessage());
+            } else if (failure instanceof InterruptedException) {
+                // the other thread was interrupted, this one wasn't
+                throw new TimeoutException("Reconnect in another thread was interrupted");
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+        }
+    }
+}
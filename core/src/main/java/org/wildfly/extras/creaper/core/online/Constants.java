@@ -20,6 +20,7 @@ public final class Constants extends ClientConstants {
     public static final String CORE_SERVICE = "core-service";
     public static final String DOMAIN_FAILURE_DESCRIPTION = "domain-failure-description";
     public static final String FAILED = "failed";
+    public static final String GROUP = "group";
     public static final String HOST_FAILURE_DESCRIPTIONS = "host-failure-descriptions";
     public static final String HOST_STATE = "host-state";
     public static final String INCLUDE_DEFAULTS = "include-defaults";
@@ -27,6 +28,7 @@ public final class Constants extends ClientConstants {
     public static final String PLATFORM_MBEAN = "platform-mbean";
     public static final String PROCESS_STATE = "process-state";
     public static final String PROFILE = "profile";
+    public static final String READ_CHILDREN_RESOURCES = "read-children-resources";
     public static final String READ_CHILDREN_TYPES = "read-children-types";
     public static final String RECURSIVE_DEPTH = "recursive-depth";
     public static final String RELOAD = "reload";
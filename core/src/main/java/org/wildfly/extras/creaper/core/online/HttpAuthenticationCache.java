@@ -0,0 +1,58 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.apache.http.client.AuthCache;
+import org.apache.http.impl.client.BasicAuthCache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * JVM-wide cache of HTTP authentication state, so that creating a lot of short-lived clients for the same server
+ * doesn't pay for repeated authentication handshakes. Only used if pre-emptive authentication is enabled.
+ * The Digest realm of each management endpoint is cached, so that it's only discovered once, and the Digest challenge
+ * (including the nonce) is cached as well and reused by all clients of the same user.
+ *
+ * <p>If the cached nonce becomes stale (e.g. the server was restarted), the server simply sends a new challenge,
+ * which is handled the same way as if there was no cached state. If the cached realm becomes stale (the server
+ * responds {@code 401} even after the challenge), the client forgets it and discovers it again.</p>
+ */
+final class HttpAuthenticationCache {
+    private static final ConcurrentMap<String, String> REALMS = new ConcurrentHashMap<String, String>();
+    private static final ConcurrentMap<String, AuthCache> AUTH_CACHES = new ConcurrentHashMap<String, AuthCache>();
+
+    /** @return the cached Digest realm of the management endpoint at {@code url} or {@code null} if not known */
+    static String realm(String url) {
+        return REALMS.get(url);
+    }
+
+    static void rememberRealm(String url, String realm) {
+        REALMS.put(url, realm);
+    }
+
+    static void forgetRealm(String url) {
+        REALMS.remove(url);
+    }
+
+    /** @return the shared {@code AuthCache} for given {@code username} at the management endpoint at {@code url} */
+    static AuthCache authCache(String url, String username) {
+        String key = username + "@" + url;
+        AuthCache authCache = AUTH_CACHES.get(key);
+        if (authCache == null) {
+            // BasicAuthCache is thread safe and hands out a copy of the cached auth scheme on each get
+            AuthCache newAuthCache = new BasicAuthCache();
+            authCache = AUTH_CACHES.putIfAbsent(key, newAuthCache);
+            if (authCache == null) {
+                authCache = newAuthCache;
+            }
+        }
+        return authCache;
+    }
+
+    // for tests
+    static void clear() {
+        REALMS.clear();
+        AUTH_CACHES.clear();
+    }
+
+    private HttpAuthenticationCache() {} // avoid instantiation
+}
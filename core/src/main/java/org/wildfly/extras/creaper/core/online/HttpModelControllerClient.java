@@ -1,26 +1,40 @@
 package org.wildfly.extras.creaper.core.online;
 
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.http.Header;
 import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.MalformedChallengeException;
 import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.AuthCache;
 import org.apache.http.client.config.AuthSchemes;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.auth.DigestScheme;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.EntityUtils;
 import org.jboss.as.controller.client.ModelControllerClient;
 import org.jboss.as.controller.client.Operation;
@@ -28,14 +42,23 @@ import org.jboss.as.controller.client.OperationMessageHandler;
 import org.jboss.as.controller.client.OperationResponse;
 import org.jboss.dmr.ModelNode;
 import org.jboss.threads.AsyncFuture;
+import org.jboss.threads.AsyncFutureTask;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Controller provides execution of {@link ModelNode} or {@link Operation} over HTTP.
- * Asynchronous execution is not provided. Controller does not inform about any progress, therefore, there is no point
- * in using {@link OperationMessageHandler}.
+ * Asynchronous execution is provided by a pool of threads that perform the HTTP requests; at most
+ * {@code maxInFlightRequests} requests are performed concurrently and the rest is queued. Controller does not inform
+ * about any progress, therefore, there is no point in using {@link OperationMessageHandler}.
+ * Requests and responses are streamed, either as JSON or (if {@code dmrEncoding} is used) in the binary DMR format.
  * If an error occurs (server does not respond 401 or header does not contain WWW-Authenticate field after
  * first request) {@code IllegalStateException is thrown} (if username and password is provided)
  * Execution on {@link Operation} is allowed with <b>no attachments</b>.
@@ -44,12 +67,24 @@ final class HttpModelControllerClient implements ModelControllerClient {
     private static final int NO_TIMEOUT = 0;
 
     private final String url;
+    private final String host;
+    private final int port;
+    private final HttpHost httpHost;
     private final RequestConfig requestConfig;
     private final Registry<ConnectionSocketFactory> registry;
     private final CloseableHttpClient client;
+    private final ThreadPoolExecutor asyncExecutor;
+    private final boolean dmrEncoding;
+    private final AuthCache authCache; // != null <=> pre-emptive auth is enabled
+    private final BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+    private final UsernamePasswordCredentials credentials; // null if no auth
 
     HttpModelControllerClient(String host, int port, String username, String password, int timeoutMillis,
-                              SslOptions ssl) throws IOException {
+                              SslOptions ssl, HttpOptions http) throws IOException {
+        this.host = host;
+        this.port = port;
+        this.dmrEncoding = http.dmrEncoding;
+
         // timeout configuration
         RequestConfig.Builder requestConfigBuilder = RequestConfig.custom();
         if (timeoutMillis != NO_TIMEOUT) {
@@ -62,6 +97,7 @@ final class HttpModelControllerClient implements ModelControllerClient {
         RegistryBuilder<ConnectionSocketFactory> registryBuilder = RegistryBuilder.<ConnectionSocketFactory>create();
         if (ssl != null) {
             url = "https://" + host + ":" + port + "/management";
+            httpHost = new HttpHost(host, port, "https");
             SSLConnectionSocketFactory sslConnectionSocketFactory;
             if (ssl.hostnameVerification) {
                 sslConnectionSocketFactory = new SSLConnectionSocketFactory(ssl.createSslContext());
@@ -72,27 +108,60 @@ final class HttpModelControllerClient implements ModelControllerClient {
             registryBuilder.register("https", sslConnectionSocketFactory);
         } else {
             url = "http://" + host + ":" + port + "/management";
+            httpHost = new HttpHost(host, port, "http");
             registryBuilder.register("http", PlainConnectionSocketFactory.getSocketFactory());
         }
         registry = registryBuilder.build();
 
-        BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
         if (username != null && password != null) {
-            credentialsProvider.setCredentials(
-                    new AuthScope(host, port, getManagementRealm(url), AuthSchemes.DIGEST),
-                    new UsernamePasswordCredentials(username, password));
+            authCache = http.preemptiveAuth ? HttpAuthenticationCache.authCache(url, username) : null;
+            credentials = new UsernamePasswordCredentials(username, password);
+            setCredentials(getManagementRealm());
+        } else {
+            authCache = null;
+            credentials = null;
         }
-        client = HttpClients.custom()
-                .setConnectionManager(new PoolingHttpClientConnectionManager(registry))
+
+        // there's only one route, so all the connections can be used for it
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(registry);
+        connectionManager.setMaxTotal(http.maxInFlightRequests);
+        connectionManager.setDefaultMaxPerRoute(http.maxInFlightRequests);
+
+        HttpClientBuilder clientBuilder = HttpClients.custom()
+                .setConnectionManager(connectionManager)
                 .setDefaultCredentialsProvider(credentialsProvider)
-                .setDefaultRequestConfig(requestConfig)
-                .build();
+                .setDefaultRequestConfig(requestConfig);
+        if (http.keepAliveMillis > 0) {
+            clientBuilder.setKeepAliveStrategy(new MaxKeepAliveStrategy(http.keepAliveMillis));
+        }
+        if (http.idleConnectionTimeoutMillis > 0) {
+            clientBuilder.evictIdleConnections((long) http.idleConnectionTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        client = clientBuilder.build();
+
+        // threads are only created when asynchronous execution is actually used and die when idle
+        asyncExecutor = new ThreadPoolExecutor(http.maxInFlightRequests, http.maxInFlightRequests, 60,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("creaper-http-%d").build());
+        asyncExecutor.allowCoreThreadTimeOut(true);
     }
 
     @Override
     public ModelNode execute(ModelNode modelNode) throws IOException {
+        return execute(buildRequest(modelNode));
+    }
+
+    private ModelNode execute(HttpPost request) throws IOException {
         ModelNode result;
-        CloseableHttpResponse response = client.execute(buildRequest(modelNode));
+        CloseableHttpResponse response = send(request);
+        if (authCache != null && response.getStatusLine().getStatusCode() == HttpStatus.SC_UNAUTHORIZED) {
+            // the realm was possibly taken from the JVM-wide cache and is no longer valid (the server's security
+            // configuration has changed), so discover it again and retry; if the retry fails too, it's reported
+            EntityUtils.consume(response.getEntity());
+            response.close();
+            rediscoverManagementRealm();
+            response = send(request);
+        }
         try {
             result = parseResponse(response);
         } finally {
@@ -101,11 +170,18 @@ final class HttpModelControllerClient implements ModelControllerClient {
         return result;
     }
 
+    private CloseableHttpResponse send(HttpPost request) throws IOException {
+        if (authCache != null) {
+            HttpClientContext context = HttpClientContext.create();
+            context.setAuthCache(authCache);
+            return client.execute(request, context);
+        }
+        return client.execute(request);
+    }
+
     @Override
     public ModelNode execute(Operation operation) throws IOException {
-        if (!operation.getInputStreams().isEmpty()) {
-            throw new IllegalStateException("Operation has one or more attachments which is not allowed.");
-        }
+        checkNoAttachments(operation);
         return execute(operation.getOperation());
     }
 
@@ -124,55 +200,116 @@ final class HttpModelControllerClient implements ModelControllerClient {
         return OperationResponse.Factory.createSimple(execute(operation));
     }
 
-    /**
-     * <b>Not supported!</b>
-     */
     @Override
     public AsyncFuture<ModelNode> executeAsync(ModelNode modelNode, OperationMessageHandler handler) {
-        throw new UnsupportedOperationException("Asynchronous execution is not supported by " + getClass().getName());
+        HttpAsyncTask<ModelNode> task = new HttpAsyncTask<ModelNode>(modelNode) {
+            @Override
+            ModelNode convert(ModelNode result) {
+                return result;
+            }
+        };
+        submit(task);
+        return task;
     }
 
-    /**
-     * <b>Not supported!</b>
-     */
     @Override
     public AsyncFuture<ModelNode> executeAsync(Operation operation, OperationMessageHandler handler) {
-        throw new UnsupportedOperationException("Asynchronous execution is not supported by " + getClass().getName());
+        checkNoAttachments(operation);
+        return executeAsync(operation.getOperation(), handler);
     }
 
-    /**
-     * <b>Not supported!</b>
-     */
     @Override
     public AsyncFuture<OperationResponse> executeOperationAsync(Operation operation, OperationMessageHandler handler) {
-        throw new UnsupportedOperationException("Asynchronous execution is not supported by " + getClass().getName());
+        checkNoAttachments(operation);
+        HttpAsyncTask<OperationResponse> task = new HttpAsyncTask<OperationResponse>(operation.getOperation()) {
+            @Override
+            OperationResponse convert(ModelNode result) {
+                return OperationResponse.Factory.createSimple(result);
+            }
+        };
+        submit(task);
+        return task;
+    }
+
+    private void submit(HttpAsyncTask<?> task) {
+        try {
+            asyncExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.fail(new IOException("Client was already closed"));
+        }
     }
 
     @Override
     public void close() throws IOException {
+        List<Runnable> notStarted = asyncExecutor.shutdownNow();
+        for (Runnable task : notStarted) {
+            ((HttpAsyncTask<?>) task).asyncCancel(false);
+        }
         client.close();
     }
 
+    private static void checkNoAttachments(Operation operation) {
+        if (!operation.getInputStreams().isEmpty()) {
+            throw new IllegalStateException("Operation has one or more attachments which is not allowed.");
+        }
+    }
+
+    /** The {@code ModelNode} is parsed directly from the response stream, without reading it into a string. */
     private ModelNode parseResponse(CloseableHttpResponse response) throws IOException {
-        ModelNode result;
-        String content = EntityUtils.toString(response.getEntity());
+        HttpEntity entity = response.getEntity();
         int status = response.getStatusLine().getStatusCode();
-        if (status == HttpStatus.SC_OK || status == HttpStatus.SC_INTERNAL_SERVER_ERROR) {
-            result = ModelNode.fromJSONString(content);
-        } else {
+        if (status != HttpStatus.SC_OK && status != HttpStatus.SC_INTERNAL_SERVER_ERROR) {
+            String content = EntityUtils.toString(entity);
             throw new RuntimeException(String.format("Server responded %s%nMessage:%n%s", status, content));
         }
+
+        ModelNode result;
+        InputStream content = entity.getContent();
+        try {
+            ContentType contentType = ContentType.get(entity);
+            if (contentType != null && ModelNodeHttpEntity.DMR_ENCODED.equals(contentType.getMimeType())) {
+                result = ModelNode.fromBase64(content);
+            } else {
+                result = ModelNode.fromJSONStream(content);
+            }
+        } finally {
+            // read the rest of the response, so that the connection can be reused
+            EntityUtils.consume(entity);
+        }
         return result;
     }
 
-    private HttpPost buildRequest(ModelNode model) throws UnsupportedEncodingException {
+    private HttpPost buildRequest(ModelNode model) {
         HttpPost request = new HttpPost(url);
-        request.addHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.getMimeType());
-        request.setEntity(new StringEntity(model.toJSONString(true)));
+        request.setEntity(new ModelNodeHttpEntity(model, dmrEncoding));
         return request;
     }
 
-    private String getManagementRealm(String url) throws IOException {
+    private void setCredentials(String realm) {
+        credentialsProvider.clear();
+        credentialsProvider.setCredentials(new AuthScope(host, port, realm, AuthSchemes.DIGEST), credentials);
+    }
+
+    /** Forgets the cached authentication state and sets the credentials for a freshly discovered realm. */
+    private synchronized void rediscoverManagementRealm() throws IOException {
+        HttpAuthenticationCache.forgetRealm(url);
+        authCache.clear();
+        setCredentials(getManagementRealm());
+    }
+
+    /**
+     * If pre-emptive authentication is enabled, the realm is only discovered once for each management endpoint
+     * in the JVM, see {@link HttpAuthenticationCache}, and the Digest challenge obtained here is cached too, so that
+     * even the first request of this client can be authenticated pre-emptively.
+     */
+    private String getManagementRealm() throws IOException {
+        if (authCache != null) {
+            String cachedRealm = HttpAuthenticationCache.realm(url);
+            if (cachedRealm != null) {
+                return cachedRealm;
+            }
+        }
+
         // we need client without credentials
         CloseableHttpClient defaultHttpClient = HttpClients.custom()
                 .setConnectionManager(new PoolingHttpClientConnectionManager(registry))
@@ -207,11 +344,103 @@ final class HttpModelControllerClient implements ModelControllerClient {
         if (!response.containsHeader(HttpHeaders.WWW_AUTHENTICATE)) {
             throw new IllegalStateException("Failed to obtain management realm name. Missing WWW-Authenticate header in server response.");
         }
-        for (HeaderElement el : response.getHeaders(HttpHeaders.WWW_AUTHENTICATE)[0].getElements()) {
+        Header challenge = response.getHeaders(HttpHeaders.WWW_AUTHENTICATE)[0];
+        for (HeaderElement el : challenge.getElements()) {
             if (el.getName().equals("Digest realm")) {
-                return el.getValue();
+                String realm = el.getValue();
+                if (authCache != null) {
+                    HttpAuthenticationCache.rememberRealm(url, realm);
+                    cacheDigestChallenge(challenge);
+                }
+                return realm;
             }
         }
         throw new IllegalStateException("Failed to obtain management realm name. Digest realm not found in WWW-Authenticate header.");
     }
+
+    private void cacheDigestChallenge(Header challenge) {
+        try {
+            DigestScheme digestScheme = new DigestScheme();
+            digestScheme.processChallenge(challenge);
+            authCache.put(httpHost, digestScheme);
+        } catch (MalformedChallengeException ignored) {
+            // pre-emptive authentication is just an optimization, the server will send a challenge again
+        }
+    }
+
+    /** Limits how long are idle connections kept alive, even if the server would allow keeping them longer. */
+    private static final class MaxKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+        private final long maxKeepAliveMillis;
+
+        MaxKeepAliveStrategy(long maxKeepAliveMillis) {
+            this.maxKeepAliveMillis = maxKeepAliveMillis;
+        }
+
+        @Override
+        public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+            long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            if (serverKeepAlive <= 0 || serverKeepAlive > maxKeepAliveMillis) {
+                return maxKeepAliveMillis;
+            }
+            return serverKeepAlive;
+        }
+    }
+
+    /**
+     * A single asynchronously executed request. If cancelled before the request starts, it will never start;
+     * if cancelled with interruption while the request is in progress, the HTTP request is aborted.
+     */
+    private abstract class HttpAsyncTask<T> extends AsyncFutureTask<T> implements Runnable {
+        private final ModelNode modelNode;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private volatile boolean cancelRequested;
+        private volatile HttpPost request;
+
+        HttpAsyncTask(ModelNode modelNode) {
+            super(MoreExecutors.directExecutor()); // listeners are notified in the thread that completed the task
+            this.modelNode = modelNode;
+        }
+
+        abstract T convert(ModelNode result);
+
+        @Override
+        public final void run() {
+            if (!started.compareAndSet(false, true)) {
+                return; // cancelled before it was started
+            }
+
+            try {
+                request = buildRequest(modelNode);
+                if (cancelRequested) {
+                    setCancelled();
+                    return;
+                }
+                setResult(convert(execute(request)));
+            } catch (Throwable e) {
+                if (cancelRequested) {
+                    setCancelled();
+                } else {
+                    setFailed(e);
+                }
+            }
+        }
+
+        @Override
+        public final void asyncCancel(boolean interruptionDesired) {
+            cancelRequested = true;
+            if (started.compareAndSet(false, true)) {
+                setCancelled();
+            } else if (interruptionDesired) {
+                HttpPost currentRequest = request;
+                if (currentRequest != null) {
+                    currentRequest.abort();
+                }
+            }
+        }
+
+        // setFailed is protected in AsyncFutureTask, this makes it accessible to the enclosing class
+        final void fail(Throwable cause) {
+            setFailed(cause);
+        }
+    }
 }
@@ -0,0 +1,26 @@
+package org.wildfly.extras.creaper.core.online;
+
+/**
+ * Settings of the {@link ManagementProtocol#HTTP HTTP} transport, see {@link HttpModelControllerClient}.
+ * Values are documented in {@link OnlineOptions.OptionalOnlineOptions}.
+ */
+final class HttpOptions {
+    static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 16;
+
+    static final HttpOptions DEFAULT = new HttpOptions(DEFAULT_MAX_IN_FLIGHT_REQUESTS, false, 0, 0, false);
+
+    final int maxInFlightRequests; // also the size of the connection pool
+    final boolean dmrEncoding;
+    final int keepAliveMillis; // <= 0 means "as long as the server allows"
+    final int idleConnectionTimeoutMillis; // <= 0 means "idle connections are not evicted"
+    final boolean preemptiveAuth;
+
+    HttpOptions(int maxInFlightRequests, boolean dmrEncoding, int keepAliveMillis, int idleConnectionTimeoutMillis,
+                boolean preemptiveAuth) {
+        this.maxInFlightRequests = maxInFlightRequests;
+        this.dmrEncoding = dmrEncoding;
+        this.keepAliveMillis = keepAliveMillis;
+        this.idleConnectionTimeoutMillis = idleConnectionTimeoutMillis;
+        this.preemptiveAuth = preemptiveAuth;
+    }
+}
@@ -0,0 +1,505 @@
+package org.wildfly.extras.creaper.core.online;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.as.controller.client.Operation;
+import org.jboss.as.controller.client.OperationMessageHandler;
+import org.jboss.as.controller.client.OperationResponse;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.Property;
+import org.jboss.threads.AsyncFuture;
+import org.jboss.threads.AsyncFutureTask;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <p>A {@link ModelControllerClient} that doesn't talk to any server. Instead, it keeps a tree of resources
+ * in memory and performs the basic management operations on it: {@code add}, {@code remove},
+ * {@code write-attribute}, {@code undefine-attribute}, {@code read-attribute}, {@code read-resource},
+ * {@code read-children-names}, {@code read-children-types}, {@code read-children-resources}, {@code whoami}
+ * and {@code composite}. Composite operations are atomic; if a step fails, changes done by previous steps
+ * are rolled back. Other operations fail with the same error code as an unknown operation would on a real server.
+ * There is no resource or attribute validation; any resource can be added if its parent exists and any attribute
+ * can be written.</p>
+ *
+ * <p>The purpose of this client is measuring the overhead of Creaper itself and load-testing code that performs
+ * many management operations, e.g. long sequences of commands or many concurrent clients, without a running server.
+ * It's not a replacement of a real server for functional testing. Each operation can take a configurable amount
+ * of time, which simulates network round trip and server-side processing (see {@link #withLatency(long, TimeUnit)}).
+ * </p>
+ *
+ * <p>An {@code OnlineManagementClient} can be created on top of this client using
+ * {@link OnlineOptions.ConnectionOnlineOptions#wrap(ModelControllerClient) wrap}. The client is thread-safe and
+ * {@link #close() closing} it does nothing, so a single instance (representing a single server) can be wrapped
+ * by many {@code OnlineManagementClient}s. Reload and restart are not supported.</p>
+ */
+public final class InMemoryModelControllerClient implements ModelControllerClient {
+    private static final int MANAGEMENT_MAJOR_VERSION = 4;
+    private static final int MANAGEMENT_MINOR_VERSION = 1;
+    private static final int MANAGEMENT_MICRO_VERSION = 0;
+
+    private static final String ROLLED_BACK = "rolled-back";
+    private static final String CANCELLED = "cancelled";
+
+    private final Model model;
+    private final long latencyNanos;
+
+    private InMemoryModelControllerClient(Model model, long latencyNanos) {
+        this.model = model;
+        this.latencyNanos = latencyNanos;
+    }
+
+    /** A client that pretends to be connected to a standalone server with no subsystems. */
+    public static InMemoryModelControllerClient standalone() {
+        return new InMemoryModelControllerClient(new Model("STANDALONE", Constants.SUBSYSTEM, Constants.EXTENSION,
+                Constants.INTERFACE, Constants.SOCKET_BINDING_GROUP, Constants.DEPLOYMENT), 0);
+    }
+
+    /**
+     * A client that pretends to be connected to a domain controller with no profiles, hosts and server groups.
+     * Note that the {@code OnlineManagementClient} adjusts operations for domain (see
+     * {@link OnlineOptions.DomainOnlineOptions#forProfile(String) forProfile} and
+     * {@link OnlineOptions.DomainOnlineOptions#forHost(String) forHost}), so the default profile and host must be
+     * added before they can be used.
+     */
+    public static InMemoryModelControllerClient domain() {
+        return new InMemoryModelControllerClient(new Model("DOMAIN", Constants.PROFILE, Constants.HOST,
+                Constants.SERVER_GROUP, Constants.EXTENSION, Constants.INTERFACE, Constants.SOCKET_BINDING_GROUP,
+                Constants.DEPLOYMENT), 0);
+    }
+
+    /**
+     * Returns a client that works with the same resource tree (i.e., represents the same server), but each
+     * operation it performs takes at least the given amount of time. The latency is spent outside of any lock,
+     * so operations performed concurrently don't wait for each other.
+     */
+    public InMemoryModelControllerClient withLatency(long latency, TimeUnit unit) {
+        if (latency < 0) {
+            throw new IllegalArgumentException("Latency must not be negative");
+        }
+        return new InMemoryModelControllerClient(model, unit.toNanos(latency));
+    }
+
+    /** Number of operations performed on the resource tree so far; a composite operation counts as one. */
+    public long operationCount() {
+        return model.operationCount.get();
+    }
+
+    @Override
+    public ModelNode execute(ModelNode operation) throws IOException {
+        if (latencyNanos > 0) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+        return model.execute(operation);
+    }
+
+    @Override
+    public ModelNode execute(Operation operation) throws IOException {
+        return execute(operation.getOperation());
+    }
+
+    @Override
+    public ModelNode execute(ModelNode operation, OperationMessageHandler messageHandler) throws IOException {
+        return execute(operation);
+    }
+
+    @Override
+    public ModelNode execute(Operation operation, OperationMessageHandler messageHandler) throws IOException {
+        return execute(operation.getOperation());
+    }
+
+    @Override
+    public OperationResponse executeOperation(Operation operation, OperationMessageHandler messageHandler)
+            throws IOException {
+        return OperationResponse.Factory.createSimple(execute(operation.getOperation()));
+    }
+
+    @Override
+    public AsyncFuture<ModelNode> executeAsync(ModelNode operation, OperationMessageHandler messageHandler) {
+        AsyncTask<ModelNode> task = new AsyncTask<ModelNode>(operation) {
+            @Override
+            ModelNode convert(ModelNode result) {
+                return result;
+            }
+        };
+        model.asyncExecutor.execute(task);
+        return task;
+    }
+
+    @Override
+    public AsyncFuture<ModelNode> executeAsync(Operation operation, OperationMessageHandler messageHandler) {
+        return executeAsync(operation.getOperation(), messageHandler);
+    }
+
+    @Override
+    public AsyncFuture<OperationResponse> executeOperationAsync(Operation operation,
+                                                                OperationMessageHandler messageHandler) {
+        AsyncTask<OperationResponse> task = new AsyncTask<OperationResponse>(operation.getOperation()) {
+            @Override
+            OperationResponse convert(ModelNode result) {
+                return OperationResponse.Factory.createSimple(result);
+            }
+        };
+        model.asyncExecutor.execute(task);
+        return task;
+    }
+
+    @Override
+    public void close() {
+        // nothing to close, other clients might be using the same resource tree
+    }
+
+    private abstract class AsyncTask<T> extends AsyncFutureTask<T> implements Runnable {
+        private final ModelNode operation;
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        AsyncTask(ModelNode operation) {
+            super(MoreExecutors.directExecutor()); // listeners are notified in the thread that completed the task
+            this.operation = operation;
+        }
+
+        abstract T convert(ModelNode result);
+
+        @Override
+        public final void run() {
+            if (!started.compareAndSet(false, true)) {
+                return; // cancelled before it was started
+            }
+
+            try {
+                setResult(convert(execute(operation)));
+            } catch (Throwable e) {
+                setFailed(e);
+            }
+        }
+
+        @Override
+        public final void asyncCancel(boolean interruptionDesired) {
+            if (started.compareAndSet(false, true)) {
+                setCancelled();
+            }
+        }
+    }
+
+    /** The resource tree, shared by all clients created by {@link #withLatency(long, TimeUnit)}. */
+    private static final class Model {
+        private final Resource root = new Resource();
+        /** Read operations hold the read lock, modifying operations hold the write lock. */
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final AtomicLong operationCount = new AtomicLong();
+        private final ExecutorService asyncExecutor = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                .setNameFormat("creaper-in-memory-client-%d")
+                .setDaemon(true)
+                .build());
+
+        Model(String launchType, String... rootChildTypes) {
+            root.attributes.put("launch-type", new ModelNode(launchType));
+            root.attributes.put("management-major-version", new ModelNode(MANAGEMENT_MAJOR_VERSION));
+            root.attributes.put("management-minor-version", new ModelNode(MANAGEMENT_MINOR_VERSION));
+            root.attributes.put("management-micro-version", new ModelNode(MANAGEMENT_MICRO_VERSION));
+            for (String type : rootChildTypes) {
+                root.children.put(type, new LinkedHashMap<String, Resource>());
+            }
+        }
+
+        ModelNode execute(ModelNode operation) {
+            operationCount.incrementAndGet();
+
+            Lock currentLock = ReadCache.isModifying(operation) ? lock.writeLock() : lock.readLock();
+            currentLock.lock();
+            try {
+                return respond(operation);
+            } finally {
+                currentLock.unlock();
+            }
+        }
+
+        private ModelNode respond(ModelNode operation) {
+            List<Runnable> undo = new ArrayList<Runnable>();
+            ModelNode response = new ModelNode();
+            try {
+                ModelNode result = perform(operation, undo);
+                response.get(Constants.OUTCOME).set(Constants.SUCCESS);
+                if (result.isDefined()) {
+                    response.get(Constants.RESULT).set(result);
+                }
+            } catch (OperationFailure e) {
+                for (int i = undo.size() - 1; i >= 0; i--) {
+                    undo.get(i).run();
+                }
+
+                response.get(Constants.OUTCOME).set(Constants.FAILED);
+                if (e.stepResults != null) {
+                    response.get(Constants.RESULT).set(e.stepResults);
+                }
+                response.get(Constants.FAILURE_DESCRIPTION).set(e.description);
+                response.get(ROLLED_BACK).set(true);
+            }
+            return response;
+        }
+
+        /** Returns the result of the operation (can be undefined) and records how to revert its changes. */
+        private ModelNode perform(ModelNode operation, List<Runnable> undo) throws OperationFailure {
+            String name = operation.hasDefined(Constants.OP) ? operation.get(Constants.OP).asString() : "";
+            List<Property> address = operation.hasDefined(Constants.OP_ADDR)
+                    ? operation.get(Constants.OP_ADDR).asPropertyList()
+                    : Collections.<Property>emptyList();
+
+            if (Constants.COMPOSITE.equals(name)) {
+                return composite(operation, undo);
+            } else if (Constants.ADD.equals(name)) {
+                add(address, operation, undo);
+                return new ModelNode();
+            } else if (Constants.REMOVE_OPERATION.equals(name)) {
+                remove(address, undo);
+                return new ModelNode();
+            } else if (Constants.WRITE_ATTRIBUTE_OPERATION.equals(name)) {
+                ModelNode value = operation.has(Constants.VALUE) ? operation.get(Constants.VALUE) : new ModelNode();
+                writeAttribute(resolve(address), requiredParameter(operation, Constants.NAME), value, undo);
+                return new ModelNode();
+            } else if (Constants.UNDEFINE_ATTRIBUTE_OPERATION.equals(name)) {
+                writeAttribute(resolve(address), requiredParameter(operation, Constants.NAME), new ModelNode(), undo);
+                return new ModelNode();
+            } else if (Constants.READ_ATTRIBUTE_OPERATION.equals(name)) {
+                ModelNode value = resolve(address).attributes.get(requiredParameter(operation, Constants.NAME));
+                return value != null ? value.clone() : new ModelNode();
+            } else if (Constants.READ_RESOURCE_OPERATION.equals(name)) {
+                return readResource(resolve(address), isRecursive(operation));
+            } else if (Constants.READ_CHILDREN_NAMES_OPERATION.equals(name)) {
+                ModelNode result = new ModelNode().setEmptyList();
+                for (String childName : children(resolve(address), operation).keySet()) {
+                    result.add(childName);
+                }
+                return result;
+            } else if (Constants.READ_CHILDREN_RESOURCES.equals(name)) {
+                ModelNode result = new ModelNode().setEmptyObject();
+                boolean recursive = isRecursive(operation);
+                for (Map.Entry<String, Resource> child : children(resolve(address), operation).entrySet()) {
+                    result.get(child.getKey()).set(readResource(child.getValue(), recursive));
+                }
+                return result;
+            } else if (Constants.READ_CHILDREN_TYPES.equals(name)) {
+                ModelNode result = new ModelNode().setEmptyList();
+                for (String type : resolve(address).children.keySet()) {
+                    result.add(type);
+                }
+                return result;
+            } else if (Constants.WHOAMI.equals(name)) {
+                ModelNode result = new ModelNode();
+                result.get("identity", "username").set("$local");
+                return result;
+            }
+
+            throw new OperationFailure("WFLYCTL0031: No operation named '" + name + "' exists at address "
+                    + addressToString(address));
+        }
+
+        private ModelNode composite(ModelNode operation, List<Runnable> undo) throws OperationFailure {
+            List<ModelNode> steps = operation.hasDefined(Constants.STEPS)
+                    ? operation.get(Constants.STEPS).asList()
+                    : Collections.<ModelNode>emptyList();
+
+            ModelNode stepResults = new ModelNode().setEmptyObject();
+            for (int i = 0; i < steps.size(); i++) {
+                String stepName = "step-" + (i + 1);
+                try {
+                    ModelNode result = perform(steps.get(i), undo);
+                    ModelNode stepResult = stepResults.get(stepName);
+                    stepResult.get(Constants.OUTCOME).set(Constants.SUCCESS);
+                    if (result.isDefined()) {
+                        stepResult.get(Constants.RESULT).set(result);
+                    }
+                } catch (OperationFailure e) {
+                    // steps performed so far are rolled back, steps that weren't performed are cancelled
+                    for (Property performed : stepResults.asPropertyList()) {
+                        stepResults.get(performed.getName(), Constants.OUTCOME).set(Constants.FAILED);
+                        stepResults.get(performed.getName(), ROLLED_BACK).set(true);
+                    }
+                    ModelNode failedStep = stepResults.get(stepName);
+                    failedStep.get(Constants.OUTCOME).set(Constants.FAILED);
+                    failedStep.get(Constants.FAILURE_DESCRIPTION).set(e.description);
+                    failedStep.get(ROLLED_BACK).set(true);
+                    for (int j = i + 2; j <= steps.size(); j++) {
+                        stepResults.get("step-" + j, Constants.OUTCOME).set(CANCELLED);
+                    }
+
+                    ModelNode description = new ModelNode();
+                    description.get("WFLYCTL0062: Composite operation failed and was rolled back. Steps that failed:",
+                            "Operation " + stepName).set(e.description);
+                    throw new OperationFailure(description, stepResults);
+                }
+            }
+            return stepResults;
+        }
+
+        private void add(List<Property> address, ModelNode operation, List<Runnable> undo) throws OperationFailure {
+            if (address.isEmpty()) {
+                throw new OperationFailure("WFLYCTL0212: Duplicate resource " + addressToString(address));
+            }
+
+            Resource parent = resolve(address.subList(0, address.size() - 1));
+            Property last = address.get(address.size() - 1);
+            final String type = last.getName();
+            final String name = last.getValue().asString();
+
+            Map<String, Resource> siblings = parent.children.get(type);
+            if (siblings == null) {
+                siblings = new LinkedHashMap<String, Resource>();
+                parent.children.put(type, siblings);
+            }
+            if (siblings.containsKey(name)) {
+                throw new OperationFailure("WFLYCTL0212: Duplicate resource " + addressToString(address));
+            }
+
+            Resource resource = new Resource();
+            for (Property parameter : operation.asPropertyList()) {
+                String parameterName = parameter.getName();
+                if (parameter.getValue().isDefined() && !Constants.OP.equals(parameterName)
+                        && !Constants.OP_ADDR.equals(parameterName)
+                        && !Constants.OPERATION_HEADERS.equals(parameterName)) {
+                    resource.attributes.put(parameterName, parameter.getValue().clone());
+                }
+            }
+
+            final Map<String, Resource> finalSiblings = siblings;
+            finalSiblings.put(name, resource);
+            undo.add(new Runnable() {
+                @Override
+                public void run() {
+                    finalSiblings.remove(name);
+                }
+            });
+        }
+
+        private void remove(List<Property> address, List<Runnable> undo) throws OperationFailure {
+            final Resource resource = resolve(address);
+            if (address.isEmpty()) {
+                throw new OperationFailure("WFLYCTL0031: No operation named '" + Constants.REMOVE_OPERATION
+                        + "' exists at address " + addressToString(address));
+            }
+
+            Resource parent = resolve(address.subList(0, address.size() - 1));
+            Property last = address.get(address.size() - 1);
+            final Map<String, Resource> siblings = parent.children.get(last.getName());
+            final String name = last.getValue().asString();
+
+            siblings.remove(name);
+            undo.add(new Runnable() {
+                @Override
+                public void run() {
+                    siblings.put(name, resource);
+                }
+            });
+        }
+
+        private static void writeAttribute(Resource resource, final String name, ModelNode value,
+                                           List<Runnable> undo) {
+            final Map<String, ModelNode> attributes = resource.attributes;
+            final ModelNode oldValue = value.isDefined()
+                    ? attributes.put(name, value.clone())
+                    : attributes.remove(name);
+            undo.add(new Runnable() {
+                @Override
+                public void run() {
+                    if (oldValue != null) {
+                        attributes.put(name, oldValue);
+                    } else {
+                        attributes.remove(name);
+                    }
+                }
+            });
+        }
+
+        private static ModelNode readResource(Resource resource, boolean recursive) {
+            ModelNode result = new ModelNode().setEmptyObject();
+            for (Map.Entry<String, ModelNode> attribute : resource.attributes.entrySet()) {
+                result.get(attribute.getKey()).set(attribute.getValue());
+            }
+            for (Map.Entry<String, Map<String, Resource>> type : resource.children.entrySet()) {
+                ModelNode children = result.get(type.getKey());
+                for (Map.Entry<String, Resource> child : type.getValue().entrySet()) {
+                    if (recursive) {
+                        children.get(child.getKey()).set(readResource(child.getValue(), true));
+                    } else {
+                        children.get(child.getKey());
+                    }
+                }
+            }
+            return result;
+        }
+
+        private Resource resolve(List<Property> address) throws OperationFailure {
+            Resource current = root;
+            for (Property segment : address) {
+                Map<String, Resource> children = current.children.get(segment.getName());
+                current = children != null ? children.get(segment.getValue().asString()) : null;
+                if (current == null) {
+                    throw new OperationFailure("WFLYCTL0216: Management resource '" + addressToString(address)
+                            + "' not found");
+                }
+            }
+            return current;
+        }
+
+        private static Map<String, Resource> children(Resource resource, ModelNode operation)
+                throws OperationFailure {
+            Map<String, Resource> children = resource.children.get(requiredParameter(operation, Constants.CHILD_TYPE));
+            return children != null ? children : Collections.<String, Resource>emptyMap();
+        }
+
+        private static String requiredParameter(ModelNode operation, String name) throws OperationFailure {
+            if (!operation.hasDefined(name)) {
+                throw new OperationFailure("WFLYCTL0155: '" + name + "' may not be null");
+            }
+            return operation.get(name).asString();
+        }
+
+        private static boolean isRecursive(ModelNode operation) {
+            return operation.hasDefined(Constants.RECURSIVE) && operation.get(Constants.RECURSIVE).asBoolean();
+        }
+
+        private static String addressToString(List<Property> address) {
+            ModelNode result = new ModelNode().setEmptyList();
+            for (Property segment : address) {
+                result.add(segment.getName(), segment.getValue());
+            }
+            return result.asString();
+        }
+    }
+
+    private static final class Resource {
+        private final Map<String, ModelNode> attributes = new LinkedHashMap<String, ModelNode>();
+        private final Map<String, Map<String, Resource>> children = new LinkedHashMap<String, Map<String, Resource>>();
+    }
+
+    /** Failure of an operation, rolls back the whole operation. */
+    private static final class OperationFailure extends Exception {
+        private final ModelNode description;
+        private final ModelNode stepResults; // != null <=> failure of a composite operation
+
+        OperationFailure(String description) {
+            this(new ModelNode(description), null);
+        }
+
+        OperationFailure(ModelNode description, ModelNode stepResults) {
+            super(description.asString());
+            this.description = description;
+            this.stepResults = stepResults;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.wildfly.extras.creaper.core.online;
 
+import com.google.common.cache.CacheStats;
 import org.jboss.as.controller.client.Operation;
 import org.jboss.dmr.ModelNode;
 import org.wildfly.extras.creaper.core.CommandFailedException;
@@ -7,6 +8,7 @@ import org.wildfly.extras.creaper.core.ManagementClient;
 import org.wildfly.extras.creaper.core.ServerVersion;
 
 import java.io.IOException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -16,15 +18,20 @@ import java.util.concurrent.TimeoutException;
 final class LazyOnlineManagementClient implements OnlineManagementClient {
     private final OnlineOptions options;
 
-    private OnlineManagementClient delegate;
+    private volatile OnlineManagementClient delegate;
 
     LazyOnlineManagementClient(OnlineOptions options) {
         this.options = options;
     }
 
+    // double-checked, so that at most one underlying client is created even if this client is shared between threads
     private void ensureInitialized() throws IOException {
         if (delegate == null) {
-            delegate = ManagementClient.online(options);
+            synchronized (this) {
+                if (delegate == null) {
+                    delegate = ManagementClient.online(options);
+                }
+            }
         }
     }
 
@@ -79,12 +86,24 @@ final class LazyOnlineManagementClient implements OnlineManagementClient {
         return delegate.execute(operation);
     }
 
+    @Override
+    public Future<ModelNodeResult> executeAsync(ModelNode operation) throws IOException {
+        ensureInitialized();
+        return delegate.executeAsync(operation);
+    }
+
     @Override
     public void executeCli(String cliOperation) throws CliException, IOException {
         ensureInitialized();
         delegate.executeCli(cliOperation);
     }
 
+    @Override
+    public ModelNode parseCli(String operation) throws CliException, IOException {
+        ensureInitialized();
+        return delegate.parseCli(operation);
+    }
+
     @Override
     public void reconnect(int timeoutInSeconds) throws TimeoutException, InterruptedException {
         if (delegate != null) {
@@ -98,6 +117,11 @@ final class LazyOnlineManagementClient implements OnlineManagementClient {
         return delegate.allowFailures();
     }
 
+    @Override
+    public CacheStats readCacheStats() {
+        return delegate != null ? delegate.readCacheStats() : ReadCache.NO_STATS;
+    }
+
     @Override
     public void close() throws IOException {
         if (delegate != null) {
@@ -0,0 +1,27 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.logging.Logger;
+
+/** Logs each operation on the {@code DEBUG} level. Converts the operation to a string only if that's enabled. */
+final class LoggingOperationListener implements OperationListener {
+    static final LoggingOperationListener INSTANCE = new LoggingOperationListener();
+
+    private static final Logger log = Logger.getLogger(OnlineManagementClient.class);
+
+    private LoggingOperationListener() {
+        // avoid instantiation
+    }
+
+    @Override
+    public void beforeExecute(ModelNode operation) {
+        if (log.isDebugEnabled()) {
+            log.debugf("Executing operation %s", ModelNodeOperationToCliString.convert(operation));
+        }
+    }
+
+    @Override
+    public void afterExecute(ModelNode operation, ModelNodeResult result, Throwable failure, long durationInNanos) {
+        // nothing to do
+    }
+}
@@ -0,0 +1,69 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.jboss.dmr.ModelNode;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+/**
+ * An HTTP entity that writes a {@link ModelNode} directly to the output stream, without creating an intermediate
+ * {@code String}. Depending on {@code dmrEncoded}, the {@code ModelNode} is either written as compact JSON
+ * or in the Base64-encoded binary DMR format. The entity is repeatable, which is required for Digest authentication.
+ */
+final class ModelNodeHttpEntity extends AbstractHttpEntity {
+    static final String DMR_ENCODED = "application/dmr-encoded";
+
+    private final ModelNode modelNode;
+    private final boolean dmrEncoded;
+
+    ModelNodeHttpEntity(ModelNode modelNode, boolean dmrEncoded) {
+        this.modelNode = modelNode;
+        this.dmrEncoded = dmrEncoded;
+        setContentType(dmrEncoded ? DMR_ENCODED : ContentType.APPLICATION_JSON.toString());
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1; // unknown, chunked encoding is used
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        // only used by some request interceptors, the transport itself uses writeTo
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        writeTo(content);
+        return new ByteArrayInputStream(content.toByteArray());
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        if (dmrEncoded) {
+            modelNode.writeBase64(outputStream);
+            outputStream.flush();
+        } else {
+            PrintWriter writer = new PrintWriter(new OutputStreamWriter(outputStream, "UTF-8"));
+            modelNode.writeJSONString(writer, true);
+            writer.flush();
+            if (writer.checkError()) {
+                throw new IOException("Failed to write management request");
+            }
+        }
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+}
@@ -1,12 +1,14 @@
 package org.wildfly.extras.creaper.core.online;
 
 import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
 import org.jboss.dmr.Property;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 /**
  * <p>A convenience subclass of {@link ModelNode} that provides some methods that are common when dealing with
@@ -25,12 +27,17 @@ import java.util.List;
  * </ul>
  *
  * <p>Other than that, work with {@code ModelNodeResult} just like with a {@code ModelNode}.</p>
+ *
+ * <p>Results of single steps or servers ({@link #forBatchStep(int)}, {@link #forAllBatchSteps()},
+ * {@link #forServer(String, String)}) are copies, so modifying them doesn't affect the original result. Methods
+ * that only inspect the result (such as {@link #isSuccess()} or {@link #isReloadRequired()}) never modify it.</p>
  */
 public class ModelNodeResult extends ModelNode {
     /** @deprecated not supposed to be called directly, only for {@code Externalizable} */
     @Deprecated
     public ModelNodeResult() {}
 
+    /** Creates a {@code ModelNodeResult} that holds a deep copy of the {@code original}. */
     public ModelNodeResult(ModelNode original) {
         this.set(original);
     }
@@ -252,59 +259,105 @@ public class ModelNodeResult extends ModelNode {
             throw new IllegalArgumentException("Step number must be > 0 (first step has index 1)");
         }
 
-        List<Property> steps = this.value().asPropertyList();
-        if (stepIndex > steps.size()) {
-            throw new IllegalArgumentException("No step " + stepIndex + ": " + this.asString());
+        ModelNode steps = steps();
+        if (steps.getType() != ModelType.OBJECT) {
+            List<Property> stepsList = steps.asPropertyList();
+            if (stepIndex > stepsList.size()) {
+                throw new IllegalArgumentException("No step " + stepIndex + ": " + this.asString());
+            }
+            return new ModelNodeResult(stepsList.get(stepIndex - 1).getValue());
         }
 
-        return new ModelNodeResult(steps.get(stepIndex - 1).getValue());
+        // steps are named step-1, step-2 etc., so the name lookup usually avoids walking through all the steps
+        String stepName = "step-" + stepIndex;
+        if (steps.has(stepName)) {
+            return new ModelNodeResult(steps.get(stepName));
+        }
+
+        Set<String> stepNames = steps.keys();
+        if (stepIndex > stepNames.size()) {
+            throw new IllegalArgumentException("No step " + stepIndex + ": " + this.asString());
+        }
+        Iterator<String> iterator = stepNames.iterator();
+        for (int i = 1; i < stepIndex; i++) {
+            iterator.next();
+        }
+        return new ModelNodeResult(steps.get(iterator.next()));
     }
 
     public final Iterable<ModelNodeResult> forAllBatchSteps() {
-        final List<Property> steps = this.value().asPropertyList();
-        final int stepsCount = steps.size();
+        final ModelNode steps = steps();
+        if (steps.getType() != ModelType.OBJECT) {
+            final List<Property> stepsList = steps.asPropertyList();
+            return new Iterable<ModelNodeResult>() {
+                @Override
+                public final Iterator<ModelNodeResult> iterator() {
+                    final Iterator<Property> iterator = stepsList.iterator();
+                    return new StepsIterator() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public ModelNodeResult next() {
+                            return new ModelNodeResult(iterator.next().getValue());
+                        }
+                    };
+                }
+            };
+        }
 
         return new Iterable<ModelNodeResult>() {
             @Override
             public final Iterator<ModelNodeResult> iterator() {
-                return new Iterator<ModelNodeResult>() {
-                    private int index = 0;
-
+                final Iterator<String> iterator = steps.keys().iterator();
+                return new StepsIterator() {
                     @Override
                     public boolean hasNext() {
-                        return index < stepsCount;
+                        return iterator.hasNext();
                     }
 
                     @Override
                     public ModelNodeResult next() {
-                        index++;
-                        return new ModelNodeResult(steps.get(index - 1).getValue());
-                    }
-
-                    @Override
-                    public void remove() {
-                        throw new UnsupportedOperationException();
+                        return new ModelNodeResult(steps.get(iterator.next()));
                     }
                 };
             }
         };
     }
 
+    /** Unlike {@link #value()}, doesn't add an undefined {@code result} to {@code this} if it's missing. */
+    private ModelNode steps() {
+        return this.has(Constants.RESULT) ? this.get(Constants.RESULT) : new ModelNode();
+    }
+
+    private abstract static class StepsIterator implements Iterator<ModelNodeResult> {
+        @Override
+        public final void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
     // ---
     // headers
 
+    /** Returns the response headers; if there are none, returns an undefined node that isn't part of {@code this}. */
     public final ModelNode headers() {
-        return this.get(Constants.RESPONSE_HEADERS);
+        return this.has(Constants.RESPONSE_HEADERS) ? this.get(Constants.RESPONSE_HEADERS) : new ModelNode();
     }
 
     public final boolean isReloadRequired() {
-        ModelNode state = headers().get(Constants.PROCESS_STATE);
-        return state.isDefined() && Constants.CONTROLLER_PROCESS_STATE_RELOAD_REQUIRED.equals(state.asString());
+        return Constants.CONTROLLER_PROCESS_STATE_RELOAD_REQUIRED.equals(processState());
     }
 
     public final boolean isRestartRequired() {
-        ModelNode state = headers().get(Constants.PROCESS_STATE);
-        return state.isDefined() && Constants.CONTROLLER_PROCESS_STATE_RESTART_REQUIRED.equals(state.asString());
+        return Constants.CONTROLLER_PROCESS_STATE_RESTART_REQUIRED.equals(processState());
+    }
+
+    private String processState() {
+        ModelNode headers = headers();
+        return headers.hasDefined(Constants.PROCESS_STATE) ? headers.get(Constants.PROCESS_STATE).asString() : null;
     }
 
     // ---
@@ -328,9 +381,16 @@ public class ModelNodeResult extends ModelNode {
 
         List<Property> serverGroups = this.get(Constants.SERVER_GROUPS).asPropertyList();
         for (Property serverGroup : serverGroups) {
-            ModelNode response = serverGroup.getValue().get(Constants.HOST, host, server, Constants.RESPONSE);
-            if (response.isDefined()) {
-                return new ModelNodeResult(response);
+            // don't use get(String...), it would add the missing nodes to this result
+            ModelNode node = serverGroup.getValue();
+            for (String name : new String[] {Constants.HOST, host, server, Constants.RESPONSE}) {
+                node = node.hasDefined(name) ? node.get(name) : null;
+                if (node == null) {
+                    break;
+                }
+            }
+            if (node != null) {
+                return new ModelNodeResult(node);
             }
         }
 
@@ -0,0 +1,79 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Adapts a {@code Future} of a raw operation result to a {@code Future} of {@link ModelNodeResult}. Notifies
+ * the operation listeners when the result (or a failure) is first obtained.
+ */
+final class ModelNodeResultFuture implements Future<ModelNodeResult> {
+    private final Future<ModelNode> delegate;
+    private final ModelNode operation;
+    private final OperationListeners listeners;
+    private final long startNanos;
+    private final AtomicBoolean listenersNotified = new AtomicBoolean();
+
+    ModelNodeResultFuture(Future<ModelNode> delegate, ModelNode operation, OperationListeners listeners,
+                          long startNanos) {
+        this.delegate = delegate;
+        this.operation = operation;
+        this.listeners = listeners;
+        this.startNanos = startNanos;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return delegate.cancel(mayInterruptIfRunning);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return delegate.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+        return delegate.isDone();
+    }
+
+    @Override
+    public ModelNodeResult get() throws InterruptedException, ExecutionException {
+        try {
+            return completed(delegate.get());
+        } catch (ExecutionException e) {
+            failed(e.getCause());
+            throw e;
+        }
+    }
+
+    @Override
+    public ModelNodeResult get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        try {
+            return completed(delegate.get(timeout, unit));
+        } catch (ExecutionException e) {
+            failed(e.getCause());
+            throw e;
+        }
+    }
+
+    private ModelNodeResult completed(ModelNode rawResult) {
+        ModelNodeResult result = new ModelNodeResult(rawResult);
+        if (listenersNotified.compareAndSet(false, true)) {
+            listeners.afterExecute(operation, result, null, startNanos);
+        }
+        return result;
+    }
+
+    private void failed(Throwable failure) {
+        if (listenersNotified.compareAndSet(false, true)) {
+            listeners.afterExecute(operation, null, failure, startNanos);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.wildfly.extras.creaper.core.online;
 
+import com.google.common.cache.CacheStats;
 import org.jboss.as.controller.client.Operation;
 import org.jboss.dmr.ModelNode;
 import org.wildfly.extras.creaper.core.CommandFailedException;
@@ -7,6 +8,7 @@ import org.wildfly.extras.creaper.core.ServerVersion;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -61,6 +63,22 @@ public interface OnlineManagementClient extends Closeable {
      */
     ModelNodeResult execute(String operation) throws CliException, IOException;
 
+    /**
+     * <p>Performs the management {@code operation} asynchronously and returns a {@code Future} of its result.
+     * This is useful for performing a lot of independent operations (e.g. {@code read-attribute}s) at once.
+     * When the {@link ManagementProtocol#HTTP HTTP} or {@link ManagementProtocol#HTTPS HTTPS} protocol is used,
+     * the number of operations that are performed concurrently is limited
+     * (see {@link OnlineOptions.OptionalOnlineOptions#httpMaxInFlightRequests(int) httpMaxInFlightRequests}).</p>
+     *
+     * <p>Only the operation itself is performed asynchronously. The client still isn't thread safe; it must not be
+     * used from multiple threads at the same time, and it must not be {@code close}d or {@code reconnect}ed while
+     * some operations are still in progress.</p>
+     *
+     * @throws IOException if an I/O error occurs before the operation is sent; I/O errors during the management
+     * operation are reported by the returned {@code Future}
+     */
+    Future<ModelNodeResult> executeAsync(ModelNode operation) throws IOException;
+
     /**
      * Performs the management operation (given in the CLI syntax) synchronously. The {@code cliOperation} can be
      * either a server-side management operation or a local CLI operation such as {@code cd} or {@code ls}. All local
@@ -76,6 +94,17 @@ public interface OnlineManagementClient extends Closeable {
      */
     void executeCli(String cliOperation) throws CliException, IOException;
 
+    /**
+     * Converts the management {@code operation} given in the CLI syntax to a {@code ModelNode}, without performing
+     * it. The result is the same operation that {@link #execute(String)} would perform, including the adjustments
+     * for managed domain, so it can for example be used as a step of a composite operation. Relative addresses
+     * are resolved against the current node of the CLI (see the {@code cd} CLI operation).
+     * @throws CliException if the {@code operation} doesn't correspond to a server-side management operation
+     * or if there is a syntax error
+     * @throws IOException if an I/O error occurs, e.g. when a lazily initialized client connects to the server
+     */
+    ModelNode parseCli(String operation) throws CliException, IOException;
+
     /**
      * Closes the current connection to the server and opens a new one. Note that this is <b>not possible</b>
      * when the client was created using {@code OnlineOptions.wrap}.
@@ -100,6 +129,12 @@ public interface OnlineManagementClient extends Closeable {
      */
     FailuresAllowedBlock allowFailures() throws IOException;
 
+    /**
+     * Statistics of the read cache (see {@link OnlineOptions.OptionalOnlineOptions#readCache(int)}), most notably
+     * the {@link CacheStats#hitRate() hit rate}. If the read cache is not enabled, all the numbers are {@code 0}.
+     */
+    CacheStats readCacheStats();
+
     /**
      * Closes the client and releases all the resources held. In contrast to the offline management client, which
      * doesn't manage any resources, it is <b>needed</b> here.
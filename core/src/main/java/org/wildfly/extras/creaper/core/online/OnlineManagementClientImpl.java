@@ -1,5 +1,6 @@
 package org.wildfly.extras.creaper.core.online;
 
+import com.google.common.cache.CacheStats;
 import org.jboss.as.cli.CliInitializationException;
 import org.jboss.as.cli.CommandContext;
 import org.jboss.as.cli.CommandFormatException;
@@ -8,13 +9,17 @@ import org.jboss.as.controller.client.ModelControllerClient;
 import org.jboss.as.controller.client.Operation;
 import org.jboss.dmr.ModelNode;
 import org.jboss.logging.Logger;
+import org.jboss.threads.AsyncFuture;
 import org.wildfly.extras.creaper.core.CommandFailedException;
 import org.wildfly.extras.creaper.core.ServerVersion;
 import org.wildfly.extras.creaper.core.online.operations.admin.Administration;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -22,12 +27,15 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
     private static final Logger log = Logger.getLogger(OnlineManagementClient.class);
 
     private static final String JBOSS_CLI_CONFIG = "jboss.cli.config";
+    private static final int PORT_PROBE_TIMEOUT = 1000; // millis
 
     private final OnlineOptions options;
     private final AdjustOperationForDomain adjustOperationForDomain;
+    private final ReadCache readCache; // null if disabled
+    private final OperationListeners operationListeners;
 
     private ModelControllerClient client;
-    private CommandContext cliContext;
+    private CommandContext cliContext; // created lazily, see cliContext()
     private ServerVersion version;
 
     private ThisIsWhereTheClientWasClosed closedAt; // != null <=> already closed
@@ -35,6 +43,8 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
     OnlineManagementClientImpl(OnlineOptions options) throws IOException {
         this.options = options;
         this.adjustOperationForDomain = new AdjustOperationForDomain(options);
+        this.readCache = options.readCacheMaxEntries > 0 ? new ReadCache(options.readCacheMaxEntries) : null;
+        this.operationListeners = new OperationListeners(options.operationListeners);
         connect();
     }
 
@@ -42,27 +52,11 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
         this.client = options.createModelControllerClient();
 
         try {
-            fakeJbossCliConfigToAvoidWarning();
-
-            this.cliContext = new WorkaroundForWFCORE526_CommandContextImpl(options.host, options.port);
-            cliContext.setSilent(true); // CLI shouldn't print messages to the console directly; proper logging is fine
-            cliContext.bindClient(client);
-        } catch (CliInitializationException e) {
-            try {
-                client.close();
-            } catch (IOException ignored) {
-                // so that it doesn't suppress the original exception
-            }
-            throw new IOException(e);
-        }
-
-        try {
-            this.version = OnlineServerVersion.discover(client);
+            this.version = OnlineServerVersion.discover(client, options);
             checkStandaloneVsDomain();
         } catch (Exception e) {
             try {
                 client.close();
-                cliContext.disconnectController();
             } catch (IOException ignored) {
                 // so that it doesn't suppress the original exception
             }
@@ -74,6 +68,34 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
         }
     }
 
+    /**
+     * The CLI {@code CommandContext} is only created when it's first needed, because creating it is fairly
+     * expensive and most programs never use the CLI syntax.
+     */
+    private CommandContext cliContext() throws CliException {
+        if (cliContext == null) {
+            fakeJbossCliConfigToAvoidWarning();
+
+            try {
+                CommandContext newCliContext = new WorkaroundForWFCORE526_CommandContextImpl(options.host,
+                        options.port);
+                newCliContext.setSilent(true); // CLI shouldn't print messages to the console directly; logging is fine
+                newCliContext.bindClient(client);
+                this.cliContext = newCliContext;
+            } catch (CliInitializationException e) {
+                throw new CliException(e);
+            }
+        }
+        return cliContext;
+    }
+
+    private void disconnectCliContext() {
+        if (cliContext != null) {
+            cliContext.disconnectController();
+            cliContext = null;
+        }
+    }
+
     private static void fakeJbossCliConfigToAvoidWarning() {
         // this works since AS 7.2.0, that is EAP 6.1.0 and above
         // jboss-as-cli 7.0.x and 7.1.x don't know this system property
@@ -131,9 +153,17 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
         try {
             OnlineManagementClient client = AutomaticErrorHandlingForCommands.wrap(this);
             OnlineCommandContext ctx = new OnlineCommandContext(client, version);
+            ClientInstrumentation instrumentation = options.instrumentation;
             for (OnlineCommand command : commands) {
                 log.infof("Applying command %s", command);
-                command.apply(ctx);
+                long start = System.nanoTime();
+                boolean succeeded = false;
+                try {
+                    command.apply(ctx);
+                    succeeded = true;
+                } finally {
+                    instrumentation.commandApplied(command, System.nanoTime() - start, succeeded);
+                }
             }
         } catch (RuntimeCommandFailedException e) {
             throw e.original;
@@ -149,34 +179,112 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
     public ModelNodeResult execute(ModelNode operation) throws IOException {
         checkClosed();
         operation = adjustOperationForDomain.adjust(operation);
-        log.debugf("Executing operation %s", ModelNodeOperationToCliString.convert(operation));
-        ModelNode result = client.execute(operation);
-        return new ModelNodeResult(result);
+        if (readCache == null) {
+            return executeOnServer(operation);
+        }
+
+        if (ReadCache.isCacheable(operation)) {
+            ModelNode cachedResult = readCache.get(operation);
+            if (cachedResult != null) {
+                if (log.isDebugEnabled()) {
+                    log.debugf("Using cached result of operation %s", ModelNodeOperationToCliString.convert(operation));
+                }
+                return new ModelNodeResult(cachedResult);
+            }
+
+            long generation = readCache.generation();
+            ModelNodeResult result = executeOnServer(operation);
+            readCache.put(operation, result, generation);
+            return result;
+        }
+
+        try {
+            return executeOnServer(operation);
+        } finally {
+            readCache.invalidate(operation);
+        }
     }
 
     @Override
     public ModelNodeResult execute(Operation operation) throws IOException {
         checkClosed();
         operation = adjustOperationForDomain.adjust(operation);
-        log.debugf("Executing operation %s", ModelNodeOperationToCliString.convert(operation.getOperation()));
-        ModelNode result = client.execute(operation);
-        return new ModelNodeResult(result);
+        try {
+            return executeOnServer(operation);
+        } finally {
+            if (readCache != null) {
+                readCache.invalidate(operation.getOperation());
+            }
+        }
     }
 
     @Override
     public ModelNodeResult execute(String operation) throws CliException, IOException {
+        ModelNode parsedOperation = parseCli(operation);
+        try {
+            return executeOnServer(parsedOperation);
+        } finally {
+            if (readCache != null) {
+                readCache.invalidate(parsedOperation);
+            }
+        }
+    }
+
+    @Override
+    public Future<ModelNodeResult> executeAsync(ModelNode operation) throws IOException {
         checkClosed();
         operation = adjustOperationForDomain.adjust(operation);
-        log.debugf("Executing operation %s", operation);
-        ModelNode parsedOperation;
+        if (readCache != null) {
+            readCache.invalidate(operation);
+        }
+        long start = operationListeners.beforeExecute(operation);
         try {
-            parsedOperation = cliContext.buildRequest(operation);
-        } catch (CommandFormatException e) {
-            throw new CliException(e);
+            AsyncFuture<ModelNode> future = client.executeAsync(operation, null);
+            if (readCache != null) {
+                // reads performed while the operation was running could have cached the old state
+                final ModelNode modifyingOperation = operation;
+                future.addListener(new AsyncFuture.AbstractListener<ModelNode, Void>() {
+                    @Override
+                    public void handleDone(AsyncFuture<? extends ModelNode> done, Void attachment) {
+                        readCache.invalidate(modifyingOperation);
+                    }
+                }, null);
+            }
+            return new ModelNodeResultFuture(future, operation, operationListeners, start);
+        } catch (RuntimeException e) {
+            operationListeners.afterExecute(operation, null, e, start);
+            throw e;
         }
+    }
 
-        ModelNode result = client.execute(parsedOperation);
-        return new ModelNodeResult(result);
+    private ModelNodeResult executeOnServer(ModelNode operation) throws IOException {
+        long start = operationListeners.beforeExecute(operation);
+        try {
+            ModelNodeResult result = new ModelNodeResult(client.execute(operation));
+            operationListeners.afterExecute(operation, result, null, start);
+            return result;
+        } catch (IOException e) {
+            operationListeners.afterExecute(operation, null, e, start);
+            throw e;
+        } catch (RuntimeException e) {
+            operationListeners.afterExecute(operation, null, e, start);
+            throw e;
+        }
+    }
+
+    private ModelNodeResult executeOnServer(Operation operation) throws IOException {
+        long start = operationListeners.beforeExecute(operation.getOperation());
+        try {
+            ModelNodeResult result = new ModelNodeResult(client.execute(operation));
+            operationListeners.afterExecute(operation.getOperation(), result, null, start);
+            return result;
+        } catch (IOException e) {
+            operationListeners.afterExecute(operation.getOperation(), null, e, start);
+            throw e;
+        } catch (RuntimeException e) {
+            operationListeners.afterExecute(operation.getOperation(), null, e, start);
+            throw e;
+        }
     }
 
     @Override
@@ -198,21 +306,40 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
                 // helps in those situations
                 new Administration(this).reload();
             } else {
-                cliContext.handle(cliOperation);
+                cliContext().handle(cliOperation);
             }
+        } catch (CliException e) {
+            throw e;
         } catch (Exception e) {
             if (e.getCause() instanceof IOException) {
                 throw (IOException) e.getCause();
             }
 
             throw new CliException(e);
+        } finally {
+            // CLI commands (e.g. "deploy" or "batch") can do anything
+            if (readCache != null) {
+                readCache.invalidateAll();
+            }
         }
 
-        if (cliContext.getExitCode() != 0 || cliContext.isTerminated()) {
+        // after "reload", the CLI context doesn't exist (it was discarded during reconnect or never created)
+        if (cliContext != null && (cliContext.getExitCode() != 0 || cliContext.isTerminated())) {
             throw new CliException("CLI operation failed: " + cliOperation);
         }
     }
 
+    @Override
+    public ModelNode parseCli(String operation) throws CliException {
+        checkClosed();
+        operation = adjustOperationForDomain.adjust(operation);
+        try {
+            return cliContext().buildRequest(operation);
+        } catch (CommandFormatException e) {
+            throw new CliException(e);
+        }
+    }
+
     @Override
     public void reconnect(int timeoutInSeconds) throws TimeoutException, InterruptedException {
         if (options.isWrappedClient) {
@@ -221,28 +348,55 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
 
         log.info("Reconnecting the client");
 
+        if (readCache != null) {
+            readCache.invalidateAll();
+        }
+
         try {
             client.close();
-            cliContext.disconnectController();
+            disconnectCliContext();
         } catch (Throwable ignored) {
         }
 
         long endTime = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeoutInSeconds);
+        int failedAttempts = 0;
         while (System.currentTimeMillis() < endTime) {
-            try {
-                connect();
-                return;
-            } catch (Throwable e) {
-                log.info(e.getMessage());
-                // server is probably down, will retry
+            if (!options.reconnectPortProbe || isPortOpen()) {
+                try {
+                    connect();
+                    options.instrumentation.reconnectAttempted(true);
+                    return;
+                } catch (Throwable e) {
+                    log.info(e.getMessage());
+                    // server is probably down, will retry
+                }
             }
 
-            Thread.sleep(500);
+            options.instrumentation.reconnectAttempted(false);
+            failedAttempts++;
+            options.waitStrategy.await(failedAttempts, endTime);
         }
 
         throw new TimeoutException("Timeout reconnecting to server");
     }
 
+    /** Cheap check that the management port accepts connections, see {@code OnlineOptions.reconnectPortProbe}. */
+    private boolean isPortOpen() {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(options.host, options.port), PORT_PROBE_TIMEOUT);
+            return true;
+        } catch (IOException e) {
+            log.debugf("Management port %s:%d doesn't accept connections yet", options.host, options.port);
+            return false;
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
     @Override
     public FailuresAllowedBlock allowFailures() throws IOException {
         // no need to do anything here
@@ -250,10 +404,18 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
         return NoopCloseFailuresAllowedBlock.INSTANCE;
     }
 
+    @Override
+    public CacheStats readCacheStats() {
+        return readCache != null ? readCache.stats() : ReadCache.NO_STATS;
+    }
+
     @Override
     public void close() throws IOException {
         client.close();
-        cliContext.disconnectController();
+        disconnectCliContext();
+        if (readCache != null) {
+            readCache.invalidateAll();
+        }
 
         if (closedAt == null) {
             closedAt = new ThisIsWhereTheClientWasClosed();
@@ -0,0 +1,427 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.logging.Logger;
+import org.wildfly.extras.creaper.core.ManagementClient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>A pool of {@link OnlineManagementClient}s. Creating a client involves several round trips to the server,
+ * so programs that need a client repeatedly for a short time can instead {@link #lease(OnlineOptions) lease} one
+ * from the pool and {@link OnlineManagementClient#close() close} it when done, which returns it to the pool.</p>
+ *
+ * <p>Clients are pooled per {@link OnlineOptions}: two leases share the same clients if their options
+ * describe the same connection (standalone/domain, host, port, protocol, credentials etc.). At most
+ * {@link Builder#maxClientsPerKey(int) maxClientsPerKey} clients exist for such options at a time; when all of them
+ * are leased, {@code lease} waits until one is returned. A client that was idle for longer than
+ * {@link Builder#validationInterval(long, TimeUnit) validationInterval} is validated with the {@code whoami}
+ * operation before it's leased again. A client that was idle for longer than
+ * {@link Builder#maxIdleTime(long, TimeUnit) maxIdleTime} is closed and removed from the pool.</p>
+ *
+ * <p>The pool is thread-safe. The leased clients are not, they are meant to be used by the thread that leased
+ * them.</p>
+ */
+public final class OnlineManagementClientPool implements Closeable {
+    private static final Logger log = Logger.getLogger(OnlineManagementClientPool.class);
+
+    private final int maxClientsPerKey;
+    private final long maxIdleTimeNanos;
+    private final long validationIntervalNanos;
+    private final long maxWaitNanos;
+    private final ClientFactory clientFactory;
+
+    private final Object lock = new Object();
+    // all fields below are guarded by "lock"
+    private final Map<Object, KeyedClients> clients = new HashMap<Object, KeyedClients>();
+    private boolean closed;
+
+    private long leaseCount;
+    private long createCount;
+    private long validationFailureCount;
+    private long evictionCount;
+    private long totalWaitNanos;
+    private long maxWaitNanosObserved;
+
+    private OnlineManagementClientPool(Builder builder, ClientFactory clientFactory) {
+        this.maxClientsPerKey = builder.maxClientsPerKey;
+        this.maxIdleTimeNanos = builder.maxIdleTimeNanos;
+        this.validationIntervalNanos = builder.validationIntervalNanos;
+        this.maxWaitNanos = builder.maxWaitNanos;
+        this.clientFactory = clientFactory;
+    }
+
+    /**
+     * Returns a client for given {@code options}, either an idle one from the pool or a newly created one.
+     * Closing the returned client returns it to the pool.
+     *
+     * @throws IOException see {@link ManagementClient#online(OnlineOptions)}
+     * @throws TimeoutException if all clients for given {@code options} are leased and none was returned
+     * for {@link Builder#maxWait(long, TimeUnit) maxWait}
+     * @throws IllegalStateException if the pool is closed
+     */
+    public OnlineManagementClient lease(OnlineOptions options)
+            throws IOException, TimeoutException, InterruptedException {
+        Object key = options.poolKey();
+
+        while (true) {
+            List<OnlineManagementClient> toClose = new ArrayList<OnlineManagementClient>();
+            try {
+                KeyedClients keyedClients;
+                IdleClient idleClient = null;
+
+                synchronized (lock) {
+                    checkClosed();
+                    toClose.addAll(evictExpired());
+
+                    keyedClients = clients.get(key);
+                    if (keyedClients == null) {
+                        keyedClients = new KeyedClients();
+                        clients.put(key, keyedClients);
+                    }
+
+                    if (keyedClients.idle.isEmpty() && keyedClients.total >= maxClientsPerKey) {
+                        waitForIdleClient(keyedClients, toClose);
+                    }
+
+                    if (keyedClients.idle.isEmpty()) {
+                        keyedClients.total++;
+                    } else {
+                        idleClient = keyedClients.idle.removeFirst();
+                    }
+                }
+
+                if (idleClient == null) {
+                    OnlineManagementClient client = create(options, keyedClients);
+                    synchronized (lock) {
+                        createCount++;
+                        leaseCount++;
+                    }
+                    return new PooledOnlineManagementClient(this, keyedClients, client);
+                }
+
+                if (System.nanoTime() - idleClient.idleSince >= validationIntervalNanos
+                        && !isValid(idleClient.client)) {
+                    log.debug("Idle client failed validation, removing it from the pool");
+                    synchronized (lock) {
+                        validationFailureCount++;
+                        keyedClients.total--;
+                        lock.notifyAll();
+                    }
+                    toClose.add(idleClient.client);
+                    continue;
+                }
+
+                synchronized (lock) {
+                    leaseCount++;
+                }
+                return new PooledOnlineManagementClient(this, keyedClients, idleClient.client);
+            } finally {
+                closeQuietly(toClose);
+            }
+        }
+    }
+
+    // must be called with "lock" held
+    private void waitForIdleClient(KeyedClients keyedClients, List<OnlineManagementClient> toClose)
+            throws TimeoutException, InterruptedException {
+        long start = System.nanoTime();
+        try {
+            long remaining = maxWaitNanos;
+            while (keyedClients.idle.isEmpty() && keyedClients.total >= maxClientsPerKey) {
+                if (remaining <= 0) {
+                    throw new TimeoutException("Timeout waiting for a client from the pool, all "
+                            + maxClientsPerKey + " clients are leased");
+                }
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                checkClosed();
+                toClose.addAll(evictExpired());
+                remaining = maxWaitNanos - (System.nanoTime() - start);
+            }
+        } finally {
+            long waited = System.nanoTime() - start;
+            totalWaitNanos += waited;
+            maxWaitNanosObserved = Math.max(maxWaitNanosObserved, waited);
+        }
+    }
+
+    private OnlineManagementClient create(OnlineOptions options, KeyedClients keyedClients) throws IOException {
+        OnlineManagementClient client = null;
+        try {
+            client = clientFactory.create(options);
+            return client;
+        } finally {
+            if (client == null) {
+                synchronized (lock) {
+                    keyedClients.total--;
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    private static boolean isValid(OnlineManagementClient client) {
+        ModelNode op = new ModelNode();
+        op.get(Constants.OP).set(Constants.WHOAMI);
+        op.get(Constants.OP_ADDR).setEmptyList();
+        try {
+            return client.execute(op).isSuccess();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /** Called when a leased client is closed. */
+    void release(KeyedClients keyedClients, OnlineManagementClient client, boolean broken) {
+        List<OnlineManagementClient> toClose = new ArrayList<OnlineManagementClient>();
+        synchronized (lock) {
+            if (closed || broken) {
+                keyedClients.total--;
+                toClose.add(client);
+            } else {
+                keyedClients.idle.addFirst(new IdleClient(client, System.nanoTime()));
+            }
+            toClose.addAll(evictExpired());
+            lock.notifyAll();
+        }
+        closeQuietly(toClose);
+    }
+
+    // must be called with "lock" held; idle clients are ordered from the most recently used to the least recently used
+    private List<OnlineManagementClient> evictExpired() {
+        List<OnlineManagementClient> result = new ArrayList<OnlineManagementClient>();
+        long now = System.nanoTime();
+        for (KeyedClients keyedClients : clients.values()) {
+            while (!keyedClients.idle.isEmpty() && now - keyedClients.idle.getLast().idleSince >= maxIdleTimeNanos) {
+                result.add(keyedClients.idle.removeLast().client);
+                keyedClients.total--;
+                evictionCount++;
+            }
+        }
+        return result;
+    }
+
+    // must be called with "lock" held
+    private void checkClosed() {
+        if (closed) {
+            throw new IllegalStateException("The pool is already closed");
+        }
+    }
+
+    private static void closeQuietly(List<OnlineManagementClient> clients) {
+        for (OnlineManagementClient client : clients) {
+            try {
+                client.close();
+            } catch (IOException e) {
+                log.debug("Failed to close a pooled client", e);
+            }
+        }
+    }
+
+    /** Returns a snapshot of the pool statistics. */
+    public Stats stats() {
+        synchronized (lock) {
+            int idle = 0;
+            int total = 0;
+            for (KeyedClients keyedClients : clients.values()) {
+                idle += keyedClients.idle.size();
+                total += keyedClients.total;
+            }
+            return new Stats(leaseCount, createCount, validationFailureCount, evictionCount, totalWaitNanos,
+                    maxWaitNanosObserved, idle, total - idle);
+        }
+    }
+
+    /**
+     * Closes all idle clients and marks the pool as closed. Clients that are currently leased will be closed
+     * when they are returned.
+     */
+    @Override
+    public void close() {
+        List<OnlineManagementClient> toClose = new ArrayList<OnlineManagementClient>();
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            for (KeyedClients keyedClients : clients.values()) {
+                for (IdleClient idleClient : keyedClients.idle) {
+                    toClose.add(idleClient.client);
+                }
+                keyedClients.total -= keyedClients.idle.size();
+                keyedClients.idle.clear();
+            }
+            lock.notifyAll();
+        }
+        closeQuietly(toClose);
+    }
+
+    static final class KeyedClients {
+        final Deque<IdleClient> idle = new ArrayDeque<IdleClient>();
+        int total; // idle + leased + being created
+    }
+
+    private static final class IdleClient {
+        final OnlineManagementClient client;
+        final long idleSince;
+
+        IdleClient(OnlineManagementClient client, long idleSince) {
+            this.client = client;
+            this.idleSince = idleSince;
+        }
+    }
+
+    interface ClientFactory {
+        OnlineManagementClient create(OnlineOptions options) throws IOException;
+    }
+
+    private static final class DefaultClientFactory implements ClientFactory {
+        @Override
+        public OnlineManagementClient create(OnlineOptions options) throws IOException {
+            return ManagementClient.online(options);
+        }
+    }
+
+    /** Immutable snapshot of the pool statistics. */
+    public static final class Stats {
+        private final long leaseCount;
+        private final long createCount;
+        private final long validationFailureCount;
+        private final long evictionCount;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+        private final int idleCount;
+        private final int leasedCount;
+
+        Stats(long leaseCount, long createCount, long validationFailureCount, long evictionCount,
+              long totalWaitNanos, long maxWaitNanos, int idleCount, int leasedCount) {
+            this.leaseCount = leaseCount;
+            this.createCount = createCount;
+            this.validationFailureCount = validationFailureCount;
+            this.evictionCount = evictionCount;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.idleCount = idleCount;
+            this.leasedCount = leasedCount;
+        }
+
+        /** Number of successful leases. */
+        public long leaseCount() {
+            return leaseCount;
+        }
+
+        /** Number of clients that were created. Each lease that doesn't create a client reuses an idle one. */
+        public long createCount() {
+            return createCount;
+        }
+
+        /** Number of idle clients that failed validation and were removed from the pool. */
+        public long validationFailureCount() {
+            return validationFailureCount;
+        }
+
+        /** Number of idle clients that were removed from the pool because of {@code maxIdleTime}. */
+        public long evictionCount() {
+            return evictionCount;
+        }
+
+        /** Total time that leases spent waiting for a client to be returned to the pool. */
+        public long totalWaitTime(TimeUnit unit) {
+            return unit.convert(totalWaitNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /** The longest time that a single lease spent waiting for a client to be returned to the pool. */
+        public long maxWaitTime(TimeUnit unit) {
+            return unit.convert(maxWaitNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /** Number of clients that are currently idle in the pool. */
+        public int idleCount() {
+            return idleCount;
+        }
+
+        /** Number of clients that are currently leased (or being created). */
+        public int leasedCount() {
+            return leasedCount;
+        }
+
+        @Override
+        public String toString() {
+            return "OnlineManagementClientPool.Stats{"
+                    + "leaseCount=" + leaseCount
+                    + ", createCount=" + createCount
+                    + ", validationFailureCount=" + validationFailureCount
+                    + ", evictionCount=" + evictionCount
+                    + ", totalWaitMillis=" + totalWaitTime(TimeUnit.MILLISECONDS)
+                    + ", maxWaitMillis=" + maxWaitTime(TimeUnit.MILLISECONDS)
+                    + ", idleCount=" + idleCount
+                    + ", leasedCount=" + leasedCount
+                    + "}";
+        }
+    }
+
+    public static final class Builder {
+        private int maxClientsPerKey = 4;
+        private long maxIdleTimeNanos = TimeUnit.MINUTES.toNanos(5);
+        private long validationIntervalNanos = TimeUnit.SECONDS.toNanos(5);
+        private long maxWaitNanos = TimeUnit.MINUTES.toNanos(1);
+
+        /** Maximum number of clients (idle and leased) for the same options. Optional, 4 by default. */
+        public Builder maxClientsPerKey(int maxClientsPerKey) {
+            if (maxClientsPerKey <= 0) {
+                throw new IllegalArgumentException("Maximum number of clients must be positive");
+            }
+            this.maxClientsPerKey = maxClientsPerKey;
+            return this;
+        }
+
+        /** Idle clients are closed and removed from the pool after this time. Optional, 5 minutes by default. */
+        public Builder maxIdleTime(long time, TimeUnit unit) {
+            if (time < 0) {
+                throw new IllegalArgumentException("Maximum idle time must not be negative");
+            }
+            this.maxIdleTimeNanos = unit.toNanos(time);
+            return this;
+        }
+
+        /**
+         * Clients that were idle for this time are validated before they are leased again. Use {@code 0}
+         * to validate on every lease. Optional, 5 seconds by default.
+         */
+        public Builder validationInterval(long time, TimeUnit unit) {
+            if (time < 0) {
+                throw new IllegalArgumentException("Validation interval must not be negative");
+            }
+            this.validationIntervalNanos = unit.toNanos(time);
+            return this;
+        }
+
+        /** Maximum time that {@code lease} waits for a client to be returned. Optional, 1 minute by default. */
+        public Builder maxWait(long time, TimeUnit unit) {
+            if (time < 0) {
+                throw new IllegalArgumentException("Maximum wait time must not be negative");
+            }
+            this.maxWaitNanos = unit.toNanos(time);
+            return this;
+        }
+
+        public OnlineManagementClientPool build() {
+            return new OnlineManagementClientPool(this, new DefaultClientFactory());
+        }
+
+        // for testing
+        OnlineManagementClientPool build(ClientFactory clientFactory) {
+            return new OnlineManagementClientPool(this, clientFactory);
+        }
+    }
+}
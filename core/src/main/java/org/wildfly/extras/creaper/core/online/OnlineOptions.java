@@ -3,7 +3,10 @@ package org.wildfly.extras.creaper.core.online;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeoutException;
 import javax.net.ssl.SSLContext;
@@ -45,8 +48,27 @@ public final class OnlineOptions {
 
     private final SslOptions sslOptions;
 
+    private final int httpMaxInFlightRequests;
+    private final boolean httpDmrEncoding;
+    private final int httpKeepAlive;
+    private final int httpIdleConnectionTimeout;
+    private final boolean httpPreemptiveAuth;
+
+    final int serverVersionCacheTtl; // see OnlineServerVersion
+    final int readCacheMaxEntries; // see ReadCache
+    final List<OperationListener> operationListeners; // see OperationListeners
+    public final ClientInstrumentation instrumentation;
+
+    public final WaitStrategy waitStrategy;
+    final boolean reconnectPortProbe;
+
     private final ModelControllerClient wrappedModelControllerClient;
-    final boolean isWrappedClient; // see OnlineManagementClientImpl.reconnect
+    /**
+     * {@code true} if the client wraps an existing {@code ModelControllerClient}
+     * (see {@link ConnectionOnlineOptions#wrap(ModelControllerClient)}); such client can't be reconnected,
+     * and all clients created with the same options share the wrapped client
+     */
+    public final boolean isWrappedClient;
 
     private OnlineOptions(Data data) {
         if (data.protocol == null && System.getProperty(CREAPER_WILDFLY) != null) {
@@ -85,6 +107,21 @@ public final class OnlineOptions {
         this.password = data.password;
         this.localAuthDisabled = data.localAuthDisabled;
         this.sslOptions = data.sslOptions;
+        this.httpMaxInFlightRequests = data.httpMaxInFlightRequests;
+        this.httpDmrEncoding = data.httpDmrEncoding;
+        this.httpKeepAlive = data.httpKeepAlive;
+        this.httpIdleConnectionTimeout = data.httpIdleConnectionTimeout;
+        this.httpPreemptiveAuth = data.httpPreemptiveAuth;
+        this.serverVersionCacheTtl = data.serverVersionCacheTtl;
+        this.readCacheMaxEntries = data.readCacheMaxEntries;
+        List<OperationListener> operationListeners = new ArrayList<OperationListener>(data.operationListeners);
+        if (data.instrumentation != ClientInstrumentation.NONE) {
+            operationListeners.add(data.instrumentation);
+        }
+        this.operationListeners = Collections.unmodifiableList(operationListeners);
+        this.instrumentation = data.instrumentation;
+        this.waitStrategy = data.waitStrategy;
+        this.reconnectPortProbe = data.reconnectPortProbe;
         this.wrappedModelControllerClient = data.wrappedModelControllerClient;
         this.isWrappedClient = data.wrappedModelControllerClient != null;
 
@@ -120,6 +157,21 @@ public final class OnlineOptions {
 
         private SslOptions sslOptions;
 
+        private int httpMaxInFlightRequests = HttpOptions.DEFAULT_MAX_IN_FLIGHT_REQUESTS;
+        private boolean httpDmrEncoding;
+        private int httpKeepAlive;
+        private int httpIdleConnectionTimeout;
+        private boolean httpPreemptiveAuth;
+
+        private int serverVersionCacheTtl;
+        private int readCacheMaxEntries;
+        private final List<OperationListener> operationListeners = new ArrayList<OperationListener>(
+                Collections.singletonList(LoggingOperationListener.INSTANCE));
+        private ClientInstrumentation instrumentation = ClientInstrumentation.NONE;
+
+        private WaitStrategy waitStrategy = WaitStrategy.DEFAULT;
+        private boolean reconnectPortProbe;
+
         private ModelControllerClient wrappedModelControllerClient;
     }
 
@@ -351,6 +403,189 @@ public final class OnlineOptions {
             return this;
         }
 
+        /**
+         * <p>Maximum number of management requests that are performed concurrently when
+         * {@link OnlineManagementClient#executeAsync(ModelNode) executing operations asynchronously}. Optional.
+         * By default, {@code 16} requests can be in flight at the same time. Requests above this limit are queued.</p>
+         *
+         * <p>This is only used for the {@link ManagementProtocol#HTTP HTTP} and {@link ManagementProtocol#HTTPS HTTPS}
+         * protocols, where it is also the size of the connection pool (i.e., the maximum number of open connections
+         * to the server). The remoting protocols multiplex all requests over a single connection and have their own
+         * limits.</p>
+         */
+        public OptionalOnlineOptions httpMaxInFlightRequests(int maxInFlightRequests) {
+            if (maxInFlightRequests <= 0) {
+                throw new IllegalArgumentException("Maximum number of in-flight requests must be positive");
+            }
+
+            data.httpMaxInFlightRequests = maxInFlightRequests;
+            return this;
+        }
+
+        /**
+         * <p>Exchange management requests and responses in the binary DMR format ({@code application/dmr-encoded})
+         * instead of JSON. Optional. The binary format is more compact and faster to parse, which matters for large
+         * responses (e.g. a recursive {@code read-resource}).</p>
+         *
+         * <p>This is only used for the {@link ManagementProtocol#HTTP HTTP} and {@link ManagementProtocol#HTTPS HTTPS}
+         * protocols. Old servers (e.g. JBoss AS 7.1) don't support the binary format, so it's not used by default.</p>
+         */
+        public OptionalOnlineOptions httpDmrEncoding() {
+            data.httpDmrEncoding = true;
+            return this;
+        }
+
+        /**
+         * <p>Maximum time for which an idle connection to the server is kept open for reuse. In milliseconds.
+         * Optional. A value {@code <= 0} means that the connection is kept open for as long as the server allows.
+         * By default, the server decides.</p>
+         *
+         * <p>This is only used for the {@link ManagementProtocol#HTTP HTTP} and {@link ManagementProtocol#HTTPS HTTPS}
+         * protocols.</p>
+         */
+        public OptionalOnlineOptions httpKeepAlive(int timeoutInMillis) {
+            if (timeoutInMillis <= 0) {
+                timeoutInMillis = 0;
+            }
+
+            data.httpKeepAlive = timeoutInMillis;
+            return this;
+        }
+
+        /**
+         * <p>Connections to the server that are idle for longer than this are closed by a background thread.
+         * In milliseconds. Optional. A value {@code <= 0} means that idle connections are not closed proactively
+         * (a stale connection is detected when it's about to be reused). By default, idle connections are not
+         * closed.</p>
+         *
+         * <p>This is only used for the {@link ManagementProtocol#HTTP HTTP} and {@link ManagementProtocol#HTTPS HTTPS}
+         * protocols.</p>
+         */
+        public OptionalOnlineOptions httpIdleConnectionTimeout(int timeoutInMillis) {
+            if (timeoutInMillis <= 0) {
+                timeoutInMillis = 0;
+            }
+
+            data.httpIdleConnectionTimeout = timeoutInMillis;
+            return this;
+        }
+
+        /**
+         * <p>Authenticate requests pre-emptively, without waiting for the server to send an authentication challenge
+         * first. Optional. The Digest authentication state is shared by all clients in the JVM that connect to the same
+         * server with the same username, so creating a lot of short-lived clients doesn't result in repeated
+         * authentication handshakes; the Digest realm of the server is only discovered once in the JVM. When the cached
+         * state is no longer valid, the server simply sends a new challenge or the realm is discovered again.</p>
+         *
+         * <p>This is only used for the {@link ManagementProtocol#HTTP HTTP} and {@link ManagementProtocol#HTTPS HTTPS}
+         * protocols and only when {@link #auth(String, String) auth} is used.</p>
+         */
+        public OptionalOnlineOptions httpPreemptiveAuth() {
+            data.httpPreemptiveAuth = true;
+            return this;
+        }
+
+        /**
+         * <p>Cache the management version of the server for given time. In milliseconds. Optional. A value
+         * {@code <= 0} means "no caching". By default, no caching is used.</p>
+         *
+         * <p>The version of the server is discovered every time a client connects or reconnects to the server.
+         * If the cache is enabled, it's only discovered once per JVM for the same host and port and then reused
+         * by all clients with the cache enabled until the time expires. This saves a round trip e.g. in reconnect
+         * loops or when using {@link OnlineManagementClientPool}. Don't use the cache if the server can be replaced
+         * by a server of a different version during the lifetime of the cache.</p>
+         */
+        public OptionalOnlineOptions serverVersionCache(int ttlInMillis) {
+            if (ttlInMillis <= 0) {
+                ttlInMillis = 0;
+            }
+
+            data.serverVersionCacheTtl = ttlInMillis;
+            return this;
+        }
+
+        /**
+         * <p>Cache results of the {@code read-attribute}, {@code read-resource} and {@code read-children-names}
+         * operations, so that repeatedly reading the same thing (e.g. checking if a resource
+         * {@link org.wildfly.extras.creaper.core.online.operations.Operations#exists exists}) doesn't require a round
+         * trip to the server. At most {@code maxEntries} results are cached. Optional. A value {@code <= 0} means
+         * "no caching". By default, no caching is used.</p>
+         *
+         * <p>Each operation that modifies the management model and is performed by the client invalidates cached
+         * results for the same address, its parent addresses and its child addresses. Steps of composite operations
+         * are handled individually. Operations in the CLI syntax that can't be analyzed, reloads and reconnects
+         * invalidate everything. Operations that read runtime information ({@code include-runtime}, or attributes
+         * such as {@code server-state} that are polled when waiting for a reload or restart) and failed results
+         * are never cached. This means that the cache is only safe to use when the configuration is not modified by any
+         * other management client and the client is only used to read configuration, not runtime values.
+         * See {@link OnlineManagementClient#readCacheStats()} for the hit rate.</p>
+         */
+        public OptionalOnlineOptions readCache(int maxEntries) {
+            if (maxEntries <= 0) {
+                maxEntries = 0;
+            }
+
+            data.readCacheMaxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Register a listener that gets notified about each management operation performed by the client.
+         * Optional. Can be called multiple times to register multiple listeners; they are notified in the order
+         * of registration. A built-in listener that logs the operations is always registered first.
+         * See {@link OperationListener} for details.
+         */
+        public OptionalOnlineOptions operationListener(OperationListener listener) {
+            if (listener == null) {
+                throw new IllegalArgumentException("Operation listener must be set");
+            }
+
+            data.operationListeners.add(listener);
+            return this;
+        }
+
+        /**
+         * Register an instrumentation that gets notified about operations, commands, reconnects, reloads and restarts
+         * performed by the client, e.g. a {@link org.wildfly.extras.creaper.core.online.metrics.MetricsRegistry
+         * MetricsRegistry}. Optional. By default, {@link ClientInstrumentation#NONE} is used, which has no overhead.
+         * The instrumentation is notified about operations after all {@link #operationListener(OperationListener)
+         * operation listeners}.
+         */
+        public OptionalOnlineOptions instrumentation(ClientInstrumentation instrumentation) {
+            if (instrumentation == null) {
+                throw new IllegalArgumentException("Instrumentation must be set");
+            }
+
+            data.instrumentation = instrumentation;
+            return this;
+        }
+
+        /**
+         * How long to wait between repeated attempts when waiting for the server: when connecting to a server that is
+         * still booting, when reconnecting after reload or restart and when waiting for the server to be running
+         * after reload or restart. Optional. By default, {@link WaitStrategy#DEFAULT} is used.
+         */
+        public OptionalOnlineOptions waitStrategy(WaitStrategy waitStrategy) {
+            if (waitStrategy == null) {
+                throw new IllegalArgumentException("Wait strategy must be set");
+            }
+
+            data.waitStrategy = waitStrategy;
+            return this;
+        }
+
+        /**
+         * When {@link OnlineManagementClient#reconnect(int) reconnecting}, check that the management port accepts
+         * TCP connections before trying to create a new management client. Optional. This makes each unsuccessful
+         * reconnect attempt much cheaper, both for the client and for the server. It's not used by default,
+         * because it requires direct network access to the management port (e.g. it doesn't work through
+         * a proxy).
+         */
+        public OptionalOnlineOptions reconnectPortProbe() {
+            data.reconnectPortProbe = true;
+            return this;
+        }
+
         /** Build the final {@code OnlineOptions}. */
         public OnlineOptions build() {
             return new OnlineOptions(data);
@@ -359,6 +594,37 @@ public final class OnlineOptions {
 
     // ---
 
+    /**
+     * Returns an object that is {@code equal} for two {@code OnlineOptions} iff clients created with them are
+     * interchangeable: they connect to the same server in the same way and with the same credentials.
+     * Used by {@link OnlineManagementClientPool}. SSL options and the wrapped client are compared by identity.
+     */
+    Object poolKey() {
+        return Arrays.<Object>asList(isStandalone, isDomain, defaultProfile, defaultHost, host, port, protocol,
+                connectionTimeout, bootTimeout, username, password, localAuthDisabled, new IdentityKey(sslOptions),
+                httpMaxInFlightRequests, httpDmrEncoding, httpKeepAlive, httpIdleConnectionTimeout,
+                httpPreemptiveAuth, new IdentityKey(wrappedModelControllerClient), waitStrategy, reconnectPortProbe,
+                readCacheMaxEntries, operationListeners);
+    }
+
+    private static final class IdentityKey {
+        private final Object object;
+
+        IdentityKey(Object object) {
+            this.object = object;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IdentityKey && ((IdentityKey) o).object == object;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(object);
+        }
+    }
+
     ModelControllerClient createModelControllerClient() throws IOException {
         if (wrappedModelControllerClient != null) {
             return wrappedModelControllerClient;
@@ -401,10 +667,12 @@ public final class OnlineOptions {
         ModelControllerClient modelControllerClient;
 
         if (protocol == ManagementProtocol.HTTP || protocol == ManagementProtocol.HTTPS) {
+            HttpOptions httpOptions = new HttpOptions(httpMaxInFlightRequests, httpDmrEncoding, httpKeepAlive,
+                    httpIdleConnectionTimeout, httpPreemptiveAuth);
             modelControllerClient = new HttpModelControllerClient(host, port, username, password, connectionTimeout,
-                    sslOptions);
+                    sslOptions, httpOptions);
             try {
-                connectAndWaitUntilServerBoots(modelControllerClient, connectionTimeout, bootTimeout);
+                connectAndWaitUntilServerBoots(modelControllerClient, connectionTimeout, bootTimeout, waitStrategy);
             } catch (Exception e) {
                 modelControllerClient.close();
 
@@ -461,7 +729,7 @@ public final class OnlineOptions {
         }
 
         try {
-            connectAndWaitUntilServerBoots(modelControllerClient, connectionTimeout, bootTimeout);
+            connectAndWaitUntilServerBoots(modelControllerClient, connectionTimeout, bootTimeout, waitStrategy);
         } catch (Exception e) {
             modelControllerClient.close();
 
@@ -478,24 +746,27 @@ public final class OnlineOptions {
     }
 
     private static void connectAndWaitUntilServerBoots(ModelControllerClient client, int connectionTimeoutInMillis,
-                                                       int bootTimeoutInMillis)
+                                                       int bootTimeoutInMillis, WaitStrategy waitStrategy)
             throws IOException, InterruptedException, TimeoutException {
         ModelNode op = new ModelNode();
         op.get(Constants.OP).set(Constants.WHOAMI);
         op.get(Constants.OP_ADDR).setEmptyList();
 
         long endTime = System.currentTimeMillis() + connectionTimeoutInMillis;
+        int failedAttempts = 0;
         while (System.currentTimeMillis() < endTime) {
             try {
                 client.execute(op);
                 break;
             } catch (IOException e) {
                 // server is probably not up yet, keep waiting
-                Thread.sleep(100);
+                failedAttempts++;
+                waitStrategy.await(failedAttempts, endTime);
             }
         }
 
         endTime = System.currentTimeMillis() + bootTimeoutInMillis;
+        failedAttempts = 0;
         while (System.currentTimeMillis() < endTime) {
             ModelNodeResult result = new ModelNodeResult(client.execute(op));
 
@@ -514,7 +785,8 @@ public final class OnlineOptions {
             }
 
             if (stillBooting) {
-                Thread.sleep(100);
+                failedAttempts++;
+                waitStrategy.await(failedAttempts, endTime);
             } else {
                 // shouldn't happen
                 throw new IllegalStateException("Unknown server state: " + failureDescription);
@@ -538,6 +810,11 @@ public final class OnlineOptions {
             protected OnlineManagementClient createLazy(OnlineOptions options) {
                 return new LazyOnlineManagementClient(options);
             }
+
+            @Override
+            protected OnlineManagementClient createConcurrent(OnlineOptions options) throws IOException {
+                return new ConcurrentOnlineManagementClient(options);
+            }
         });
     }
 }
@@ -6,15 +6,75 @@ import org.wildfly.extras.creaper.core.ManagementVersionPart;
 import org.wildfly.extras.creaper.core.ServerVersion;
 
 import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 final class OnlineServerVersion {
     private OnlineServerVersion() {} // avoid instantiation
 
+    private static final ManagementVersionPart[] PARTS = {
+            ManagementVersionPart.MAJOR,
+            ManagementVersionPart.MINOR,
+            ManagementVersionPart.MICRO
+    };
+
+    // host:port -> version; see OnlineOptions.OptionalOnlineOptions.serverVersionCache
+    private static final ConcurrentMap<String, CachedVersion> cache = new ConcurrentHashMap<String, CachedVersion>();
+
+    /**
+     * Returns the management version of the server which the {@code client} is connected to. If the server version
+     * cache is enabled in the {@code options} and the version of the server is in the cache, no management operation
+     * is performed at all.
+     * @throws IOException if an I/O error occurs during any management operation
+     */
+    static ServerVersion discover(ModelControllerClient client, OnlineOptions options) throws IOException {
+        if (options.serverVersionCacheTtl <= 0 || options.isWrappedClient) {
+            return discover(client);
+        }
+
+        String key = options.host + ":" + options.port;
+        CachedVersion cached = cache.get(key);
+        if (cached != null && !cached.isExpired()) {
+            return cached.version;
+        }
+
+        ServerVersion version = discover(client);
+        cache.put(key, new CachedVersion(version, options.serverVersionCacheTtl));
+        return version;
+    }
+
     /**
      * Returns the management version of the server which the {@code client} is connected to.
      * @throws IOException if an I/O error occurs during any management operation
      */
     static ServerVersion discover(ModelControllerClient client) throws IOException {
+        ModelNode op = new ModelNode();
+        op.get(Constants.OP).set(Constants.COMPOSITE);
+        op.get(Constants.OP_ADDR).setEmptyList();
+        for (ManagementVersionPart part : PARTS) {
+            ModelNode step = op.get(Constants.STEPS).add();
+            step.get(Constants.OP).set(Constants.READ_ATTRIBUTE_OPERATION);
+            step.get(Constants.OP_ADDR).setEmptyList();
+            step.get(Constants.NAME).set(part.attributeName());
+        }
+
+        ModelNodeResult result = new ModelNodeResult(client.execute(op));
+        if (!result.isSuccess()) {
+            // old servers don't have some of the attributes, which makes the whole composite fail
+            return discoverUsingReadResource(client);
+        }
+
+        ModelNode stepResults = result.get(Constants.RESULT);
+        int[] values = new int[PARTS.length];
+        for (int i = 0; i < PARTS.length; i++) {
+            ModelNode stepResult = stepResults.get("step-" + (i + 1)).get(Constants.RESULT);
+            values[i] = stepResult.isDefined() ? stepResult.asInt() : 0;
+        }
+        return ServerVersion.from(values[0], values[1], values[2]);
+    }
+
+    private static ServerVersion discoverUsingReadResource(ModelControllerClient client) throws IOException {
         ModelNode op = new ModelNode();
         op.get(Constants.OP).set(Constants.READ_RESOURCE_OPERATION);
         op.get(Constants.OP_ADDR).setEmptyList();
@@ -40,4 +100,23 @@ final class OnlineServerVersion {
             return 0;
         }
     }
+
+    // for testing
+    static void clearCache() {
+        cache.clear();
+    }
+
+    private static final class CachedVersion {
+        final ServerVersion version;
+        final long expiresAt;
+
+        CachedVersion(ServerVersion version, int ttlInMillis) {
+            this.version = version;
+            this.expiresAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlInMillis);
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - expiresAt >= 0;
+        }
+    }
 }
@@ -0,0 +1,32 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+
+/**
+ * <p>Gets notified about each management operation that an {@link OnlineManagementClient} sends to the server.
+ * Use {@link OnlineOptions.OptionalOnlineOptions#operationListener(OperationListener)} to register a listener.
+ * Each client also has a built-in listener that logs the operations on the {@code DEBUG} level.</p>
+ *
+ * <p>Listeners are called on the thread that executes the operation, so they should be fast and they must be
+ * thread-safe if they are registered to a client that is used from multiple threads. Any expensive work, such as
+ * converting the operation to a string, should only be done if the listener actually needs it.
+ * A listener must not throw exceptions and must not modify the operation or the result.</p>
+ *
+ * <p>Operations in the CLI syntax that are performed using {@link OnlineManagementClient#executeCli(String)} and
+ * results served from the {@link OnlineOptions.OptionalOnlineOptions#readCache(int) read cache} are not reported.
+ * For operations performed {@link OnlineManagementClient#executeAsync(ModelNode) asynchronously},
+ * {@link #afterExecute(ModelNode, ModelNodeResult, Throwable, long) afterExecute} is called when the result is first
+ * obtained from the {@code Future}, so the duration also includes the time before the caller asked for it.</p>
+ */
+public interface OperationListener {
+    /** Called right before the {@code operation} is sent to the server. */
+    void beforeExecute(ModelNode operation);
+
+    /**
+     * Called after the {@code operation} was executed. If the server responded, {@code result} is the response
+     * (which can still be a failure, see {@link ModelNodeResult#isFailed()}) and {@code failure} is {@code null}.
+     * If the operation couldn't be executed at all (e.g. because of a connection problem), {@code result} is
+     * {@code null} and {@code failure} is the exception that was thrown to the caller.
+     */
+    void afterExecute(ModelNode operation, ModelNodeResult result, Throwable failure, long durationInNanos);
+}
@@ -0,0 +1,29 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+
+import java.util.List;
+
+/** Notifies all {@link OperationListener}s of a client, see {@code OnlineOptions.operationListener}. */
+final class OperationListeners {
+    private final OperationListener[] listeners;
+
+    OperationListeners(List<OperationListener> listeners) {
+        this.listeners = listeners.toArray(new OperationListener[listeners.size()]);
+    }
+
+    /** Returns the start time that must be passed to {@link #afterExecute afterExecute}. */
+    long beforeExecute(ModelNode operation) {
+        for (OperationListener listener : listeners) {
+            listener.beforeExecute(operation);
+        }
+        return System.nanoTime();
+    }
+
+    void afterExecute(ModelNode operation, ModelNodeResult result, Throwable failure, long startNanos) {
+        long duration = System.nanoTime() - startNanos;
+        for (OperationListener listener : listeners) {
+            listener.afterExecute(operation, result, failure, duration);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package org.wildfly.extras.creaper.core.online;
+
+import com.google.common.cache.CacheStats;
+import org.jboss.as.controller.client.Operation;
+import org.jboss.dmr.ModelNode;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+import org.wildfly.extras.creaper.core.ServerVersion;
+
+import java.io.IOException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A client leased from {@link OnlineManagementClientPool}. Closing it returns the underlying client to the pool.
+ * If an I/O error or a failed reconnect was observed, the underlying client is closed and removed from the pool
+ * instead.
+ */
+final class PooledOnlineManagementClient implements OnlineManagementClient {
+    private final OnlineManagementClientPool pool;
+    private final OnlineManagementClientPool.KeyedClients keyedClients;
+    private final OnlineManagementClient delegate;
+
+    private boolean broken;
+    private ThisIsWhereTheClientWasClosed closedAt; // != null <=> already returned to the pool
+
+    PooledOnlineManagementClient(OnlineManagementClientPool pool, OnlineManagementClientPool.KeyedClients keyedClients,
+                                 OnlineManagementClient delegate) {
+        this.pool = pool;
+        this.keyedClients = keyedClients;
+        this.delegate = delegate;
+    }
+
+    private void checkClosed() {
+        if (closedAt != null) {
+            throw new ClientAlreadyClosedException(closedAt);
+        }
+    }
+
+    @Override
+    public OnlineOptions options() {
+        return delegate.options();
+    }
+
+    @Override
+    public ServerVersion version() throws IOException {
+        checkClosed();
+        try {
+            return delegate.version();
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        }
+    }
+
+    @Override
+    public void apply(OnlineCommand... commands) throws CommandFailedException {
+        checkClosed();
+        delegate.apply(commands);
+    }
+
+    @Override
+    public void apply(Iterable<OnlineCommand> commands) throws CommandFailedException {
+        checkClosed();
+        delegate.apply(commands);
+    }
+
+    @Override
+    public ModelNodeResult execute(ModelNode operation) throws IOException {
+        checkClosed();
+        try {
+            return delegate.execute(operation);
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        }
+    }
+
+    @Override
+    public ModelNodeResult execute(Operation operation) throws IOException {
+        checkClosed();
+        try {
+            return delegate.execute(operation);
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        }
+    }
+
+    @Override
+    public ModelNodeResult execute(String operation) throws CliException, IOException {
+        checkClosed();
+        try {
+            return delegate.execute(operation);
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        }
+    }
+
+    @Override
+    public Future<ModelNodeResult> executeAsync(ModelNode operation) throws IOException {
+        checkClosed();
+        try {
+            return delegate.executeAsync(operation);
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        }
+    }
+
+    @Override
+    public void executeCli(String cliOperation) throws CliException, IOException {
+        checkClosed();
+        try {
+            delegate.executeCli(cliOperation);
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        }
+    }
+
+    @Override
+    public ModelNode parseCli(String operation) throws CliException, IOException {
+        checkClosed();
+        return delegate.parseCli(operation);
+    }
+
+    @Override
+    public void reconnect(int timeoutInSeconds) throws TimeoutException, InterruptedException {
+        checkClosed();
+        boolean success = false;
+        try {
+            delegate.reconnect(timeoutInSeconds);
+            success = true;
+        } finally {
+            if (!success) {
+                broken = true;
+            }
+        }
+    }
+
+    @Override
+    public FailuresAllowedBlock allowFailures() throws IOException {
+        checkClosed();
+        return delegate.allowFailures();
+    }
+
+    @Override
+    public CacheStats readCacheStats() {
+        checkClosed();
+        return delegate.readCacheStats();
+    }
+
+    /** Returns the underlying client to the pool. Calling this method more than once has no effect. */
+    @Override
+    public void close() {
+        if (closedAt != null) {
+            return;
+        }
+        closedAt = new ThisIsWhereTheClientWasClosed();
+        pool.release(keyedClients, delegate, broken);
+    }
+}
@@ -0,0 +1,197 @@
+package org.wildfly.extras.creaper.core.online;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.Property;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches results of operations that read the management model, see {@code OnlineOptions.readCache}.
+ * Thread-safe, because {@link ConcurrentOnlineManagementClient} performs operations concurrently.
+ */
+final class ReadCache {
+    static final CacheStats NO_STATS = new CacheStats(0, 0, 0, 0, 0, 0);
+
+    private static final Set<String> CACHED_OPERATIONS = new HashSet<String>(Arrays.asList(
+            Constants.READ_ATTRIBUTE_OPERATION,
+            Constants.READ_RESOURCE_OPERATION,
+            Constants.READ_CHILDREN_NAMES_OPERATION
+    ));
+
+    /**
+     * Attributes that reflect the runtime state of a server or host; waiting for a reload or restart polls them,
+     * so their values must always be read from the server. Runtime attributes aren't distinguished from
+     * configuration attributes in {@code read-attribute}, unlike {@code read-resource(include-runtime)}.
+     */
+    private static final Set<String> RUNTIME_ATTRIBUTES = new HashSet<String>(Arrays.asList(
+            Constants.SERVER_STATE,
+            Constants.HOST_STATE,
+            Constants.PROCESS_STATE,
+            "runtime-configuration-state",
+            "running-mode",
+            "suspend-state",
+            "status"
+    ));
+
+    private static final Set<String> NON_MODIFYING_OPERATIONS = new HashSet<String>(Arrays.asList(
+            Constants.WHOAMI,
+            "query",
+            "resolve-expression",
+            "validate-address",
+            "validate-operation"
+    ));
+
+    private final Cache<Key, ModelNode> cache;
+    /** Incremented on each invalidation, so that a read that raced with a write doesn't store a stale result. */
+    private final AtomicLong generation = new AtomicLong();
+
+    ReadCache(int maxEntries) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build();
+    }
+
+    static boolean isCacheable(ModelNode operation) {
+        String name = operation.get(Constants.OP).asString();
+        if (!CACHED_OPERATIONS.contains(name)) {
+            return false;
+        }
+        if (operation.hasDefined(Constants.INCLUDE_RUNTIME) && operation.get(Constants.INCLUDE_RUNTIME).asBoolean()) {
+            return false;
+        }
+        return !(Constants.READ_ATTRIBUTE_OPERATION.equals(name) && operation.hasDefined(Constants.NAME)
+                && RUNTIME_ATTRIBUTES.contains(operation.get(Constants.NAME).asString()));
+    }
+
+    static boolean isModifying(ModelNode operation) {
+        String name = operation.get(Constants.OP).asString();
+        if (Constants.COMPOSITE.equals(name)) {
+            for (ModelNode step : operation.get(Constants.STEPS).asList()) {
+                if (isModifying(step)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return !name.startsWith("read-") && !NON_MODIFYING_OPERATIONS.contains(name);
+    }
+
+    long generation() {
+        return generation.get();
+    }
+
+    /** Returns a copy of the cached result or {@code null}; the {@code operation} must be cacheable. */
+    ModelNode get(ModelNode operation) {
+        ModelNode result = cache.getIfPresent(new Key(operation));
+        return result != null ? result.clone() : null;
+    }
+
+    /**
+     * Stores a copy of the result of a cacheable {@code operation}, unless some invalidation happened since
+     * {@code expectedGeneration} was obtained. Failed results are never stored, the failure can be transient
+     * (e.g. when the server is booting).
+     */
+    void put(ModelNode operation, ModelNode result, long expectedGeneration) {
+        if (!result.hasDefined(Constants.OUTCOME)
+                || !Constants.SUCCESS.equals(result.get(Constants.OUTCOME).asString())) {
+            return;
+        }
+
+        Key key = new Key(operation.clone());
+        cache.put(key, result.clone());
+        if (generation.get() != expectedGeneration) {
+            cache.invalidate(key);
+        }
+    }
+
+    /** Invalidates all results that can be affected by the {@code operation}, if it modifies the model. */
+    void invalidate(ModelNode operation) {
+        if (!isModifying(operation)) {
+            return;
+        }
+
+        generation.incrementAndGet();
+        List<List<String>> addresses = new ArrayList<List<String>>();
+        collectAddresses(operation, addresses);
+
+        Iterator<Key> keys = cache.asMap().keySet().iterator();
+        while (keys.hasNext()) {
+            List<String> cachedAddress = keys.next().address;
+            for (List<String> address : addresses) {
+                if (isPrefix(address, cachedAddress) || isPrefix(cachedAddress, address)) {
+                    keys.remove();
+                    break;
+                }
+            }
+        }
+    }
+
+    void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static void collectAddresses(ModelNode operation, List<List<String>> addresses) {
+        if (Constants.COMPOSITE.equals(operation.get(Constants.OP).asString())) {
+            for (ModelNode step : operation.get(Constants.STEPS).asList()) {
+                if (isModifying(step)) {
+                    collectAddresses(step, addresses);
+                }
+            }
+        } else {
+            addresses.add(address(operation));
+        }
+    }
+
+    private static List<String> address(ModelNode operation) {
+        if (!operation.hasDefined(Constants.OP_ADDR)) { // don't use get, it would modify the operation
+            return Collections.emptyList();
+        }
+
+        List<String> result = new ArrayList<String>();
+        for (ModelNode segment : operation.get(Constants.OP_ADDR).asList()) {
+            Property property = segment.asProperty();
+            result.add(property.getName() + "=" + property.getValue().asString());
+        }
+        return result;
+    }
+
+    private static boolean isPrefix(List<String> prefix, List<String> address) {
+        return prefix.size() <= address.size() && prefix.equals(address.subList(0, prefix.size()));
+    }
+
+    private static final class Key {
+        private final ModelNode operation;
+        private final List<String> address;
+
+        Key(ModelNode operation) {
+            this.operation = operation;
+            this.address = address(operation);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && operation.equals(((Key) o).operation);
+        }
+
+        @Override
+        public int hashCode() {
+            return operation.hashCode();
+        }
+    }
+}
@@ -6,6 +6,8 @@ final class RuntimeCommandFailedException extends RuntimeException {
     final CommandFailedException original;
 
     RuntimeCommandFailedException(CommandFailedException original) {
+        // the original is also the cause, so that code outside of this package can get to it
+        super(original);
         this.original = original;
     }
 
@@ -0,0 +1,102 @@
+package org.wildfly.extras.creaper.core.online;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Determines how long to wait between repeated attempts when waiting for the server: when connecting to a server
+ * that is still booting, when reconnecting after reload or restart and when waiting for the server to be running
+ * (see {@link org.wildfly.extras.creaper.core.online.operations.admin.Administration Administration}).</p>
+ *
+ * <p>The default strategy is an {@link #exponentialBackoff(long, long, TimeUnit) exponential backoff} from 50 ms
+ * to 1 second. Use {@link OnlineOptions.OptionalOnlineOptions#waitStrategy(WaitStrategy)} to change it.</p>
+ */
+public abstract class WaitStrategy {
+    public static final WaitStrategy DEFAULT = exponentialBackoff(50, 1000, TimeUnit.MILLISECONDS);
+
+    /**
+     * Returns how long to wait (in milliseconds) before the next attempt, when {@code failedAttempts} attempts
+     * (at least 1) were already unsuccessful.
+     */
+    public abstract long delayInMillis(int failedAttempts);
+
+    /**
+     * Waits before the next attempt as determined by {@link #delayInMillis(int)}, but never longer than
+     * until {@code endTimeMillis} (as measured by {@link System#currentTimeMillis()}).
+     */
+    public final void await(int failedAttempts, long endTimeMillis) throws InterruptedException {
+        long delay = Math.min(delayInMillis(failedAttempts), endTimeMillis - System.currentTimeMillis());
+        if (delay > 0) {
+            Thread.sleep(delay);
+        }
+    }
+
+    /** Always waits for the same time. This is how Creaper used to behave. */
+    public static WaitStrategy fixed(long delay, TimeUnit unit) {
+        if (delay < 0) {
+            throw new IllegalArgumentException("Delay must not be negative");
+        }
+        return new Fixed(unit.toMillis(delay));
+    }
+
+    /**
+     * Waits for {@code initialDelay} after the first unsuccessful attempt and then doubles the wait time after each
+     * unsuccessful attempt up to {@code maxDelay}. To avoid a lot of clients polling a server at the same moment,
+     * a random jitter is applied: the actual wait time is between 50 % and 100 % of the computed wait time.
+     */
+    public static WaitStrategy exponentialBackoff(long initialDelay, long maxDelay, TimeUnit unit) {
+        if (initialDelay <= 0) {
+            throw new IllegalArgumentException("Initial delay must be positive");
+        }
+        if (maxDelay < initialDelay) {
+            throw new IllegalArgumentException("Maximum delay must not be smaller than initial delay");
+        }
+        return new ExponentialBackoff(unit.toMillis(initialDelay), unit.toMillis(maxDelay));
+    }
+
+    private static final class Fixed extends WaitStrategy {
+        private final long delay;
+
+        Fixed(long delay) {
+            this.delay = delay;
+        }
+
+        @Override
+        public long delayInMillis(int failedAttempts) {
+            return delay;
+        }
+
+        @Override
+        public String toString() {
+            return "WaitStrategy.fixed(" + delay + " ms)";
+        }
+    }
+
+    private static final class ExponentialBackoff extends WaitStrategy {
+        private static final Random random = new Random(); // thread-safe
+
+        private final long initialDelay;
+        private final long maxDelay;
+
+        ExponentialBackoff(long initialDelay, long maxDelay) {
+            this.initialDelay = initialDelay;
+            this.maxDelay = maxDelay;
+        }
+
+        @Override
+        public long delayInMillis(int failedAttempts) {
+            long delay = initialDelay;
+            for (int i = 1; i < failedAttempts && delay < maxDelay; i++) {
+                delay *= 2;
+            }
+            delay = Math.min(delay, maxDelay);
+
+            return delay / 2 + (long) (random.nextDouble() * (delay - delay / 2));
+        }
+
+        @Override
+        public String toString() {
+            return "WaitStrategy.exponentialBackoff(" + initialDelay + " ms .. " + maxDelay + " ms)";
+        }
+    }
+}
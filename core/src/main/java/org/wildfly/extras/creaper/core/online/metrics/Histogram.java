@@ -0,0 +1,57 @@
+package org.wildfly.extras.creaper.core.online.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of non-negative values with power-of-two buckets: bucket {@code 0} counts zeros and bucket
+ * {@code i > 0} counts values in the interval {@code [2^(i-1), 2^i)}. Precise enough for latencies and sizes,
+ * while recording a value is just a few atomic increments.
+ */
+final class Histogram {
+    static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+
+        // min and max first, so that a snapshot that sees the value in a bucket also sees correct min and max
+        long currentMin = min.get();
+        while (value < currentMin && !min.compareAndSet(currentMin, value)) {
+            currentMin = min.get();
+        }
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+
+        sum.addAndGet(value);
+        buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(value));
+    }
+
+    /** The snapshot isn't atomic, values recorded concurrently may or may not be included. */
+    HistogramSnapshot snapshot() {
+        long[] bucketCounts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            bucketCounts[i] = buckets.get(i);
+            total += bucketCounts[i];
+        }
+
+        if (total == 0) {
+            return HistogramSnapshot.EMPTY;
+        }
+        return new HistogramSnapshot(total, sum.get(), min.get(), max.get(), bucketCounts);
+    }
+
+    /** The largest value that falls into given bucket. */
+    static long bucketUpperBound(int bucket) {
+        return bucket == 0 ? 0 : (1L << bucket) - 1;
+    }
+}
@@ -0,0 +1,78 @@
+package org.wildfly.extras.creaper.core.online.metrics;
+
+/**
+ * Immutable state of a histogram of recorded values (durations or sizes; the unit is documented where
+ * the snapshot is obtained). Percentiles are approximate: values are recorded in power-of-two buckets,
+ * so a percentile is the upper bound of the corresponding bucket (but never more than {@link #max()}).
+ */
+public final class HistogramSnapshot {
+    static final HistogramSnapshot EMPTY = new HistogramSnapshot(0, 0, 0, 0, new long[Histogram.BUCKETS]);
+
+    private final long count;
+    private final long sum;
+    private final long min;
+    private final long max;
+    private final long[] buckets;
+
+    HistogramSnapshot(long count, long sum, long min, long max, long[] buckets) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        this.buckets = buckets;
+    }
+
+    /** Number of recorded values. */
+    public long count() {
+        return count;
+    }
+
+    /** Sum of all recorded values. */
+    public long sum() {
+        return sum;
+    }
+
+    /** The smallest recorded value, or {@code 0} if nothing was recorded. */
+    public long min() {
+        return min;
+    }
+
+    /** The largest recorded value, or {@code 0} if nothing was recorded. */
+    public long max() {
+        return max;
+    }
+
+    /** Arithmetic mean of the recorded values, or {@code 0} if nothing was recorded. */
+    public double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Approximate percentile of the recorded values, or {@code 0} if nothing was recorded.
+     * @param percentile a number between {@code 0} and {@code 100}, e.g. {@code 99} for the 99th percentile
+     */
+    public long percentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(Histogram.bucketUpperBound(i), max));
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "count " + count + ", mean " + String.format("%.1f", mean()) + ", min " + min + ", p50 "
+                + percentile(50) + ", p99 " + percentile(99) + ", max " + max;
+    }
+}
@@ -0,0 +1,226 @@
+package org.wildfly.extras.creaper.core.online.metrics;
+
+import com.google.common.io.ByteStreams;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.Property;
+import org.wildfly.extras.creaper.core.online.ClientInstrumentation;
+import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.OnlineCommand;
+
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * <p>A {@link ClientInstrumentation} that collects metrics in memory: latencies, response sizes and failures
+ * of management operations, durations and failures of commands, durations of reloads and restarts and number of
+ * reconnect attempts. Register it using {@code OnlineOptions.instrumentation}; a single registry can be shared
+ * by any number of clients, even if they are used from multiple threads. Use {@link #snapshot()} to get
+ * the collected metrics and optionally {@link #registerMBean(ObjectName)} to expose them over JMX.</p>
+ *
+ * <p>Operations are grouped by the operation name and the address pattern. In the pattern, names of subsystems
+ * and core services are kept and all other values are replaced by {@code *}, so that e.g. reading an attribute
+ * of any datasource is reported under the key {@code read-attribute /subsystem=datasources/data-source=*}.
+ * Composite operations are reported as a whole under the key {@code composite /}.</p>
+ *
+ * <p>Recording is lock-free. Response sizes are only recorded if enabled in the constructor, because measuring
+ * the size requires serializing each response, which is much more expensive than recording the other metrics.</p>
+ */
+public final class MetricsRegistry extends ClientInstrumentation {
+    private static final Set<String> ADDRESS_TYPES_WITH_KEPT_VALUES = new HashSet<String>(Arrays.asList(
+            Constants.SUBSYSTEM,
+            Constants.CORE_SERVICE
+    ));
+
+    private final boolean recordResponseSizes;
+    private volatile Metrics metrics = new Metrics();
+
+    /** Creates a registry that doesn't record response sizes. */
+    public MetricsRegistry() {
+        this(false);
+    }
+
+    /**
+     * @param recordResponseSizes whether sizes of responses should be recorded (see
+     * {@link MetricsSnapshot#responseSizes()}); each response is serialized to measure its size
+     */
+    public MetricsRegistry(boolean recordResponseSizes) {
+        this.recordResponseSizes = recordResponseSizes;
+    }
+
+    @Override
+    public void afterExecute(ModelNode operation, ModelNodeResult result, Throwable failure, long durationInNanos) {
+        Metrics current = metrics;
+        String key = operationKey(operation);
+        histogram(current.operationLatencies, key).record(durationInNanos);
+        if (result != null && recordResponseSizes) {
+            histogram(current.responseSizes, key).record(sizeOf(result));
+        }
+        if (result == null || result.isFailed()) {
+            counter(current.operationFailures, key).incrementAndGet();
+        }
+    }
+
+    @Override
+    public void commandApplied(OnlineCommand command, long durationInNanos, boolean succeeded) {
+        Metrics current = metrics;
+        String key = command.getClass().getName();
+        histogram(current.commandDurations, key).record(durationInNanos);
+        if (!succeeded) {
+            counter(current.commandFailures, key).incrementAndGet();
+        }
+    }
+
+    @Override
+    public void reconnectAttempted(boolean succeeded) {
+        Metrics current = metrics;
+        current.reconnectAttempts.incrementAndGet();
+        if (!succeeded) {
+            current.failedReconnectAttempts.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void reloadFinished(long durationInMillis) {
+        metrics.reloadDurations.record(durationInMillis);
+    }
+
+    @Override
+    public void restartFinished(long durationInMillis) {
+        metrics.restartDurations.record(durationInMillis);
+    }
+
+    /** Returns the metrics collected since this registry was created or last {@link #reset()}. */
+    public MetricsSnapshot snapshot() {
+        Metrics current = metrics;
+        return new MetricsSnapshot(
+                snapshotHistograms(current.operationLatencies),
+                snapshotHistograms(current.responseSizes),
+                snapshotCounters(current.operationFailures),
+                snapshotHistograms(current.commandDurations),
+                snapshotCounters(current.commandFailures),
+                current.reloadDurations.snapshot(),
+                current.restartDurations.snapshot(),
+                current.reconnectAttempts.get(),
+                current.failedReconnectAttempts.get()
+        );
+    }
+
+    /** Discards all collected metrics. */
+    public void reset() {
+        metrics = new Metrics();
+    }
+
+    /** Exposes the metrics as an MXBean (see {@link MetricsRegistryMXBean}) in the platform MBean server. */
+    public void registerMBean(ObjectName name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(
+                new StandardMBean(new MetricsRegistryJmx(this), MetricsRegistryMXBean.class, true), name);
+    }
+
+    /** Removes the MXBean previously registered using {@link #registerMBean(ObjectName)}. */
+    public void unregisterMBean(ObjectName name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+    }
+
+    // ---
+
+    static String operationKey(ModelNode operation) {
+        String name = operation.hasDefined(Constants.OP) ? operation.get(Constants.OP).asString() : "?";
+        List<ModelNode> address = operation.hasDefined(Constants.OP_ADDR)
+                ? operation.get(Constants.OP_ADDR).asList() : Collections.<ModelNode>emptyList();
+        if (address.isEmpty()) {
+            return name + " /";
+        }
+
+        StringBuilder key = new StringBuilder(name).append(' ');
+        for (ModelNode segment : address) {
+            Property property = segment.asProperty();
+            key.append('/').append(property.getName()).append('=');
+            if (ADDRESS_TYPES_WITH_KEPT_VALUES.contains(property.getName())) {
+                key.append(property.getValue().asString());
+            } else {
+                key.append('*');
+            }
+        }
+        return key.toString();
+    }
+
+    /** Size of the {@code node} in the binary DMR encoding. */
+    private static long sizeOf(ModelNode node) {
+        DataOutputStream output = new DataOutputStream(ByteStreams.nullOutputStream());
+        try {
+            node.writeExternal((DataOutput) output);
+        } catch (IOException e) {
+            return 0; // can't happen, the stream discards everything
+        }
+        return output.size();
+    }
+
+    private static Histogram histogram(ConcurrentMap<String, Histogram> histograms, String key) {
+        Histogram histogram = histograms.get(key);
+        if (histogram == null) {
+            Histogram newHistogram = new Histogram();
+            histogram = histograms.putIfAbsent(key, newHistogram);
+            if (histogram == null) {
+                histogram = newHistogram;
+            }
+        }
+        return histogram;
+    }
+
+    private static AtomicLong counter(ConcurrentMap<String, AtomicLong> counters, String key) {
+        AtomicLong counter = counters.get(key);
+        if (counter == null) {
+            AtomicLong newCounter = new AtomicLong();
+            counter = counters.putIfAbsent(key, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        return counter;
+    }
+
+    private static Map<String, HistogramSnapshot> snapshotHistograms(Map<String, Histogram> histograms) {
+        Map<String, HistogramSnapshot> result = new TreeMap<String, HistogramSnapshot>();
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return result;
+    }
+
+    private static Map<String, Long> snapshotCounters(Map<String, AtomicLong> counters) {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().get());
+        }
+        return result;
+    }
+
+    /** All the metrics, so that {@link #reset()} can replace them at once. */
+    private static final class Metrics {
+        final ConcurrentMap<String, Histogram> operationLatencies = new ConcurrentHashMap<String, Histogram>();
+        final ConcurrentMap<String, Histogram> responseSizes = new ConcurrentHashMap<String, Histogram>();
+        final ConcurrentMap<String, AtomicLong> operationFailures = new ConcurrentHashMap<String, AtomicLong>();
+        final ConcurrentMap<String, Histogram> commandDurations = new ConcurrentHashMap<String, Histogram>();
+        final ConcurrentMap<String, AtomicLong> commandFailures = new ConcurrentHashMap<String, AtomicLong>();
+        final Histogram reloadDurations = new Histogram();
+        final Histogram restartDurations = new Histogram();
+        final AtomicLong reconnectAttempts = new AtomicLong();
+        final AtomicLong failedReconnectAttempts = new AtomicLong();
+    }
+}
@@ -0,0 +1,92 @@
+package org.wildfly.extras.creaper.core.online.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+final class MetricsRegistryJmx implements MetricsRegistryMXBean {
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final MetricsRegistry registry;
+
+    MetricsRegistryJmx(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public long getOperationCount() {
+        return registry.snapshot().operationCount();
+    }
+
+    @Override
+    public long getFailedOperationCount() {
+        return registry.snapshot().failedOperationCount();
+    }
+
+    @Override
+    public Map<String, Long> getOperationCounts() {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        for (Map.Entry<String, HistogramSnapshot> entry : registry.snapshot().operationLatencies().entrySet()) {
+            result.put(entry.getKey(), entry.getValue().count());
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getOperationFailures() {
+        return new TreeMap<String, Long>(registry.snapshot().operationFailures());
+    }
+
+    @Override
+    public Map<String, Double> getOperationMeanLatenciesMillis() {
+        Map<String, Double> result = new TreeMap<String, Double>();
+        for (Map.Entry<String, HistogramSnapshot> entry : registry.snapshot().operationLatencies().entrySet()) {
+            result.put(entry.getKey(), entry.getValue().mean() / NANOS_PER_MILLI);
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Double> getOperationP99LatenciesMillis() {
+        Map<String, Double> result = new TreeMap<String, Double>();
+        for (Map.Entry<String, HistogramSnapshot> entry : registry.snapshot().operationLatencies().entrySet()) {
+            result.put(entry.getKey(), entry.getValue().percentile(99) / NANOS_PER_MILLI);
+        }
+        return result;
+    }
+
+    @Override
+    public long getReloadCount() {
+        return registry.snapshot().reloadDurations().count();
+    }
+
+    @Override
+    public double getReloadMeanMillis() {
+        return registry.snapshot().reloadDurations().mean();
+    }
+
+    @Override
+    public long getRestartCount() {
+        return registry.snapshot().restartDurations().count();
+    }
+
+    @Override
+    public double getRestartMeanMillis() {
+        return registry.snapshot().restartDurations().mean();
+    }
+
+    @Override
+    public long getReconnectAttempts() {
+        return registry.snapshot().reconnectAttempts();
+    }
+
+    @Override
+    public long getFailedReconnectAttempts() {
+        return registry.snapshot().failedReconnectAttempts();
+    }
+
+    @Override
+    public void reset() {
+        registry.reset();
+    }
+}
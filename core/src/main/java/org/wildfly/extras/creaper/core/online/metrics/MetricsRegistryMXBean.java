@@ -0,0 +1,41 @@
+package org.wildfly.extras.creaper.core.online.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of a {@link MetricsRegistry}, see {@link MetricsRegistry#registerMBean(javax.management.ObjectName)}.
+ * Each attribute is computed from a fresh {@link MetricsRegistry#snapshot() snapshot}. Operations are identified
+ * by the same keys as in {@link MetricsSnapshot}.
+ */
+public interface MetricsRegistryMXBean {
+    long getOperationCount();
+
+    long getFailedOperationCount();
+
+    /** Operation key -> number of operations. */
+    Map<String, Long> getOperationCounts();
+
+    /** Operation key -> number of failed operations. */
+    Map<String, Long> getOperationFailures();
+
+    /** Operation key -> mean latency in milliseconds. */
+    Map<String, Double> getOperationMeanLatenciesMillis();
+
+    /** Operation key -> approximate 99th percentile of latency in milliseconds. */
+    Map<String, Double> getOperationP99LatenciesMillis();
+
+    long getReloadCount();
+
+    double getReloadMeanMillis();
+
+    long getRestartCount();
+
+    double getRestartMeanMillis();
+
+    long getReconnectAttempts();
+
+    long getFailedReconnectAttempts();
+
+    /** Discards all collected metrics. */
+    void reset();
+}
@@ -0,0 +1,125 @@
+package org.wildfly.extras.creaper.core.online.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Immutable state of a {@link MetricsRegistry} at some point in time. Operations are identified by a key
+ * that consists of the operation name and the address pattern, e.g. {@code read-attribute
+ * /subsystem=datasources/data-source=*}; see {@link MetricsRegistry} for how the pattern is created.
+ */
+public final class MetricsSnapshot {
+    private final Map<String, HistogramSnapshot> operationLatencies;
+    private final Map<String, HistogramSnapshot> responseSizes;
+    private final Map<String, Long> operationFailures;
+    private final Map<String, HistogramSnapshot> commandDurations;
+    private final Map<String, Long> commandFailures;
+    private final HistogramSnapshot reloadDurations;
+    private final HistogramSnapshot restartDurations;
+    private final long reconnectAttempts;
+    private final long failedReconnectAttempts;
+
+    MetricsSnapshot(Map<String, HistogramSnapshot> operationLatencies, Map<String, HistogramSnapshot> responseSizes,
+                    Map<String, Long> operationFailures, Map<String, HistogramSnapshot> commandDurations,
+                    Map<String, Long> commandFailures, HistogramSnapshot reloadDurations,
+                    HistogramSnapshot restartDurations, long reconnectAttempts, long failedReconnectAttempts) {
+        this.operationLatencies = Collections.unmodifiableMap(operationLatencies);
+        this.responseSizes = Collections.unmodifiableMap(responseSizes);
+        this.operationFailures = Collections.unmodifiableMap(operationFailures);
+        this.commandDurations = Collections.unmodifiableMap(commandDurations);
+        this.commandFailures = Collections.unmodifiableMap(commandFailures);
+        this.reloadDurations = reloadDurations;
+        this.restartDurations = restartDurations;
+        this.reconnectAttempts = reconnectAttempts;
+        this.failedReconnectAttempts = failedReconnectAttempts;
+    }
+
+    /** Operation key -> latencies of the operations in nanoseconds, including those that failed. */
+    public Map<String, HistogramSnapshot> operationLatencies() {
+        return operationLatencies;
+    }
+
+    /**
+     * Operation key -> sizes of the responses in bytes, as measured in the binary DMR encoding. Only responses
+     * that were received are included, not operations that failed with an exception. Empty unless recording
+     * of response sizes was enabled when creating the {@link MetricsRegistry}.
+     */
+    public Map<String, HistogramSnapshot> responseSizes() {
+        return responseSizes;
+    }
+
+    /**
+     * Operation key -> number of failed operations: those with {@code outcome => failed} and those that
+     * failed with an exception (e.g. a connection problem). Only keys with at least one failure are present.
+     */
+    public Map<String, Long> operationFailures() {
+        return operationFailures;
+    }
+
+    /** Class name of the command -> durations of applying the command in nanoseconds, including failures. */
+    public Map<String, HistogramSnapshot> commandDurations() {
+        return commandDurations;
+    }
+
+    /** Class name of the command -> number of failures. Only commands with at least one failure are present. */
+    public Map<String, Long> commandFailures() {
+        return commandFailures;
+    }
+
+    /** Durations of reloads in milliseconds, see {@code Administration.reloadWithTimings}. */
+    public HistogramSnapshot reloadDurations() {
+        return reloadDurations;
+    }
+
+    /** Durations of restarts in milliseconds, see {@code Administration.restartWithTimings}. */
+    public HistogramSnapshot restartDurations() {
+        return restartDurations;
+    }
+
+    /** Number of all attempts to reconnect, including the successful ones. */
+    public long reconnectAttempts() {
+        return reconnectAttempts;
+    }
+
+    /** Number of unsuccessful attempts to reconnect. */
+    public long failedReconnectAttempts() {
+        return failedReconnectAttempts;
+    }
+
+    /** Total number of operations. */
+    public long operationCount() {
+        long result = 0;
+        for (HistogramSnapshot latencies : operationLatencies.values()) {
+            result += latencies.count();
+        }
+        return result;
+    }
+
+    /** Total number of failed operations. */
+    public long failedOperationCount() {
+        long result = 0;
+        for (Long failures : operationFailures.values()) {
+            result += failures;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append("Operations: ").append(operationCount()).append(", failed: ").append(failedOperationCount())
+                .append('\n');
+        for (Map.Entry<String, HistogramSnapshot> entry : operationLatencies.entrySet()) {
+            result.append("  ").append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+        }
+        result.append("Commands:\n");
+        for (Map.Entry<String, HistogramSnapshot> entry : commandDurations.entrySet()) {
+            result.append("  ").append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+        }
+        result.append("Reloads: ").append(reloadDurations).append('\n');
+        result.append("Restarts: ").append(restartDurations).append('\n');
+        result.append("Reconnect attempts: ").append(reconnectAttempts).append(", failed: ")
+                .append(failedReconnectAttempts);
+        return result.toString();
+    }
+}
@@ -3,10 +3,6 @@ package org.wildfly.extras.creaper.core.online.operations;
 import org.jboss.dmr.ModelNode;
 import org.wildfly.extras.creaper.core.online.Constants;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
 /**
  * <p>An address in the management tree. It is a sequence of string pairs ({@code key=value}), possibly empty. This
  * class is immutable and its only public API consists of various ways of <i>creating</i> an address.</p>
@@ -30,10 +26,18 @@ import java.util.List;
  * {@code Address.of("foo", "bar").and("baz", "quux")}</p>
  */
 public final class Address {
-    private final List<StringPair> address;
+    private static final Address ROOT = new Address(null, null, null);
+
+    // an address is a linked list of its segments, starting with the last one, so that and(...) doesn't need to copy
+    // anything; the ModelNode form is only created when needed and then reused
+    private final Address parent; // null <=> root
+    private final String key;
+    private final String value;
+    private final int size;
+    private volatile ModelNode modelNode; // created lazily, see toModelNode()
 
     public static Address root() {
-        return new Address(Collections.<StringPair>emptyList());
+        return ROOT;
     }
 
     public static Address extension(String extension) {
@@ -57,48 +61,59 @@ public final class Address {
     }
 
     public static Address of(String key, String value) {
-        return new Address(Collections.singletonList(new StringPair(key, value)));
+        return ROOT.and(key, value);
     }
 
-    private Address(List<StringPair> address) {
-        this.address = Collections.unmodifiableList(address);
+    private Address(Address parent, String key, String value) {
+        this.parent = parent;
+        this.key = key;
+        this.value = value;
+        this.size = parent != null ? parent.size + 1 : 0;
     }
 
     public Address and(String key, String value) {
-        List<StringPair> newAddress = new ArrayList<StringPair>(this.address);
-        newAddress.add(new StringPair(key, value));
-        return new Address(newAddress);
+        return new Address(this, key, value);
     }
 
+    /**
+     * The returned {@code ModelNode} is shared by all callers and is protected against modifications
+     * (see {@link ModelNode#protect()}), so it must be copied, e.g. by {@link ModelNode#set(ModelNode)}.
+     */
     ModelNode toModelNode() {
-        ModelNode result = new ModelNode();
-        result.setEmptyList();
-        for (StringPair pair : address) {
-            result.add(pair.key, pair.value);
+        ModelNode result = modelNode;
+        if (result == null) {
+            result = new ModelNode();
+            result.setEmptyList();
+            for (Address segment : segments()) {
+                result.add(segment.key, segment.value);
+            }
+            result.protect();
+            modelNode = result;
+        }
+        return result;
+    }
+
+    /** Non-root addresses that this address consists of, from the first segment to the last one (this address). */
+    private Address[] segments() {
+        Address[] result = new Address[size];
+        Address current = this;
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = current;
+            current = current.parent;
         }
         return result;
     }
 
     @Override
     public String toString() {
-        if (address.isEmpty()) {
+        if (size == 0) {
             return "/";
         }
 
         StringBuilder result = new StringBuilder();
-        for (StringPair addressElement : address) {
-            result.append("/").append(addressElement.key).append("=").append(addressElement.value);
+        for (Address segment : segments()) {
+            result.append("/").append(segment.key).append("=").append(segment.value);
         }
         return result.toString();
     }
-
-    private static final class StringPair {
-        private final String key;
-        private final String value;
-
-        private StringPair(String key, String value) {
-            this.key = key;
-            this.value = value;
-        }
-    }
 }
@@ -0,0 +1,94 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.FailuresAllowedBlock;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Operations buffered by an {@link Operations#autoBatching() auto-batching} {@code Operations} object, together
+ * with the results that were handed out for them. The results are filled in when the buffer is flushed.
+ */
+final class AutoBatch {
+    private Batch batch = new Batch();
+    private List<ModelNodeResult> pendingResults = new ArrayList<ModelNodeResult>();
+
+    ModelNodeResult add(ModelNode operation) {
+        batch.operation(operation);
+        ModelNodeResult pendingResult = new ModelNodeResult(new ModelNode());
+        pendingResults.add(pendingResult);
+        return pendingResult;
+    }
+
+    boolean isEmpty() {
+        return batch.size() == 0;
+    }
+
+    void flush(OnlineManagementClient client) throws IOException {
+        if (isEmpty()) {
+            return;
+        }
+
+        // reset first, so that the buffer is consistent even if the execution fails
+        Batch flushed = batch;
+        List<ModelNodeResult> results = pendingResults;
+        batch = new Batch();
+        pendingResults = new ArrayList<ModelNodeResult>();
+
+        ModelNodeResult result;
+        FailuresAllowedBlock allowFailures = client.allowFailures();
+        try {
+            if (flushed.size() == 1) {
+                result = client.execute(flushed.operation(0));
+            } else {
+                result = client.execute(flushed.toModelNode());
+            }
+        } finally {
+            allowFailures.close();
+        }
+
+        if (flushed.size() == 1) {
+            results.get(0).set(result);
+            if (result.isFailed()) {
+                throw new AutoBatchFailedException(1, flushed.operation(0), result);
+            }
+            return;
+        }
+
+        boolean hasStepResults = result.hasDefinedValue() && result.value().getType() == ModelType.OBJECT
+                && result.value().keys().size() == flushed.size();
+        for (int i = 0; i < results.size(); i++) {
+            results.get(i).set(hasStepResults ? result.forBatchStep(i + 1) : result);
+        }
+
+        if (result.isFailed()) {
+            int failedStep = hasStepResults ? findFailedStep(results) : 0;
+            if (failedStep > 0) {
+                throw new AutoBatchFailedException(failedStep, flushed.operation(failedStep - 1),
+                        results.get(failedStep - 1));
+            }
+            throw new AutoBatchFailedException(0, flushed.toModelNode(), result);
+        }
+    }
+
+    /** Steps that were rolled back are also failed, the step that caused the failure has a failure description. */
+    private static int findFailedStep(List<ModelNodeResult> stepResults) {
+        int firstFailed = 0;
+        for (int i = 0; i < stepResults.size(); i++) {
+            ModelNodeResult stepResult = stepResults.get(i);
+            if (stepResult.hasDefined(Constants.FAILURE_DESCRIPTION)) {
+                return i + 1;
+            }
+            if (firstFailed == 0 && stepResult.isFailed()) {
+                firstFailed = i + 1;
+            }
+        }
+        return firstFailed;
+    }
+}
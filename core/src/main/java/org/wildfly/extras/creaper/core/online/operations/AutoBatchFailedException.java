@@ -0,0 +1,40 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import org.jboss.dmr.ModelNode;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+
+/**
+ * Thrown by an {@link Operations#autoBatching() auto-batching} {@code Operations} object when some of the buffered
+ * operations failed. The whole composite operation was rolled back, so none of the buffered operations took effect.
+ */
+public final class AutoBatchFailedException extends RuntimeException {
+    private final int stepIndex;
+    private final ModelNode failedOperation;
+    private final ModelNodeResult failedResult;
+
+    AutoBatchFailedException(int stepIndex, ModelNode failedOperation, ModelNodeResult failedResult) {
+        super("Operation " + failedOperation.asString() + " (step " + stepIndex + " of an automatic batch) failed: "
+                + failedResult.asString());
+        this.stepIndex = stepIndex;
+        this.failedOperation = failedOperation;
+        this.failedResult = failedResult;
+    }
+
+    /**
+     * Index of the failed step in the composite operation; the first buffered operation has index 1. If the failure
+     * can't be attributed to a single step, this is {@code 0} and {@link #failedOperation()} is the whole composite.
+     */
+    public int stepIndex() {
+        return stepIndex;
+    }
+
+    /** The operation that failed, as it was buffered by the original {@code Operations} method call. */
+    public ModelNode failedOperation() {
+        return failedOperation;
+    }
+
+    /** Result of the failed operation. */
+    public ModelNodeResult failedResult() {
+        return failedResult;
+    }
+}
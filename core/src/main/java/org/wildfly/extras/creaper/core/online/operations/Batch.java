@@ -150,6 +150,20 @@ public final class Batch implements SharedCommonOperations<Batch> {
 
     // ---
 
+    /** Adds an already built operation; used by {@link AutoBatch}. */
+    Batch operation(ModelNode operation) {
+        operations.add(operation);
+        return this;
+    }
+
+    ModelNode operation(int index) {
+        return operations.get(index);
+    }
+
+    int size() {
+        return operations.size();
+    }
+
     ModelNode toModelNode() {
         ModelNode composite = new ModelNode();
         composite.get(Constants.OP).set(Constants.COMPOSITE);
@@ -17,18 +17,23 @@ import java.util.List;
  * <p>This class contains an {@link OnlineManagementClient}, but is otherwise stateless. Most importantly, this class
  * <b>doesn't</b> close the underlying {@code OnlineManagementClient}. This means that as long as that
  * {@code OnlineManagementClient} is valid, this class is usable.</p>
+ *
+ * <p>The only exception is an {@link #autoBatching() auto-batching} {@code Operations} object, which buffers
+ * operations and is therefore stateful and not thread-safe.</p>
  */
 public final class Operations implements SharedCommonOperations<ModelNodeResult> {
     private final OnlineManagementClient client;
     private final OperationsModelNodeBuilder builder;
+    private final AutoBatch autoBatch; // null if auto-batching is disabled
 
     public Operations(OnlineManagementClient client) {
-        this(client, new OperationsModelNodeBuilder());
+        this(client, new OperationsModelNodeBuilder(), null);
     }
 
-    private Operations(OnlineManagementClient client, OperationsModelNodeBuilder builder) {
+    private Operations(OnlineManagementClient client, OperationsModelNodeBuilder builder, AutoBatch autoBatch) {
         this.client = client;
         this.builder = builder;
+        this.autoBatch = autoBatch;
     }
 
     /**
@@ -47,124 +52,183 @@ public final class Operations implements SharedCommonOperations<ModelNodeResult>
      * but that shouldn't be a problem (there are other inherent sources of excessive allocation).</p>
      */
     public Operations headers(Values headers) {
-        return new Operations(client, builder.withHeaders(headers));
+        return new Operations(client, builder.withHeaders(headers), autoBatch);
+    }
+
+    /**
+     * <p>Returns a new {@code Operations} object that buffers operations that modify the configuration
+     * ({@code write-attribute}, {@code undefine-attribute}, {@code add} and {@code remove}) instead of executing them
+     * one by one. The buffered operations are executed together as a single {@code composite} operation, which saves
+     * a lot of round trips to the server. The buffer is flushed:</p>
+     *
+     * <ul>
+     *     <li>before any other operation is executed (e.g. {@code readAttribute}, {@code exists},
+     *         {@code invoke}, {@code batch}), so that it sees the effects of the buffered operations;</li>
+     *     <li>when {@link #flush()} is called.</li>
+     * </ul>
+     *
+     * <p>The {@link ModelNodeResult} returned from a buffered operation is empty until the buffer is flushed.
+     * If some of the buffered operations fail, the whole composite is rolled back and an
+     * {@link AutoBatchFailedException} is thrown, identifying the operation that failed. Always call {@code flush()}
+     * at the end (e.g. at the end of a command), otherwise the last buffered operations will never be executed.</p>
+     *
+     * <p>An auto-batching {@code Operations} object is not thread-safe. Calling {@code autoBatching()} on it again
+     * results in an exception; the {@link #headers(Values) headers} method returns an object that shares
+     * the buffer. Operations with headers are not buffered, they flush the buffer and are executed immediately,
+     * because the server ignores headers of the steps of a composite operation.</p>
+     */
+    public Operations autoBatching() {
+        if (autoBatch != null) {
+            throw new IllegalStateException("Auto-batching is already enabled");
+        }
+
+        return new Operations(client, builder, new AutoBatch());
+    }
+
+    /**
+     * Executes all operations buffered by an {@link #autoBatching() auto-batching} {@code Operations} object.
+     * Does nothing if there are no buffered operations or if auto-batching is disabled.
+     *
+     * @throws AutoBatchFailedException if some of the buffered operations failed
+     */
+    public void flush() throws IOException {
+        if (autoBatch != null) {
+            autoBatch.flush(client);
+        }
+    }
+
+    /** Executes the operation immediately, after flushing the buffered operations (if auto-batching). */
+    private ModelNodeResult execute(ModelNode operation) throws IOException {
+        flush();
+        return client.execute(operation);
+    }
+
+    /**
+     * Buffers the operation if auto-batching, executes it immediately otherwise. Operations with headers are never
+     * buffered, because headers of composite steps are ignored by the server.
+     */
+    private ModelNodeResult executeOrBuffer(ModelNode operation) throws IOException {
+        if (autoBatch != null && !operation.hasDefined(Constants.OPERATION_HEADERS)) {
+            return autoBatch.add(operation);
+        }
+        return execute(operation);
     }
 
     @Override
     public ModelNodeResult whoami() throws IOException {
-        return client.execute(builder.whoami());
+        return execute(builder.whoami());
     }
 
     @Override
     public ModelNodeResult readAttribute(Address address, String attributeName, ReadAttributeOption... options)
             throws IOException {
-        return client.execute(builder.readAttribute(address, attributeName, options));
+        return execute(builder.readAttribute(address, attributeName, options));
     }
 
     @Override
     public ModelNodeResult writeAttribute(Address address, String attributeName, boolean attributeValue)
             throws IOException {
-        return client.execute(builder.writeAttribute(address, attributeName, attributeValue));
+        return executeOrBuffer(builder.writeAttribute(address, attributeName, attributeValue));
     }
 
     @Override
     public ModelNodeResult writeAttribute(Address address, String attributeName, int attributeValue)
             throws IOException {
-        return client.execute(builder.writeAttribute(address, attributeName, attributeValue));
+        return executeOrBuffer(builder.writeAttribute(address, attributeName, attributeValue));
     }
 
     @Override
     public ModelNodeResult writeAttribute(Address address, String attributeName, long attributeValue)
             throws IOException {
-        return client.execute(builder.writeAttribute(address, attributeName, attributeValue));
+        return executeOrBuffer(builder.writeAttribute(address, attributeName, attributeValue));
     }
 
     @Override
     public ModelNodeResult writeAttribute(Address address, String attributeName, String attributeValue)
             throws IOException {
-        return client.execute(builder.writeAttribute(address, attributeName, attributeValue));
+        return executeOrBuffer(builder.writeAttribute(address, attributeName, attributeValue));
     }
 
     @Override
     public ModelNodeResult writeAttribute(Address address, String attributeName, ModelNode attributeValue)
             throws IOException {
-        return client.execute(builder.writeAttribute(address, attributeName, attributeValue));
+        return executeOrBuffer(builder.writeAttribute(address, attributeName, attributeValue));
     }
 
     @Override
     public ModelNodeResult writeListAttribute(Address address, String attributeName, boolean... attributeValue)
             throws IOException {
-        return client.execute(builder.writeListAttribute(address, attributeName, attributeValue));
+        return executeOrBuffer(builder.writeListAttribute(address, attributeName, attributeValue));
     }
 
     @Override
     public ModelNodeResult writeListAttribute(Address address, String attributeName, int... attributeValue)
             throws IOException {
-        return client.execute(builder.writeListAttribute(address, attributeName, attributeValue));
+        return executeOrBuffer(builder.writeListAttribute(address, attributeName, attributeValue));
     }
 
     @Override
     public ModelNodeResult writeListAttribute(Address address, String attributeName, long... attributeValue)
             throws IOException {
-        return client.execute(builder.writeListAttribute(address, attributeName, attributeValue));
+        return executeOrBuffer(builder.writeListAttribute(address, attributeName, attributeValue));
     }
 
     @Override
     public ModelNodeResult writeListAttribute(Address address, String attributeName, String... attributeValue)
             throws IOException {
-        return client.execute(builder.writeListAttribute(address, attributeName, attributeValue));
+        return executeOrBuffer(builder.writeListAttribute(address, attributeName, attributeValue));
     }
 
     @Override
     public ModelNodeResult writeListAttribute(Address address, String attributeName, ModelNode... attributeValue)
             throws IOException {
-        return client.execute(builder.writeListAttribute(address, attributeName, attributeValue));
+        return executeOrBuffer(builder.writeListAttribute(address, attributeName, attributeValue));
     }
 
     @Override
     public ModelNodeResult undefineAttribute(Address address, String attributeName) throws IOException {
-        return client.execute(builder.undefineAttribute(address, attributeName));
+        return executeOrBuffer(builder.undefineAttribute(address, attributeName));
     }
 
     @Override
     public ModelNodeResult readResource(Address address, ReadResourceOption... options) throws IOException {
-        return client.execute(builder.readResource(address, options));
+        return execute(builder.readResource(address, options));
     }
 
     @Override
     public ModelNodeResult readChildrenNames(Address address, String childType) throws IOException {
-        return client.execute(builder.readChildrenNames(address, childType));
+        return execute(builder.readChildrenNames(address, childType));
     }
 
     @Override
     public ModelNodeResult add(Address address) throws IOException {
-        return client.execute(builder.add(address));
+        return executeOrBuffer(builder.add(address));
     }
 
     @Override
     public ModelNodeResult add(Address address, Values parameters) throws IOException {
-        return client.execute(builder.add(address, parameters));
+        return executeOrBuffer(builder.add(address, parameters));
     }
 
     @Override
     public ModelNodeResult remove(Address address) throws IOException {
-        return client.execute(builder.remove(address));
+        return executeOrBuffer(builder.remove(address));
     }
 
     @Override
     public ModelNodeResult invoke(String operationName, Address address) throws IOException {
-        return client.execute(builder.invoke(operationName, address));
+        return execute(builder.invoke(operationName, address));
     }
 
     @Override
     public ModelNodeResult invoke(String operationName, Address address, Values parameters) throws IOException {
-        return client.execute(builder.invoke(operationName, address, parameters));
+        return execute(builder.invoke(operationName, address, parameters));
     }
 
     // ---
 
     public ModelNodeResult batch(Batch batch) throws IOException {
-        return client.execute(batch.toModelNode());
+        return execute(batch.toModelNode());
     }
 
     /**
@@ -172,6 +236,7 @@ public final class Operations implements SharedCommonOperations<ModelNodeResult>
      * @throws OperationException if the underlying {@code read-resource} operation fails
      */
     public boolean exists(Address address) throws IOException, OperationException {
+        flush();
         FailuresAllowedBlock expectedFailures = client.allowFailures();
         try {
             ModelNodeResult result = readResource(address);
@@ -195,9 +260,10 @@ public final class Operations implements SharedCommonOperations<ModelNodeResult>
      * @throws OperationException if the underlying {@code remove} operation fails with something else than "not found"
      */
     public boolean removeIfExists(Address address) throws IOException, OperationException {
+        flush();
         FailuresAllowedBlock expectedFailures = client.allowFailures();
         try {
-            ModelNodeResult result = remove(address);
+            ModelNodeResult result = execute(builder.remove(address));
             if (result.isSuccess()) {
                 return true;
             }
@@ -5,6 +5,7 @@ import org.wildfly.extras.creaper.core.online.ModelNodeResult;
 import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
 
 import java.io.IOException;
+import java.util.concurrent.Future;
 
 /**
  * <p>Serves as a factory of {@link DeferredOperation DeferredOperation}s. A deferred operation is a single
@@ -162,5 +163,10 @@ public final class SingleOperation implements SharedCommonOperations<SingleOpera
         public ModelNodeResult invoke(OnlineManagementClient client) throws IOException {
             return client.execute(operation);
         }
+
+        /** @see OnlineManagementClient#executeAsync(ModelNode) */
+        public Future<ModelNodeResult> invokeAsync(OnlineManagementClient client) throws IOException {
+            return client.executeAsync(operation);
+        }
     }
 }
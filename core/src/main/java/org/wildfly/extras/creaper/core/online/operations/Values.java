@@ -7,8 +7,6 @@ import com.google.common.primitives.Longs;
 import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.Property;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -61,9 +59,14 @@ import java.util.Map;
  * </pre>
  */
 public final class Values {
-    private static final Values EMPTY = new Values();
+    private static final Values EMPTY = new Values(null, null);
 
-    private final List<Property> namedValues;
+    // a values list is a linked list of its elements, starting with the last one, so that and(...) doesn't need
+    // to copy anything; the ModelNode form is only created when needed and then reused
+    private final Values previous; // null <=> empty
+    private final Property last;
+    private final int size;
+    private volatile ModelNode modelNode; // created lazily, see toModelNode()
 
     public static Values empty() {
         return EMPTY;
@@ -127,55 +130,41 @@ public final class Values {
             return null;
         }
 
-        List<Property> properties = new ArrayList<Property>(map.size());
+        Values result = EMPTY;
         for (Map.Entry<String, String> entry : map.entrySet()) {
-            properties.add(new Property(entry.getKey(), new ModelNode(entry.getValue())));
+            result = result.and(entry.getKey(), entry.getValue());
         }
-        return new Values(properties);
+        return result;
     }
 
-    private Values() {
-        this.namedValues = Collections.emptyList();
-    }
-
-    private Values(List<Property> namedValues) {
-        this.namedValues = Collections.unmodifiableList(namedValues);
+    private Values(Values previous, Property last) {
+        this.previous = previous;
+        this.last = last;
+        this.size = previous != null ? previous.size + 1 : 0;
     }
 
     public Values and(String name, boolean value) {
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, new ModelNode(value)));
-        return new Values(newList);
+        return new Values(this, new Property(name, new ModelNode(value)));
     }
 
     public Values and(String name, int value) {
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, new ModelNode(value)));
-        return new Values(newList);
+        return new Values(this, new Property(name, new ModelNode(value)));
     }
 
     public Values and(String name, long value) {
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, new ModelNode(value)));
-        return new Values(newList);
+        return new Values(this, new Property(name, new ModelNode(value)));
     }
 
     public Values and(String name, double value) {
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, new ModelNode(value)));
-        return new Values(newList);
+        return new Values(this, new Property(name, new ModelNode(value)));
     }
 
     public Values and(String name, String value) {
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, new ModelNode(value)));
-        return new Values(newList);
+        return new Values(this, new Property(name, new ModelNode(value)));
     }
 
     public Values and(String name, ModelNode value) {
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, value));
-        return new Values(newList);
+        return new Values(this, new Property(name, value));
     }
 
     public Values andOptional(String name, Boolean value) {
@@ -214,9 +203,7 @@ public final class Values {
             listValue.add(singleValue);
         }
 
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, listValue));
-        return new Values(newList);
+        return new Values(this, new Property(name, listValue));
     }
 
     public Values andList(String name, int... value) {
@@ -225,9 +212,7 @@ public final class Values {
             listValue.add(singleValue);
         }
 
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, listValue));
-        return new Values(newList);
+        return new Values(this, new Property(name, listValue));
     }
 
     public Values andList(String name, long... value) {
@@ -236,9 +221,7 @@ public final class Values {
             listValue.add(singleValue);
         }
 
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, listValue));
-        return new Values(newList);
+        return new Values(this, new Property(name, listValue));
     }
 
     public Values andList(String name, double... value) {
@@ -247,9 +230,7 @@ public final class Values {
             listValue.add(singleValue);
         }
 
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, listValue));
-        return new Values(newList);
+        return new Values(this, new Property(name, listValue));
     }
 
     public Values andList(String name, String... value) {
@@ -258,9 +239,7 @@ public final class Values {
             listValue.add(singleValue);
         }
 
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, listValue));
-        return new Values(newList);
+        return new Values(this, new Property(name, listValue));
     }
 
     public Values andList(String name, ModelNode... value) {
@@ -269,9 +248,7 @@ public final class Values {
             listValue.add(singleValue);
         }
 
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, listValue));
-        return new Values(newList);
+        return new Values(this, new Property(name, listValue));
     }
 
     /**
@@ -313,14 +290,7 @@ public final class Values {
     }
 
     public Values andObject(String name, Values value) {
-        ModelNode objectValue = new ModelNode().setEmptyObject();
-        for (Property property : value.namedValues) {
-            objectValue.get(property.getName()).set(property.getValue());
-        }
-
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, objectValue));
-        return new Values(newList);
+        return new Values(this, new Property(name, value.toModelNode()));
     }
 
     public Values andObjectOptional(String name, Values value) {
@@ -332,7 +302,7 @@ public final class Values {
     public String toString() {
         StringBuilder result = new StringBuilder("(");
         boolean first = true;
-        for (Property namedValue : namedValues) {
+        for (Property namedValue : namedValues()) {
             if (!first) {
                 result.append(", ");
             }
@@ -344,13 +314,40 @@ public final class Values {
     }
 
     void addToModelNode(ModelNode modelNode) {
-        for (Property namedValue : namedValues) {
+        for (Property namedValue : namedValues()) {
             modelNode.get(namedValue.getName()).set(namedValue.getValue());
         }
     }
 
+    /**
+     * These values as a {@code ModelNode} of type {@link org.jboss.dmr.ModelType#OBJECT object}. The returned
+     * {@code ModelNode} is shared by all callers and is protected against modifications
+     * (see {@link ModelNode#protect()}), so it must be copied, e.g. by {@link ModelNode#set(ModelNode)}.
+     */
+    ModelNode toModelNode() {
+        ModelNode result = modelNode;
+        if (result == null) {
+            result = new ModelNode().setEmptyObject();
+            addToModelNode(result);
+            result.protect();
+            modelNode = result;
+        }
+        return result;
+    }
+
+    /** The named values in the order in which they were added. */
+    private Property[] namedValues() {
+        Property[] result = new Property[size];
+        Values current = this;
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = current.last;
+            current = current.previous;
+        }
+        return result;
+    }
+
     // only for tests
     int size() {
-        return namedValues.size();
+        return size;
     }
 }
@@ -60,12 +60,29 @@ public class Administration {
         ops.reload();
     }
 
+    /**
+     * Same as {@link #reload()}, but also returns how long the individual phases of the reload took
+     * (performing the operation, reconnecting, waiting until the server is running).
+     */
+    public final RestartTimings reloadWithTimings() throws IOException, InterruptedException, TimeoutException {
+        return ops.reload();
+    }
+
     /**
      * Reloads the server if required. In domain, reloads the entire host if at least one server requires reload.
      * Reloading the host includes restarting all its servers.
+     * Inside {@link DeferredReload#apply(org.wildfly.extras.creaper.core.online.OnlineCommand...)
+     * DeferredReload.apply}, the reload is only recorded and performed later.
      * @return if the server was in fact reloaded; in domain, if the host was reloaded
      */
     public final boolean reloadIfRequired() throws IOException, InterruptedException, TimeoutException {
+        if (DeferredReload.isDeferring(client)) {
+            if (ops.isReloadRequired()) {
+                DeferredReload.reloadDeferred();
+            }
+            return false;
+        }
+
         return ops.reloadIfRequired();
     }
 
@@ -88,6 +105,14 @@ public class Administration {
         ops.restart();
     }
 
+    /**
+     * Same as {@link #restart()}, but also returns how long the individual phases of the restart took
+     * (performing the operation, reconnecting, waiting until the server is running).
+     */
+    public final RestartTimings restartWithTimings() throws IOException, InterruptedException, TimeoutException {
+        return ops.restart();
+    }
+
     /**
      * Restarts the server if required. In domain, restarts the entire host if at least one server requires restart.
      * @return if the server was in fact restarted; in domain, if the host was restarted
@@ -6,7 +6,7 @@ import java.util.concurrent.TimeoutException;
 interface AdministrationOperations {
     boolean isReloadRequired() throws IOException;
 
-    void reload() throws IOException, InterruptedException, TimeoutException;
+    RestartTimings reload() throws IOException, InterruptedException, TimeoutException;
 
     boolean reloadIfRequired() throws IOException, InterruptedException, TimeoutException;
 
@@ -14,7 +14,7 @@ interface AdministrationOperations {
 
     boolean isRestartRequired() throws IOException;
 
-    void restart() throws IOException, InterruptedException, TimeoutException;
+    RestartTimings restart() throws IOException, InterruptedException, TimeoutException;
 
     boolean restartIfRequired() throws IOException, InterruptedException, TimeoutException;
 
@@ -1,5 +1,6 @@
 package org.wildfly.extras.creaper.core.online.operations.admin;
 
+import org.wildfly.extras.creaper.core.online.ClientInstrumentation;
 import org.wildfly.extras.creaper.core.online.Constants;
 import org.wildfly.extras.creaper.core.online.ModelNodeResult;
 import org.wildfly.extras.creaper.core.online.operations.Address;
@@ -31,6 +32,11 @@ enum CommonRestartOperation implements RestartOperation {
         public ModelNodeResult perform(Operations ops, Address address) throws IOException {
             return ops.invoke(Constants.RELOAD, address);
         }
+
+        @Override
+        public void reportFinished(ClientInstrumentation instrumentation, RestartTimings timings) {
+            instrumentation.reloadFinished(timings.totalMillis());
+        }
     },
     RESTART {
         @Override
@@ -43,6 +49,11 @@ enum CommonRestartOperation implements RestartOperation {
         public ModelNodeResult perform(Operations ops, Address address) throws IOException {
             return ops.invoke(Constants.SHUTDOWN, address, Values.of(Constants.RESTART, true));
         }
+
+        @Override
+        public void reportFinished(ClientInstrumentation instrumentation, RestartTimings timings) {
+            instrumentation.restartFinished(timings.totalMillis());
+        }
     };
 
     abstract boolean isRequired(ModelNodeResult serverStateResult, boolean isManagedServerInDomain);
@@ -0,0 +1,189 @@
+package org.wildfly.extras.creaper.core.online.operations.admin;
+
+import org.jboss.logging.Logger;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+import org.wildfly.extras.creaper.core.online.OnlineCommand;
+import org.wildfly.extras.creaper.core.online.OnlineCommandContext;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.OnlineOptions;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>Utility for applying a set of commands with deferred reloads. Many commands perform
+ * {@link Administration#reloadIfRequired()} (e.g. after removing an existing resource when they are asked
+ * to replace it), so applying a lot of such commands can reload the server many times. Inside
+ * {@link #apply(OnlineCommand...) DeferredReload.apply}, {@code Administration.reloadIfRequired()} only records
+ * that a reload is required and the server is reloaded at most once, after all the commands are applied.</p>
+ *
+ * <p>If some command depends on the server being reloaded before it's applied, put the {@link #BARRIER} command
+ * before it. The barrier performs the deferred reload, if there's one.</p>
+ *
+ * <p>If some command fails, the deferred reload is not performed.</p>
+ *
+ * <p>Deferral is bound to the current thread and only affects {@code Administration}s created for a client with
+ * the same {@link OnlineManagementClient#options() options} as the client passed to {@code DeferredReload}.
+ * Explicit {@link Administration#reload()} is never deferred.</p>
+ */
+public final class DeferredReload {
+    private static final Logger log = Logger.getLogger(DeferredReload.class);
+
+    private static final ThreadLocal<Scope> currentScope = new ThreadLocal<Scope>();
+
+    /** Performs the deferred reload, if there's one. Only useful as one of the commands passed to {@code apply}. */
+    public static final OnlineCommand BARRIER = new OnlineCommand() {
+        @Override
+        public void apply(OnlineCommandContext ctx) throws Exception {
+            Scope scope = currentScope.get();
+            if (scope != null && scope.covers(ctx.client)) {
+                scope.reloadIfDeferred();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "DeferredReload.BARRIER";
+        }
+    };
+
+    private final OnlineManagementClient client;
+    private final int timeoutInSeconds;
+
+    public DeferredReload(OnlineManagementClient client) {
+        this(client, Administration.DEFAULT_TIMEOUT);
+    }
+
+    public DeferredReload(OnlineManagementClient client, int timeoutInSeconds) {
+        this.client = client;
+        this.timeoutInSeconds = timeoutInSeconds;
+    }
+
+    /**
+     * Applies the {@code commands} using the client, deferring all reloads requested by
+     * {@link Administration#reloadIfRequired()} until all the commands are applied, and then reloads the server
+     * if required.
+     *
+     * @return how many reloads were requested and how many were performed
+     */
+    public Report apply(OnlineCommand... commands) throws CommandFailedException, IOException, InterruptedException,
+            TimeoutException {
+        return apply(Arrays.asList(commands));
+    }
+
+    /** @see #apply(OnlineCommand...) */
+    public Report apply(Iterable<OnlineCommand> commands) throws CommandFailedException, IOException,
+            InterruptedException, TimeoutException {
+        Scope outerScope = currentScope.get();
+        if (outerScope != null && outerScope.covers(client)) {
+            // nested, the outer scope will perform the reload
+            int deferredBefore = outerScope.deferredReloads;
+            client.apply(commands);
+            return new Report(outerScope.deferredReloads - deferredBefore, 0);
+        }
+
+        Scope scope = new Scope(client, timeoutInSeconds);
+        currentScope.set(scope);
+        try {
+            client.apply(commands);
+            scope.reloadIfDeferred();
+        } finally {
+            if (outerScope != null) {
+                currentScope.set(outerScope);
+            } else {
+                currentScope.remove();
+            }
+        }
+
+        Report report = new Report(scope.deferredReloads, scope.performedReloads);
+        log.debugf("Deferred reload finished: %s", report);
+        return report;
+    }
+
+    /** Whether {@link Administration#reloadIfRequired()} should defer the reload instead of performing it. */
+    static boolean isDeferring(OnlineManagementClient client) {
+        Scope scope = currentScope.get();
+        return scope != null && !scope.reloading && scope.covers(client);
+    }
+
+    /** Called by {@link Administration#reloadIfRequired()} when reload is required and it is deferred. */
+    static void reloadDeferred() {
+        Scope scope = currentScope.get();
+        scope.deferredReloads++;
+        scope.reloadPending = true;
+    }
+
+    private static final class Scope {
+        private final OnlineManagementClient client;
+        private final OnlineOptions options;
+        private final int timeoutInSeconds;
+
+        private int deferredReloads;
+        private int performedReloads;
+        private boolean reloadPending;
+        private boolean reloading;
+
+        Scope(OnlineManagementClient client, int timeoutInSeconds) {
+            this.client = client;
+            this.options = client.options();
+            this.timeoutInSeconds = timeoutInSeconds;
+        }
+
+        boolean covers(OnlineManagementClient client) {
+            // all wrappers of a single client share the same options
+            return client.options() == options;
+        }
+
+        void reloadIfDeferred() throws IOException, InterruptedException, TimeoutException {
+            if (!reloadPending) {
+                return;
+            }
+
+            reloading = true;
+            try {
+                if (new Administration(client, timeoutInSeconds).reloadIfRequired()) {
+                    performedReloads++;
+                }
+                reloadPending = false;
+            } finally {
+                reloading = false;
+            }
+        }
+    }
+
+    /** How many reloads were requested while applying the commands and how many were actually performed. */
+    public static final class Report {
+        private final int deferredReloads;
+        private final int performedReloads;
+
+        Report(int deferredReloads, int performedReloads) {
+            this.deferredReloads = deferredReloads;
+            this.performedReloads = performedReloads;
+        }
+
+        /** Number of reloads that were required by the commands and deferred. */
+        public int deferredReloads() {
+            return deferredReloads;
+        }
+
+        /**
+         * Number of reloads that were actually performed (at the end and at
+         * {@link DeferredReload#BARRIER barriers}).
+         */
+        public int performedReloads() {
+            return performedReloads;
+        }
+
+        /** Number of reloads that would have been performed without deferral, but weren't. */
+        public int avoidedReloads() {
+            return Math.max(0, deferredReloads - performedReloads);
+        }
+
+        @Override
+        public String toString() {
+            return deferredReloads + " reloads requested, " + performedReloads + " performed, "
+                    + avoidedReloads() + " avoided";
+        }
+    }
+}
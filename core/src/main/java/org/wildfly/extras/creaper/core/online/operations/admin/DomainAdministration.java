@@ -1,5 +1,6 @@
 package org.wildfly.extras.creaper.core.online.operations.admin;
 
+import org.jboss.logging.Logger;
 import org.wildfly.extras.creaper.core.ServerVersion;
 import org.wildfly.extras.creaper.core.online.Constants;
 import org.wildfly.extras.creaper.core.online.ModelNodeResult;
@@ -11,8 +12,12 @@ import org.wildfly.extras.creaper.core.online.operations.Operations;
 import org.wildfly.extras.creaper.core.online.operations.Values;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -28,6 +33,8 @@ import java.util.concurrent.TimeoutException;
  * {@code OnlineManagementClient} is valid, this class is usable.</p>
  */
 public final class DomainAdministration extends Administration {
+    private static final Logger log = Logger.getLogger(Administration.class);
+
     private final OnlineManagementClient client;
     private final Operations ops;
     private final DomainAdministrationOperations domainOps;
@@ -69,6 +76,19 @@ public final class DomainAdministration extends Administration {
         return domainOps.allRunningServers(host);
     }
 
+    /**
+     * Retrieves all servers running on all hosts in domain. The result maps host names to lists of running servers
+     * and can be passed directly to the methods that operate on servers on multiple hosts
+     * (such as {@link #restartServers(Map)}).
+     */
+    public Map<String, List<String>> allRunningServersOnAllHosts() throws IOException {
+        Map<String, List<String>> result = new LinkedHashMap<String, List<String>>();
+        for (String host : hosts()) {
+            result.put(host, allRunningServers(host));
+        }
+        return result;
+    }
+
     /** @see #allServers(String) */
     public List<String> allServers() throws IOException {
         return allServers(client.options().defaultHost);
@@ -100,6 +120,19 @@ public final class DomainAdministration extends Administration {
         return result.isSuccess();
     }
 
+    /**
+     * Starts given servers on given hosts. The servers are started concurrently and this method waits until all of
+     * them are started, with a single timeout for all of them (as given in the constructor).
+     *
+     * @param serversOnHosts maps host names to lists of servers on that host
+     * @return {@code true} when all servers were successfully started, {@code false} otherwise
+     */
+    public boolean startServers(Map<String, List<String>> serversOnHosts) throws IOException, InterruptedException,
+            TimeoutException {
+        return domainOps.invokeOnServers(serversOnHosts, Constants.START, Values.of(Constants.BLOCKING, true),
+                domainOps.endTime());
+    }
+
     // ---
 
     /**
@@ -130,6 +163,27 @@ public final class DomainAdministration extends Administration {
         return false;
     }
 
+    /** Reloads all servers on all hosts, see {@link #reloadServers(Map)}. */
+    public boolean reloadAllServersOnAllHosts() throws IOException, InterruptedException, TimeoutException {
+        return reloadServers(allRunningServersOnAllHosts());
+    }
+
+    /**
+     * Reloads given servers on given hosts. As opposed to {@link #reload(String)}, this doesn't reload the hosts,
+     * just the servers. The servers are reloaded concurrently and this method waits until all of them are running,
+     * with a single timeout for all of them (as given in the constructor).
+     *
+     * @param serversOnHosts maps host names to lists of servers on that host
+     * @return {@code true} when the {@code reload} operation succeeded for all servers, {@code false} otherwise
+     */
+    public boolean reloadServers(Map<String, List<String>> serversOnHosts) throws IOException, InterruptedException,
+            TimeoutException {
+        long endTime = domainOps.endTime();
+        boolean allSucceeded = domainOps.invokeOnServers(serversOnHosts, Constants.RELOAD, Values.empty(), endTime);
+        domainOps.waitUntilServersAreRunning(serversOnHosts, endTime);
+        return allSucceeded;
+    }
+
     // ---
 
     /**
@@ -194,6 +248,97 @@ public final class DomainAdministration extends Administration {
         domainOps.waitUntilServersAreRunning(host, servers, needsToReconnect);
     }
 
+    /**
+     * Restarts given servers on given hosts. The servers are restarted concurrently and this method waits until
+     * all of them are running, with a single timeout for all of them (as given in the constructor).
+     *
+     * @param serversOnHosts maps host names to lists of servers on that host
+     * @return {@code true} when the {@code restart} operation succeeded for all servers, {@code false} otherwise
+     */
+    public boolean restartServers(Map<String, List<String>> serversOnHosts) throws IOException, InterruptedException,
+            TimeoutException {
+        return restartServers(serversOnHosts, domainOps.endTime());
+    }
+
+    private boolean restartServers(Map<String, List<String>> serversOnHosts, long endTime) throws IOException,
+            InterruptedException, TimeoutException {
+        boolean allSucceeded = domainOps.invokeOnServers(serversOnHosts, Constants.RESTART, Values.empty(), endTime);
+        domainOps.waitUntilServersAreRunning(serversOnHosts, endTime);
+        return allSucceeded;
+    }
+
+    /** Restarts all servers on all hosts, see {@link #restartServers(Map)}. */
+    public boolean restartAllServersOnAllHosts() throws IOException, InterruptedException, TimeoutException {
+        return restartServers(allRunningServersOnAllHosts());
+    }
+
+    /**
+     * Restarts given servers on given hosts in waves, so that at most {@code maxConcurrentPerServerGroup} servers
+     * of each server group are restarted at the same time. Servers in each wave are restarted concurrently (see
+     * {@link #restartServers(Map)}) and the next wave only starts when all servers in the previous wave are running.
+     * The timeout given in the constructor applies to the whole rolling restart, not to each wave separately.
+     *
+     * @param serversOnHosts maps host names to lists of servers on that host
+     * @return {@code true} when the {@code restart} operation succeeded for all servers, {@code false} otherwise
+     */
+    public boolean rollingRestartServers(Map<String, List<String>> serversOnHosts, int maxConcurrentPerServerGroup)
+            throws IOException, InterruptedException, TimeoutException {
+        if (maxConcurrentPerServerGroup <= 0) {
+            throw new IllegalArgumentException("Max concurrency per server group must be positive");
+        }
+
+        long endTime = domainOps.endTime();
+        boolean allSucceeded = true;
+        for (Map<String, List<String>> wave : rollingWaves(serversOnHosts, maxConcurrentPerServerGroup)) {
+            log.debugf("Rolling restart of servers %s", wave);
+            allSucceeded &= restartServers(wave, endTime);
+        }
+        return allSucceeded;
+    }
+
+    private List<Map<String, List<String>>> rollingWaves(Map<String, List<String>> serversOnHosts,
+                                                         int maxConcurrentPerServerGroup) throws IOException {
+        Batch batch = new Batch();
+        for (Map.Entry<String, List<String>> serversOnHost : serversOnHosts.entrySet()) {
+            for (String server : serversOnHost.getValue()) {
+                batch.readAttribute(Address.host(serversOnHost.getKey()).and(Constants.SERVER_CONFIG, server),
+                        Constants.GROUP);
+            }
+        }
+        ModelNodeResult groups = ops.batch(batch);
+        groups.assertSuccess();
+
+        // server group -> list of [host, server]
+        Map<String, List<String[]>> serversInGroups = new LinkedHashMap<String, List<String[]>>();
+        Iterator<ModelNodeResult> groupResults = groups.forAllBatchSteps().iterator();
+        for (Map.Entry<String, List<String>> serversOnHost : serversOnHosts.entrySet()) {
+            for (String server : serversOnHost.getValue()) {
+                String group = groupResults.next().stringValue();
+                if (!serversInGroups.containsKey(group)) {
+                    serversInGroups.put(group, new ArrayList<String[]>());
+                }
+                serversInGroups.get(group).add(new String[] {serversOnHost.getKey(), server});
+            }
+        }
+
+        List<Map<String, List<String>>> waves = new ArrayList<Map<String, List<String>>>();
+        for (List<String[]> serversInGroup : serversInGroups.values()) {
+            for (int i = 0; i < serversInGroup.size(); i++) {
+                int waveIndex = i / maxConcurrentPerServerGroup;
+                if (waves.size() <= waveIndex) {
+                    waves.add(new LinkedHashMap<String, List<String>>());
+                }
+                Map<String, List<String>> wave = waves.get(waveIndex);
+                String[] hostAndServer = serversInGroup.get(i);
+                if (!wave.containsKey(hostAndServer[0])) {
+                    wave.put(hostAndServer[0], new ArrayList<String>());
+                }
+                wave.get(hostAndServer[0]).add(hostAndServer[1]);
+            }
+        }
+        return waves;
+    }
+
     // ---
 
     /** Shuts down given {@code host}. This is a variant of {@link Administration#shutdown()}. */
@@ -316,6 +461,19 @@ public final class DomainAdministration extends Administration {
         domainOps.waitUntilServersAreRunning(host, servers, true);
     }
 
+    /**
+     * Waits until all the given servers on given hosts are running, with a single timeout for all of them (as given
+     * in the constructor). All the servers are checked at once, using a single management operation per poll.
+     * As opposed to the other variants, this never reconnects the client.
+     *
+     * @param serversOnHosts maps host names to lists of servers on that host
+     * @return how long it took for each server to be running
+     */
+    public ServersRunningTimings waitUntilServersRunning(Map<String, List<String>> serversOnHosts)
+            throws InterruptedException, TimeoutException {
+        return domainOps.waitUntilServersAreRunning(serversOnHosts, domainOps.endTime());
+    }
+
     // ---
 
     /** @see #stopServer(String, String) */
@@ -335,6 +493,19 @@ public final class DomainAdministration extends Administration {
         return result.isSuccess();
     }
 
+    /**
+     * Stops given servers on given hosts. The servers are stopped concurrently and this method waits until all of
+     * them are stopped, with a single timeout for all of them (as given in the constructor).
+     *
+     * @param serversOnHosts maps host names to lists of servers on that host
+     * @return {@code true} when all servers were successfully stopped, {@code false} otherwise
+     */
+    public boolean stopServers(Map<String, List<String>> serversOnHosts) throws IOException, InterruptedException,
+            TimeoutException {
+        return domainOps.invokeOnServers(serversOnHosts, Constants.STOP, Values.of(Constants.BLOCKING, true),
+                domainOps.endTime());
+    }
+
     // ---
 
     /** @see #removeServer(String, String) */
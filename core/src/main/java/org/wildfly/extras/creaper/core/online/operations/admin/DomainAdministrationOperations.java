@@ -1,20 +1,35 @@
 package org.wildfly.extras.creaper.core.online.operations.admin;
 
+import org.jboss.dmr.ModelNode;
+import org.jboss.logging.Logger;
 import org.wildfly.extras.creaper.core.online.Constants;
 import org.wildfly.extras.creaper.core.online.ModelNodeResult;
 import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.WaitStrategy;
 import org.wildfly.extras.creaper.core.online.operations.Address;
 import org.wildfly.extras.creaper.core.online.operations.Batch;
 import org.wildfly.extras.creaper.core.online.operations.Operations;
+import org.wildfly.extras.creaper.core.online.operations.SingleOperation;
 import org.wildfly.extras.creaper.core.online.operations.Values;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 final class DomainAdministrationOperations implements AdministrationOperations {
+    private static final Logger log = Logger.getLogger(Administration.class);
+
     private final OnlineManagementClient client;
     private final Operations ops;
     private final int timeoutInSeconds;
@@ -33,8 +48,8 @@ final class DomainAdministrationOperations implements AdministrationOperations {
     }
 
     @Override
-    public void reload() throws IOException, InterruptedException, TimeoutException {
-        performRestartOperation(client.options().defaultHost, CommonRestartOperation.RELOAD);
+    public RestartTimings reload() throws IOException, InterruptedException, TimeoutException {
+        return performRestartOperation(client.options().defaultHost, CommonRestartOperation.RELOAD);
     }
 
     @Override
@@ -54,8 +69,8 @@ final class DomainAdministrationOperations implements AdministrationOperations {
     }
 
     @Override
-    public void restart() throws IOException, InterruptedException, TimeoutException {
-        performRestartOperation(client.options().defaultHost, CommonRestartOperation.RESTART);
+    public RestartTimings restart() throws IOException, InterruptedException, TimeoutException {
+        return performRestartOperation(client.options().defaultHost, CommonRestartOperation.RESTART);
     }
 
     @Override
@@ -98,10 +113,11 @@ final class DomainAdministrationOperations implements AdministrationOperations {
 
     // ---
 
-    void performRestartOperation(String host, RestartOperation restartOperation) throws IOException, TimeoutException,
-            InterruptedException {
+    RestartTimings performRestartOperation(String host, RestartOperation restartOperation) throws IOException,
+            TimeoutException, InterruptedException {
         List<String> allServers = allRunningServers(host);
 
+        RestartTimings.Recorder timings = new RestartTimings.Recorder();
         boolean needsToReconnect = false;
         try {
             restartOperation.perform(ops, Address.host(host));
@@ -109,8 +125,12 @@ final class DomainAdministrationOperations implements AdministrationOperations {
             // server went down before we received the response, this can happen
             needsToReconnect = true;
         }
+        timings.operationFinished();
 
-        waitUntilServersAreRunning(host, allServers, needsToReconnect);
+        RestartTimings result = waitUntilServersAreRunning(host, allServers, needsToReconnect, timings);
+        log.debugf("Host '%s' %s finished in %s", host, restartOperation, result);
+        restartOperation.reportFinished(client.options().instrumentation, result);
+        return result;
     }
 
     boolean isRestartOperationRequired(String host, CommonRestartOperation restartOperation) throws IOException {
@@ -159,24 +179,35 @@ final class DomainAdministrationOperations implements AdministrationOperations {
      */
     void waitUntilServersAreRunning(String host, List<String> servers, boolean reconnect) throws IOException,
             InterruptedException, TimeoutException {
+        waitUntilServersAreRunning(host, servers, reconnect, new RestartTimings.Recorder());
+    }
+
+    private RestartTimings waitUntilServersAreRunning(String host, List<String> servers, boolean reconnect,
+                                                      RestartTimings.Recorder timings)
+            throws IOException, InterruptedException, TimeoutException {
 
         Thread.sleep(500); // this value is taken from implementation of CLI "reload"
 
         if (reconnect) {
+            long reconnectStart = System.currentTimeMillis();
             client.reconnect(timeoutInSeconds);
+            timings.reconnectTook(System.currentTimeMillis() - reconnectStart);
         }
 
+        WaitStrategy waitStrategy = client.options().waitStrategy;
+        int failedAttempts = 0;
         long endTime = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeoutInSeconds);
         while (System.currentTimeMillis() < endTime) {
             try {
                 if (areServersRunning(host, servers)) {
-                    break;
+                    return timings.finish();
                 }
             } catch (Throwable ignored) {
                 // server is probably down, will retry
             }
 
-            Thread.sleep(200); // this value is completely arbitrary
+            failedAttempts++;
+            waitStrategy.await(failedAttempts, endTime);
         }
 
         boolean running = false;
@@ -188,24 +219,153 @@ final class DomainAdministrationOperations implements AdministrationOperations {
         if (!running) {
             throw new TimeoutException("Waiting for host '" + host + "' / servers " + servers + " timed out");
         }
+        return timings.finish();
     }
 
-    private boolean areServersRunning(String host, List<String> servers) throws IOException {
-        Address hostAddress = Address.host(host);
+    /**
+     * Waits until all the {@code serversOnHosts} are running, with a single deadline for all of them. All servers
+     * that are not yet known to be running are checked in a single management operation per poll.
+     */
+    ServersRunningTimings waitUntilServersAreRunning(Map<String, List<String>> serversOnHosts, long endTime)
+            throws InterruptedException, TimeoutException {
+
+        ServersRunningTimings.Recorder timings = new ServersRunningTimings.Recorder();
+
+        Map<String, Set<String>> notRunning = new LinkedHashMap<String, Set<String>>();
+        for (Map.Entry<String, List<String>> serversOnHost : serversOnHosts.entrySet()) {
+            if (!serversOnHost.getValue().isEmpty()) {
+                notRunning.put(serversOnHost.getKey(), new LinkedHashSet<String>(serversOnHost.getValue()));
+            }
+        }
+        if (notRunning.isEmpty()) {
+            return timings.finish();
+        }
+
+        Thread.sleep(500); // this value is taken from implementation of CLI "reload"
 
+        WaitStrategy waitStrategy = client.options().waitStrategy;
+        int failedAttempts = 0;
+        while (true) {
+            try {
+                timings.polled();
+                removeRunningServers(notRunning, timings);
+                if (notRunning.isEmpty()) {
+                    ServersRunningTimings result = timings.finish();
+                    log.debugf("Servers %s running after %s", serversOnHosts, result);
+                    return result;
+                }
+            } catch (Throwable ignored) {
+                // some host is probably down, will retry
+            }
+
+            if (System.currentTimeMillis() >= endTime) {
+                throw new TimeoutException("Waiting for servers " + notRunning + " timed out");
+            }
+
+            failedAttempts++;
+            waitStrategy.await(failedAttempts, endTime);
+        }
+    }
+
+    /**
+     * Removes servers that are running from {@code notRunning} (and hosts that have no such servers left).
+     * Performs a single composite operation with one {@code read-children-resources} step per host; this is
+     * used instead of reading {@code server-state} of each server, because reading an attribute of a server
+     * that is stopped fails and that would make the entire composite operation fail.
+     */
+    private void removeRunningServers(Map<String, Set<String>> notRunning, ServersRunningTimings.Recorder timings)
+            throws IOException {
+        List<String> hosts = new ArrayList<String>(notRunning.keySet());
+        Batch batch = new Batch();
+        for (String host : hosts) {
+            batch.invoke(Constants.READ_CHILDREN_RESOURCES, Address.host(host),
+                    Values.of(Constants.CHILD_TYPE, Constants.SERVER).and(Constants.INCLUDE_RUNTIME, true));
+        }
+
+        ModelNodeResult result = ops.batch(batch);
+        result.assertSuccess();
+
+        int step = 1;
+        for (String host : hosts) {
+            ModelNode runningServers = result.forBatchStep(step).value();
+            step++;
+
+            Iterator<String> servers = notRunning.get(host).iterator();
+            while (servers.hasNext()) {
+                String server = servers.next();
+                if (runningServers.hasDefined(server)
+                        && runningServers.get(server).hasDefined(Constants.SERVER_STATE)
+                        && ServerState.isRunning(runningServers.get(server, Constants.SERVER_STATE).asString())) {
+                    servers.remove();
+                    if (timings != null) {
+                        timings.serverRunning(host, server);
+                    }
+                }
+            }
+            if (notRunning.get(host).isEmpty()) {
+                notRunning.remove(host);
+            }
+        }
+    }
+
+    private boolean areServersRunning(String host, List<String> servers) throws IOException {
         if (servers == null || servers.isEmpty()) {
             ModelNodeResult result = ops.readAttribute(Address.host(host), Constants.HOST_STATE);
             result.assertDefinedValue();
             return ServerState.isRunning(result.stringValue());
         } else {
-            for (String server : servers) {
-                Address serverAddress = hostAddress.and(Constants.SERVER, server);
-                ModelNodeResult result = ops.readAttribute(serverAddress, Constants.SERVER_STATE);
-                if (!result.hasDefinedValue() || !ServerState.isRunning(result.stringValue())) {
-                    return false;
+            Map<String, Set<String>> notRunning = new HashMap<String, Set<String>>();
+            notRunning.put(host, new HashSet<String>(servers));
+            removeRunningServers(notRunning, null);
+            return notRunning.isEmpty();
+        }
+    }
+
+    /**
+     * Invokes {@code operationName} on all the {@code serversOnHosts} concurrently and waits for all the results
+     * until {@code endTime}.
+     *
+     * @return {@code true} if all the operations succeeded, {@code false} otherwise
+     */
+    boolean invokeOnServers(Map<String, List<String>> serversOnHosts, String operationName, Values parameters,
+                            long endTime) throws IOException, InterruptedException, TimeoutException {
+        SingleOperation singleOperation = new SingleOperation();
+        Map<String, Future<ModelNodeResult>> results = new LinkedHashMap<String, Future<ModelNodeResult>>();
+        for (Map.Entry<String, List<String>> serversOnHost : serversOnHosts.entrySet()) {
+            String host = serversOnHost.getKey();
+            for (String server : serversOnHost.getValue()) {
+                Address serverConfigAddress = Address.host(host).and(Constants.SERVER_CONFIG, server);
+                results.put(host + "/" + server,
+                        singleOperation.invoke(operationName, serverConfigAddress, parameters).invokeAsync(client));
+            }
+        }
+
+        boolean allSucceeded = true;
+        for (Map.Entry<String, Future<ModelNodeResult>> result : results.entrySet()) {
+            try {
+                long remaining = Math.max(0, endTime - System.currentTimeMillis());
+                ModelNodeResult modelNodeResult = result.getValue().get(remaining, TimeUnit.MILLISECONDS);
+                if (!modelNodeResult.isSuccess()) {
+                    log.debugf("Operation %s on server %s failed: %s", operationName, result.getKey(),
+                            modelNodeResult);
+                    allSucceeded = false;
+                }
+            } catch (ExecutionException e) {
+                log.debugf(e.getCause(), "Operation %s on server %s failed", operationName, result.getKey());
+                allSucceeded = false;
+            } catch (TimeoutException e) {
+                for (Future<ModelNodeResult> future : results.values()) {
+                    future.cancel(true);
                 }
+                throw new TimeoutException("Operation " + operationName + " on servers " + serversOnHosts
+                        + " timed out");
             }
-            return true;
         }
+        return allSucceeded;
+    }
+
+    /** The end time of an operation that starts now, based on the timeout given in the constructor. */
+    long endTime() {
+        return System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeoutInSeconds);
     }
 }
@@ -1,6 +1,7 @@
 package org.wildfly.extras.creaper.core.online.operations.admin;
 
 import org.wildfly.extras.creaper.core.ServerVersion;
+import org.wildfly.extras.creaper.core.online.ClientInstrumentation;
 import org.wildfly.extras.creaper.core.online.Constants;
 import org.wildfly.extras.creaper.core.online.ModelNodeResult;
 import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
@@ -116,5 +117,10 @@ public final class ReloadToOriginal {
             // only works for standalone servers
             return ops.invoke(Constants.RELOAD, address, Values.of(Constants.USE_CURRENT_SERVER_CONFIG, false));
         }
+
+        @Override
+        public void reportFinished(ClientInstrumentation instrumentation, RestartTimings timings) {
+            instrumentation.reloadFinished(timings.totalMillis());
+        }
     }
 }
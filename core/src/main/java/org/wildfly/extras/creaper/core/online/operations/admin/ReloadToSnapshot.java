@@ -1,6 +1,7 @@
 package org.wildfly.extras.creaper.core.online.operations.admin;
 
 import org.wildfly.extras.creaper.core.ServerVersion;
+import org.wildfly.extras.creaper.core.online.ClientInstrumentation;
 import org.wildfly.extras.creaper.core.online.Constants;
 import org.wildfly.extras.creaper.core.online.ModelNodeResult;
 import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
@@ -69,5 +70,10 @@ public final class ReloadToSnapshot {
         public ModelNodeResult perform(Operations ops, Address address) throws IOException {
             return ops.invoke(Constants.RELOAD, address, Values.of(Constants.SERVER_CONFIG, snapshot));
         }
+
+        @Override
+        public void reportFinished(ClientInstrumentation instrumentation, RestartTimings timings) {
+            instrumentation.reloadFinished(timings.totalMillis());
+        }
     }
 }
@@ -1,5 +1,6 @@
 package org.wildfly.extras.creaper.core.online.operations.admin;
 
+import org.wildfly.extras.creaper.core.online.ClientInstrumentation;
 import org.wildfly.extras.creaper.core.online.ModelNodeResult;
 import org.wildfly.extras.creaper.core.online.operations.Address;
 import org.wildfly.extras.creaper.core.online.operations.Operations;
@@ -8,4 +9,7 @@ import java.io.IOException;
 
 interface RestartOperation {
     ModelNodeResult perform(Operations ops, Address address) throws IOException;
+
+    /** Reports that the operation finished and the server is running again. */
+    void reportFinished(ClientInstrumentation instrumentation, RestartTimings timings);
 }
@@ -0,0 +1,66 @@
+package org.wildfly.extras.creaper.core.online.operations.admin;
+
+/**
+ * Durations of individual phases of a reload or restart performed by {@link Administration}. All durations
+ * are in milliseconds.
+ *
+ * @see Administration#reloadWithTimings()
+ * @see Administration#restartWithTimings()
+ */
+public final class RestartTimings {
+    private final long operationMillis;
+    private final long reconnectMillis;
+    private final long waitUntilRunningMillis;
+
+    private RestartTimings(long operationMillis, long reconnectMillis, long waitUntilRunningMillis) {
+        this.operationMillis = operationMillis;
+        this.reconnectMillis = reconnectMillis;
+        this.waitUntilRunningMillis = waitUntilRunningMillis;
+    }
+
+    /** Time spent performing the {@code reload} or {@code shutdown} management operation itself. */
+    public long operationMillis() {
+        return operationMillis;
+    }
+
+    /** Time spent reconnecting the client to the server. This is {@code 0} if no reconnect was needed. */
+    public long reconnectMillis() {
+        return reconnectMillis;
+    }
+
+    /** Time spent waiting for the server (or the host and its servers in domain) to be running again. */
+    public long waitUntilRunningMillis() {
+        return waitUntilRunningMillis;
+    }
+
+    /** Total time of the reload or restart. */
+    public long totalMillis() {
+        return operationMillis + reconnectMillis + waitUntilRunningMillis;
+    }
+
+    @Override
+    public String toString() {
+        return totalMillis() + " ms (operation " + operationMillis + " ms, reconnect " + reconnectMillis
+                + " ms, waiting until running " + waitUntilRunningMillis + " ms)";
+    }
+
+    /** Measures the phases; the first phase ({@code operation}) starts when the recorder is created. */
+    static final class Recorder {
+        private final long start = System.currentTimeMillis();
+        private long operationMillis;
+        private long reconnectMillis;
+
+        void operationFinished() {
+            operationMillis = System.currentTimeMillis() - start;
+        }
+
+        void reconnectTook(long millis) {
+            reconnectMillis = millis;
+        }
+
+        RestartTimings finish() {
+            long total = System.currentTimeMillis() - start;
+            return new RestartTimings(operationMillis, reconnectMillis, total - operationMillis - reconnectMillis);
+        }
+    }
+}
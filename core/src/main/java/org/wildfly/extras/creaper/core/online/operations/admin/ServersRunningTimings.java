@@ -0,0 +1,82 @@
+package org.wildfly.extras.creaper.core.online.operations.admin;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * How long it took for individual servers in managed domain to be running, as measured by
+ * {@link DomainAdministration#waitUntilServersRunning(Map)}. All durations are in milliseconds and are measured
+ * from the start of waiting.
+ */
+public final class ServersRunningTimings {
+    private final Map<String, Map<String, Long>> millisUntilRunning;
+    private final long totalMillis;
+    private final int polls;
+
+    private ServersRunningTimings(Map<String, Map<String, Long>> millisUntilRunning, long totalMillis, int polls) {
+        this.millisUntilRunning = millisUntilRunning;
+        this.totalMillis = totalMillis;
+        this.polls = polls;
+    }
+
+    /**
+     * Time until given {@code server} on given {@code host} was first seen running, or {@code -1} if the server
+     * wasn't waited for.
+     */
+    public long millisUntilRunning(String host, String server) {
+        Map<String, Long> servers = millisUntilRunning.get(host);
+        if (servers == null || !servers.containsKey(server)) {
+            return -1;
+        }
+        return servers.get(server);
+    }
+
+    /** Times until the servers were running; maps host names to maps of server names to durations. */
+    public Map<String, Map<String, Long>> asMap() {
+        return millisUntilRunning;
+    }
+
+    /** Total time of waiting until all the servers were running. */
+    public long totalMillis() {
+        return totalMillis;
+    }
+
+    /** How many times the servers were polled. Each poll is a single management operation. */
+    public int polls() {
+        return polls;
+    }
+
+    @Override
+    public String toString() {
+        return totalMillis + " ms (" + polls + " polls): " + millisUntilRunning;
+    }
+
+    /** Measures the times; waiting starts when the recorder is created. */
+    static final class Recorder {
+        private final long start = System.currentTimeMillis();
+        private final Map<String, Map<String, Long>> millisUntilRunning
+                = new LinkedHashMap<String, Map<String, Long>>();
+        private int polls;
+
+        void polled() {
+            polls++;
+        }
+
+        void serverRunning(String host, String server) {
+            if (!millisUntilRunning.containsKey(host)) {
+                millisUntilRunning.put(host, new LinkedHashMap<String, Long>());
+            }
+            millisUntilRunning.get(host).put(server, System.currentTimeMillis() - start);
+        }
+
+        ServersRunningTimings finish() {
+            Map<String, Map<String, Long>> result = new LinkedHashMap<String, Map<String, Long>>();
+            for (Map.Entry<String, Map<String, Long>> entry : millisUntilRunning.entrySet()) {
+                result.put(entry.getKey(), Collections.unmodifiableMap(entry.getValue()));
+            }
+            return new ServersRunningTimings(Collections.unmodifiableMap(result), System.currentTimeMillis() - start,
+                    polls);
+        }
+    }
+}
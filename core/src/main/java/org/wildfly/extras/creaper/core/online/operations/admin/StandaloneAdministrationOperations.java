@@ -1,8 +1,10 @@
 package org.wildfly.extras.creaper.core.online.operations.admin;
 
+import org.jboss.logging.Logger;
 import org.wildfly.extras.creaper.core.online.Constants;
 import org.wildfly.extras.creaper.core.online.ModelNodeResult;
 import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.WaitStrategy;
 import org.wildfly.extras.creaper.core.online.operations.Address;
 import org.wildfly.extras.creaper.core.online.operations.Operations;
 import org.wildfly.extras.creaper.core.online.operations.Values;
@@ -12,6 +14,8 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 final class StandaloneAdministrationOperations implements AdministrationOperations {
+    private static final Logger log = Logger.getLogger(Administration.class);
+
     private final OnlineManagementClient client;
     private final Operations ops;
     private final int timeoutInSeconds;
@@ -28,8 +32,8 @@ final class StandaloneAdministrationOperations implements AdministrationOperatio
         return isRestartOperationRequired(CommonRestartOperation.RELOAD);
     }
 
-    public void reload() throws IOException, InterruptedException, TimeoutException {
-        performRestartOperation(CommonRestartOperation.RELOAD);
+    public RestartTimings reload() throws IOException, InterruptedException, TimeoutException {
+        return performRestartOperation(CommonRestartOperation.RELOAD);
     }
 
     public boolean reloadIfRequired() throws IOException, InterruptedException, TimeoutException {
@@ -47,8 +51,8 @@ final class StandaloneAdministrationOperations implements AdministrationOperatio
         return isRestartOperationRequired(CommonRestartOperation.RESTART);
     }
 
-    public void restart() throws IOException, InterruptedException, TimeoutException {
-        performRestartOperation(CommonRestartOperation.RESTART);
+    public RestartTimings restart() throws IOException, InterruptedException, TimeoutException {
+        return performRestartOperation(CommonRestartOperation.RESTART);
     }
 
     public boolean restartIfRequired() throws IOException, InterruptedException, TimeoutException {
@@ -75,13 +79,14 @@ final class StandaloneAdministrationOperations implements AdministrationOperatio
 
     @Override
     public void waitUntilRunning() throws InterruptedException, TimeoutException, IOException {
-        waitUntilServerIsRunning(true);
+        waitUntilServerIsRunning(true, new RestartTimings.Recorder());
     }
 
     // ---
 
-    void performRestartOperation(RestartOperation restartOperation) throws IOException, InterruptedException,
-            TimeoutException {
+    RestartTimings performRestartOperation(RestartOperation restartOperation) throws IOException,
+            InterruptedException, TimeoutException {
+        RestartTimings.Recorder timings = new RestartTimings.Recorder();
         boolean needsToReconnect = false;
         try {
             restartOperation.perform(ops, Address.root());
@@ -89,34 +94,43 @@ final class StandaloneAdministrationOperations implements AdministrationOperatio
             // server went down before we received the response, this can happen
             needsToReconnect = true;
         }
+        timings.operationFinished();
 
-        waitUntilServerIsRunning(needsToReconnect);
+        RestartTimings result = waitUntilServerIsRunning(needsToReconnect, timings);
+        log.debugf("Server %s finished in %s", restartOperation, result);
+        restartOperation.reportFinished(client.options().instrumentation, result);
+        return result;
     }
 
     private boolean isRestartOperationRequired(CommonRestartOperation restartOperation) throws IOException {
         return restartOperation.isRequired(ops.readAttribute(Address.root(), Constants.SERVER_STATE), false);
     }
 
-    private void waitUntilServerIsRunning(boolean reconnect) throws IOException, InterruptedException,
-            TimeoutException {
+    private RestartTimings waitUntilServerIsRunning(boolean reconnect, RestartTimings.Recorder timings)
+            throws IOException, InterruptedException, TimeoutException {
 
         Thread.sleep(500); // this value is taken from implementation of CLI "reload"
 
         if (reconnect) {
+            long reconnectStart = System.currentTimeMillis();
             client.reconnect(timeoutInSeconds);
+            timings.reconnectTook(System.currentTimeMillis() - reconnectStart);
         }
 
+        WaitStrategy waitStrategy = client.options().waitStrategy;
+        int failedAttempts = 0;
         long endTime = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeoutInSeconds);
         while (System.currentTimeMillis() < endTime) {
             try {
                 if (isServerRunning()) {
-                    break;
+                    return timings.finish();
                 }
             } catch (Throwable ignored) {
                 // server is probably down, will retry
             }
 
-            Thread.sleep(200); // this value is completely arbitrary
+            failedAttempts++;
+            waitStrategy.await(failedAttempts, endTime);
         }
 
         boolean running = false;
@@ -128,6 +142,7 @@ final class StandaloneAdministrationOperations implements AdministrationOperatio
         if (!running) {
             throw new TimeoutException("Waiting for server timed out");
         }
+        return timings.finish();
     }
 
     private boolean isServerRunning() throws IOException {
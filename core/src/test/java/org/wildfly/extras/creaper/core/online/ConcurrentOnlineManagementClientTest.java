@@ -0,0 +1,144 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConcurrentOnlineManagementClientTest {
+    private static final int THREADS = 8;
+
+    private final CountDownLatch reconnectStarted = new CountDownLatch(1);
+    private final CountDownLatch finishReconnect = new CountDownLatch(1);
+    private final AtomicInteger concurrentExecutions = new AtomicInteger();
+    private final AtomicInteger maxConcurrentExecutions = new AtomicInteger();
+
+    private OnlineManagementClient delegate;
+    private ConcurrentOnlineManagementClient client;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        delegate = mock(OnlineManagementClient.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                reconnectStarted.countDown();
+                finishReconnect.await(10, TimeUnit.SECONDS);
+                return null;
+            }
+        }).when(delegate).reconnect(anyInt());
+        when(delegate.execute(any(ModelNode.class))).thenAnswer(new Answer<ModelNodeResult>() {
+            @Override
+            public ModelNodeResult answer(InvocationOnMock invocation) throws Throwable {
+                int current = concurrentExecutions.incrementAndGet();
+                synchronized (maxConcurrentExecutions) {
+                    maxConcurrentExecutions.set(Math.max(maxConcurrentExecutions.get(), current));
+                }
+                Thread.sleep(50);
+                concurrentExecutions.decrementAndGet();
+                return new ModelNodeResult(ModelNodeConstants.SUCCESS);
+            }
+        });
+
+        client = new ConcurrentOnlineManagementClient(delegate);
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @Test
+    public void operationsAreExecutedConcurrently() throws Exception {
+        List<Future<ModelNodeResult>> results = new ArrayList<Future<ModelNodeResult>>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(new Callable<ModelNodeResult>() {
+                @Override
+                public ModelNodeResult call() throws Exception {
+                    return client.execute(new ModelNode());
+                }
+            }));
+        }
+        for (Future<ModelNodeResult> result : results) {
+            assertTrue(result.get(10, TimeUnit.SECONDS).isSuccess());
+        }
+
+        assertTrue(maxConcurrentExecutions.get() > 1);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentReconnectsAreCoalesced() throws Exception {
+        List<Future<Void>> reconnects = new ArrayList<Future<Void>>();
+        for (int i = 0; i < THREADS; i++) {
+            reconnects.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    client.reconnect(10);
+                    return null;
+                }
+            }));
+        }
+
+        assertTrue(reconnectStarted.await(10, TimeUnit.SECONDS));
+        Thread.sleep(100); // give other threads a chance to join the reconnect in progress
+        finishReconnect.countDown();
+
+        for (Future<Void> reconnect : reconnects) {
+            reconnect.get(10, TimeUnit.SECONDS);
+        }
+
+        verify(delegate, times(1)).reconnect(anyInt());
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void operationsWaitForReconnect() throws Exception {
+        executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                client.reconnect(10);
+                return null;
+            }
+        });
+        assertTrue(reconnectStarted.await(10, TimeUnit.SECONDS));
+
+        Future<ModelNodeResult> result = executor.submit(new Callable<ModelNodeResult>() {
+            @Override
+            public ModelNodeResult call() throws Exception {
+                return client.execute(new ModelNode());
+            }
+        });
+
+        try {
+            result.get(200, TimeUnit.MILLISECONDS);
+            fail("Operation shouldn't be executed during reconnect");
+        } catch (TimeoutException expected) {
+            assertFalse(result.isDone());
+        }
+
+        finishReconnect.countDown();
+        assertTrue(result.get(10, TimeUnit.SECONDS).isSuccess());
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,106 @@
+package org.wildfly.extras.creaper.core.online;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.client.AuthCache;
+import org.jboss.dmr.ModelNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class HttpAuthenticationCacheTest {
+    private static final HttpOptions PREEMPTIVE_AUTH = new HttpOptions(HttpOptions.DEFAULT_MAX_IN_FLIGHT_REQUESTS,
+            false, 0, 0, true);
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private HttpServer server;
+
+    @Before
+    public void startServer() throws IOException {
+        HttpAuthenticationCache.clear();
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/management", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requests.incrementAndGet();
+                exchange.getResponseHeaders().set("WWW-Authenticate",
+                        "Digest realm=\"TestRealm\", nonce=\"abcdef\", algorithm=MD5, qop=\"auth\"");
+                exchange.sendResponseHeaders(401, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+        HttpAuthenticationCache.clear();
+    }
+
+    @Test
+    public void realmIsOnlyDiscoveredOnce() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            client(PREEMPTIVE_AUTH).close();
+        }
+
+        assertEquals(1, requests.get());
+        assertEquals("TestRealm", HttpAuthenticationCache.realm(url()));
+    }
+
+    @Test
+    public void realmIsNotCachedWithoutPreemptiveAuth() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            client(HttpOptions.DEFAULT).close();
+        }
+
+        assertEquals(3, requests.get());
+        assertNull(HttpAuthenticationCache.realm(url()));
+    }
+
+    @Test
+    public void staleRealmIsDiscoveredAgain() throws IOException {
+        HttpAuthenticationCache.rememberRealm(url(), "StaleRealm");
+
+        HttpModelControllerClient client = client(PREEMPTIVE_AUTH);
+        try {
+            assertEquals(0, requests.get());
+
+            client.execute(new ModelNode());
+            fail("the server never accepts the credentials");
+        } catch (RuntimeException expected) {
+            assertEquals("TestRealm", HttpAuthenticationCache.realm(url()));
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void authCacheIsSharedPerUser() {
+        AuthCache authCache = HttpAuthenticationCache.authCache(url(), "user");
+        assertSame(authCache, HttpAuthenticationCache.authCache(url(), "user"));
+        assertNotSame(authCache, HttpAuthenticationCache.authCache(url(), "other-user"));
+    }
+
+    private HttpModelControllerClient client(HttpOptions options) throws IOException {
+        return new HttpModelControllerClient("localhost", server.getAddress().getPort(), "user", "pass", 0, null,
+                options);
+    }
+
+    private String url() {
+        return "http://localhost:" + server.getAddress().getPort() + "/management";
+    }
+}
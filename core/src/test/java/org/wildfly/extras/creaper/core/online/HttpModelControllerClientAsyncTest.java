@@ -0,0 +1,120 @@
+package org.wildfly.extras.creaper.core.online;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.jboss.dmr.ModelNode;
+import org.jboss.threads.AsyncFuture;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HttpModelControllerClientAsyncTest {
+    private static final int MAX_IN_FLIGHT = 3;
+    private static final int REQUESTS = 20;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxObservedInFlight = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private HttpServer server;
+    private HttpModelControllerClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/management", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                int current = inFlight.incrementAndGet();
+                synchronized (maxObservedInFlight) {
+                    maxObservedInFlight.set(Math.max(maxObservedInFlight.get(), current));
+                }
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                inFlight.decrementAndGet();
+
+                byte[] response = "{\"outcome\" : \"success\", \"result\" : \"ok\"}".getBytes("UTF-8");
+                exchange.sendResponseHeaders(200, response.length);
+                OutputStream body = exchange.getResponseBody();
+                body.write(response);
+                body.close();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        client = new HttpModelControllerClient("localhost", server.getAddress().getPort(), null, null, 0, null,
+                new HttpOptions(MAX_IN_FLIGHT, false, 0, 0, false));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        release.countDown();
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void requestsAreExecutedConcurrentlyUpToTheLimit() throws Exception {
+        ModelNode op = new ModelNode();
+        op.get(Constants.OP).set("read-attribute");
+        op.get(Constants.OP_ADDR).setEmptyList();
+        op.get("name").set("foo");
+
+        List<AsyncFuture<ModelNode>> futures = new ArrayList<AsyncFuture<ModelNode>>();
+        for (int i = 0; i < REQUESTS; i++) {
+            futures.add(client.executeAsync(op, null));
+        }
+
+        // wait until the limit is reached, then let all the requests finish
+        long end = System.currentTimeMillis() + 5000;
+        while (inFlight.get() < MAX_IN_FLIGHT && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        for (AsyncFuture<ModelNode> future : futures) {
+            ModelNodeResult result = new ModelNodeResult(future.get(10, TimeUnit.SECONDS));
+            result.assertSuccess();
+            assertEquals("ok", result.stringValue());
+        }
+
+        assertEquals(MAX_IN_FLIGHT, maxObservedInFlight.get());
+    }
+
+    @Test
+    public void queuedRequestIsCancelledOnClose() throws Exception {
+        ModelNode op = new ModelNode();
+        op.get(Constants.OP).set(Constants.WHOAMI);
+        op.get(Constants.OP_ADDR).setEmptyList();
+
+        List<AsyncFuture<ModelNode>> futures = new ArrayList<AsyncFuture<ModelNode>>();
+        for (int i = 0; i < MAX_IN_FLIGHT + 1; i++) {
+            futures.add(client.executeAsync(op, null));
+        }
+
+        // the last request can't start before the others complete
+        AsyncFuture<ModelNode> queued = futures.get(MAX_IN_FLIGHT);
+        assertEquals(AsyncFuture.Status.WAITING, queued.getStatus());
+
+        client.close();
+        assertTrue(queued.isCancelled());
+    }
+}
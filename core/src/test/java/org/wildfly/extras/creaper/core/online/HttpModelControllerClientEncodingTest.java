@@ -0,0 +1,95 @@
+package org.wildfly.extras.creaper.core.online;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.jboss.dmr.ModelNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+
+import static org.junit.Assert.assertEquals;
+
+public class HttpModelControllerClientEncodingTest {
+    private HttpServer server;
+
+    private volatile String requestContentType;
+    private volatile ModelNode receivedOperation;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/management", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requestContentType = exchange.getRequestHeaders().getFirst("Content-Type");
+                boolean dmrEncoded = requestContentType.startsWith(ModelNodeHttpEntity.DMR_ENCODED);
+
+                InputStream requestBody = exchange.getRequestBody();
+                receivedOperation = dmrEncoded
+                        ? ModelNode.fromBase64(requestBody)
+                        : ModelNode.fromJSONStream(requestBody);
+
+                ModelNode result = new ModelNode();
+                result.get(Constants.OUTCOME).set(Constants.SUCCESS);
+                result.get(Constants.RESULT).set(receivedOperation.get(Constants.OP).asString());
+
+                ByteArrayOutputStream response = new ByteArrayOutputStream();
+                if (dmrEncoded) {
+                    result.writeBase64(response);
+                } else {
+                    response.write(result.toJSONString(true).getBytes("UTF-8"));
+                }
+                exchange.getResponseHeaders().set("Content-Type",
+                        dmrEncoded ? ModelNodeHttpEntity.DMR_ENCODED : "application/json; charset=utf-8");
+                exchange.sendResponseHeaders(200, response.size());
+                OutputStream responseBody = exchange.getResponseBody();
+                response.writeTo(responseBody);
+                responseBody.close();
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void json() throws IOException {
+        test(false);
+        assertEquals("application/json", requestContentType.split(";")[0]);
+    }
+
+    @Test
+    public void dmrEncoded() throws IOException {
+        test(true);
+        assertEquals(ModelNodeHttpEntity.DMR_ENCODED, requestContentType);
+    }
+
+    private void test(boolean dmrEncoding) throws IOException {
+        ModelNode op = new ModelNode();
+        op.get(Constants.OP).set(Constants.WHOAMI);
+        op.get(Constants.OP_ADDR).add("subsystem", "ee");
+        op.get("verbose").set(true);
+        op.get("unicode").set("žluťoučký kůň");
+
+        HttpModelControllerClient client = new HttpModelControllerClient("localhost", server.getAddress().getPort(),
+                null, null, 0, null, new HttpOptions(1, dmrEncoding, 0, 0, false));
+        try {
+            ModelNodeResult result = new ModelNodeResult(client.execute(op));
+            result.assertSuccess();
+            assertEquals(Constants.WHOAMI, result.stringValue());
+            assertEquals(op, receivedOperation);
+        } finally {
+            client.close();
+        }
+    }
+}
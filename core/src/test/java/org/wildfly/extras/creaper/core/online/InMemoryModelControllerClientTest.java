@@ -0,0 +1,156 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.online.operations.Address;
+import org.wildfly.extras.creaper.core.online.operations.Batch;
+import org.wildfly.extras.creaper.core.online.operations.OperationException;
+import org.wildfly.extras.creaper.core.online.operations.Operations;
+import org.wildfly.extras.creaper.core.online.operations.ReadResourceOption;
+import org.wildfly.extras.creaper.core.online.operations.Values;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InMemoryModelControllerClientTest {
+    private static final Address FOO = Address.subsystem("foo");
+    private static final Address BAR = FOO.and("bar", "1");
+
+    private InMemoryModelControllerClient server;
+    private OnlineManagementClient client;
+    private Operations ops;
+
+    @Before
+    public void setUp() throws IOException {
+        server = InMemoryModelControllerClient.standalone();
+        client = ManagementClient.online(OnlineOptions.standalone().wrap(server));
+        ops = new Operations(client);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        client.close();
+    }
+
+    @Test
+    public void addReadWriteRemove() throws IOException, OperationException {
+        ops.add(FOO, Values.of("enabled", true)).assertSuccess();
+        ops.add(BAR).assertSuccess();
+        assertTrue(ops.exists(BAR));
+
+        assertTrue(ops.readAttribute(FOO, "enabled").booleanValue());
+        ops.writeAttribute(FOO, "enabled", false).assertSuccess();
+        assertFalse(ops.readAttribute(FOO, "enabled").booleanValue());
+        ops.undefineAttribute(FOO, "enabled").assertSuccess();
+        ops.readAttribute(FOO, "enabled").assertNotDefinedValue();
+
+        assertEquals(Arrays.asList("1"), ops.readChildrenNames(FOO, "bar").stringListValue());
+        assertTrue(ops.readResource(FOO, ReadResourceOption.RECURSIVE).value().get("bar", "1").isDefined());
+
+        ops.remove(FOO).assertSuccess();
+        assertFalse(ops.exists(BAR));
+        assertFalse(ops.exists(FOO));
+    }
+
+    @Test
+    public void failures() throws IOException {
+        ops.add(BAR).assertFailed(); // parent doesn't exist
+        ops.remove(FOO).assertFailed();
+        ops.add(FOO).assertSuccess();
+        ops.add(FOO).assertFailed(); // duplicate
+        ops.invoke("no-such-operation", FOO).assertFailed();
+    }
+
+    @Test
+    public void failedCompositeIsRolledBack() throws IOException, OperationException {
+        ops.add(FOO, Values.of("value", 1)).assertSuccess();
+
+        ModelNodeResult result = ops.batch(new Batch()
+                .writeAttribute(FOO, "value", 2)
+                .add(BAR)
+                .add(BAR)
+                .remove(FOO));
+
+        result.assertFailed();
+        assertTrue(result.forBatchStep(1).isFailed());
+        assertTrue(result.forBatchStep(3).isFailed());
+        assertEquals("cancelled", result.forBatchStep(4).get(Constants.OUTCOME).asString());
+
+        assertEquals(1, ops.readAttribute(FOO, "value").intValue());
+        assertFalse(ops.exists(BAR));
+    }
+
+    @Test
+    public void successfulComposite() throws IOException {
+        ModelNodeResult result = ops.batch(new Batch()
+                .add(FOO)
+                .add(BAR, Values.of("value", "x"))
+                .readAttribute(BAR, "value"));
+
+        result.assertSuccess();
+        assertEquals("x", result.forBatchStep(3).stringValue());
+    }
+
+    @Test
+    public void concurrentClientsShareTheModel() throws Exception {
+        ops.add(FOO).assertSuccess();
+        long operationsBefore = server.operationCount();
+
+        final InMemoryModelControllerClient slowServer = server.withLatency(1, TimeUnit.MILLISECONDS);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int i = 0; i < 8; i++) {
+                final int clientIndex = i;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        OnlineManagementClient concurrentClient = ManagementClient.online(
+                                OnlineOptions.standalone().wrap(slowServer));
+                        try {
+                            Operations concurrentOps = new Operations(concurrentClient);
+                            for (int j = 0; j < 10; j++) {
+                                concurrentOps.add(FOO.and("bar", clientIndex + "-" + j)).assertSuccess();
+                            }
+                        } finally {
+                            concurrentClient.close();
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(80, ops.readChildrenNames(FOO, "bar").stringListValue().size());
+        assertTrue(server.operationCount() - operationsBefore >= 80);
+    }
+
+    @Test
+    public void async() throws Exception {
+        ModelNode op = new ModelNode();
+        op.get(Constants.OP).set(Constants.WHOAMI);
+        op.get(Constants.OP_ADDR).setEmptyList();
+
+        ModelNodeResult result = client.executeAsync(op).get(10, TimeUnit.SECONDS);
+        result.assertSuccess();
+    }
+}
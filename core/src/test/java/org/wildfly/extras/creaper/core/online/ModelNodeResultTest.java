@@ -1,6 +1,7 @@
 package org.wildfly.extras.creaper.core.online;
 
 import com.google.common.primitives.Doubles;
+import org.jboss.dmr.ModelNode;
 import org.junit.Test;
 
 import java.io.IOException;
@@ -268,6 +269,68 @@ public class ModelNodeResultTest {
         assertEquals(2, count);
     }
 
+    @Test
+    public void batchWithUnusualStepNames() {
+        ModelNode response = new ModelNode();
+        response.get(Constants.OUTCOME).set(Constants.SUCCESS);
+        response.get(Constants.RESULT, "first", Constants.OUTCOME).set(Constants.SUCCESS);
+        response.get(Constants.RESULT, "first", Constants.RESULT).set("a");
+        response.get(Constants.RESULT, "second", Constants.OUTCOME).set(Constants.SUCCESS);
+        response.get(Constants.RESULT, "second", Constants.RESULT).set("b");
+        ModelNodeResult result = new ModelNodeResult(response);
+
+        assertEquals("a", result.forBatchStep(1).stringValue());
+        assertEquals("b", result.forBatchStep(2).stringValue());
+        try {
+            result.forBatchStep(3);
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+
+        StringBuilder values = new StringBuilder();
+        for (ModelNodeResult stepResult : result.forAllBatchSteps()) {
+            values.append(stepResult.stringValue());
+        }
+        assertEquals("ab", values.toString());
+    }
+
+    @Test
+    public void batchStepIsCopy() {
+        ModelNodeResult result = new ModelNodeResult(BATCH_RESULT);
+        result.forBatchStep(1).get(Constants.RESULT).set("changed");
+        assertEquals(BATCH_RESULT, result);
+        result.forAllBatchSteps().iterator().next().get(Constants.RESULT).set("changed");
+        assertEquals(BATCH_RESULT, result);
+    }
+
+    @Test
+    public void inspectingStepDoesntModifyBatchResult() {
+        ModelNodeResult result = new ModelNodeResult(BATCH_RESULT);
+        for (ModelNodeResult stepResult : result.forAllBatchSteps()) {
+            assertFalse(stepResult.isReloadRequired());
+            assertFalse(stepResult.isRestartRequired());
+            assertFalse(stepResult.headers().isDefined());
+        }
+        assertFalse(result.forBatchStep(1).isReloadRequired());
+        assertEquals(BATCH_RESULT, result);
+
+        ModelNodeResult notBatch = new ModelNodeResult(ModelNodeConstants.FAILED);
+        try {
+            notBatch.forBatchStep(1);
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+        assertEquals(ModelNodeConstants.FAILED, notBatch);
+    }
+
+    @Test
+    public void copyDoesntShareData() {
+        ModelNodeResult original = new ModelNodeResult(DEFINED_RESULT_BOOLEAN);
+        ModelNodeResult copy = new ModelNodeResult(original);
+        copy.get(Constants.RESULT).set(false);
+        assertTrue(original.booleanValue());
+    }
+
     @Test
     public void headers() {
         ModelNodeResult result = new ModelNodeResult(DEFINED_RESULT_BOOLEAN);
@@ -347,5 +410,9 @@ public class ModelNodeResultTest {
             fail();
         } catch (IllegalArgumentException ignored) {
         }
+
+        // looking up missing servers and modifying a server result doesn't change the original result
+        server1.get(Constants.OUTCOME).set(Constants.FAILED);
+        assertEquals(RESTART_REQUIRED_IN_DOMAIN, result);
     }
 }
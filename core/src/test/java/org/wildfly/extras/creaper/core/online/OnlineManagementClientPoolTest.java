@@ -0,0 +1,186 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OnlineManagementClientPoolTest {
+    private static final OnlineOptions SERVER_1 = OnlineOptions.standalone().hostAndPort("server1", 9990).build();
+    private static final OnlineOptions SERVER_2 = OnlineOptions.standalone().hostAndPort("server2", 9990).build();
+
+    private final List<OnlineManagementClient> created = new ArrayList<OnlineManagementClient>();
+    private final OnlineManagementClientPool.ClientFactory factory = new OnlineManagementClientPool.ClientFactory() {
+        @Override
+        public OnlineManagementClient create(OnlineOptions options) throws IOException {
+            OnlineManagementClient client = mock(OnlineManagementClient.class);
+            when(client.execute(any(ModelNode.class))).thenReturn(new ModelNodeResult(ModelNodeConstants.SUCCESS));
+            created.add(client);
+            return client;
+        }
+    };
+
+    private OnlineManagementClientPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new OnlineManagementClientPool.Builder()
+                .maxClientsPerKey(2)
+                .maxWait(100, TimeUnit.MILLISECONDS)
+                .build(factory);
+    }
+
+    @After
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    public void clientIsReused() throws Exception {
+        pool.lease(SERVER_1).close();
+        pool.lease(OnlineOptions.standalone().hostAndPort("server1", 9990).build()).close();
+
+        assertEquals(1, created.size());
+        assertEquals(2, pool.stats().leaseCount());
+        assertEquals(1, pool.stats().createCount());
+        assertEquals(1, pool.stats().idleCount());
+    }
+
+    @Test
+    public void differentOptionsUseDifferentClients() throws Exception {
+        OnlineManagementClient client1 = pool.lease(SERVER_1);
+        OnlineManagementClient client2 = pool.lease(SERVER_2);
+        client1.close();
+        client2.close();
+
+        assertEquals(2, created.size());
+        assertNotSame(created.get(0), created.get(1));
+    }
+
+    @Test
+    public void leasedClientCantBeUsedAfterClose() throws Exception {
+        OnlineManagementClient client = pool.lease(SERVER_1);
+        client.close();
+        try {
+            client.execute(new ModelNode());
+            fail("Client returned to the pool must not be usable");
+        } catch (ClientAlreadyClosedException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void invalidIdleClientIsReplaced() throws Exception {
+        pool.close();
+        pool = new OnlineManagementClientPool.Builder()
+                .validationInterval(0, TimeUnit.MILLISECONDS)
+                .build(factory);
+
+        pool.lease(SERVER_1).close();
+        OnlineManagementClient invalid = created.get(0);
+        when(invalid.execute(any(ModelNode.class))).thenThrow(new IOException("connection lost"));
+
+        pool.lease(SERVER_1).close();
+
+        assertEquals(2, created.size());
+        assertEquals(1, pool.stats().validationFailureCount());
+        verify(invalid).close();
+    }
+
+    @Test
+    public void brokenClientIsNotReturnedToThePool() throws Exception {
+        OnlineManagementClient client = pool.lease(SERVER_1);
+        when(created.get(0).execute(any(ModelNode.class))).thenThrow(new IOException("connection lost"));
+        try {
+            client.execute(new ModelNode());
+            fail("IOException expected");
+        } catch (IOException expected) {
+            // expected
+        }
+        client.close();
+
+        verify(created.get(0)).close();
+        assertEquals(0, pool.stats().idleCount());
+    }
+
+    @Test
+    public void expiredIdleClientIsEvicted() throws Exception {
+        pool.close();
+        pool = new OnlineManagementClientPool.Builder()
+                .maxIdleTime(0, TimeUnit.MILLISECONDS)
+                .build(factory);
+
+        pool.lease(SERVER_1).close();
+        pool.lease(SERVER_1).close();
+
+        assertEquals(2, created.size());
+        assertEquals(2, pool.stats().evictionCount());
+        verify(created.get(0)).close();
+        verify(created.get(1)).close();
+    }
+
+    @Test
+    public void leaseWaitsUntilClientIsReturned() throws Exception {
+        final OnlineManagementClient client1 = pool.lease(SERVER_1);
+        OnlineManagementClient client2 = pool.lease(SERVER_1);
+
+        try {
+            pool.lease(SERVER_1);
+            fail("Lease should time out when all clients are leased");
+        } catch (TimeoutException expected) {
+            // expected
+        }
+
+        Thread releasingThread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                client1.close();
+            }
+        };
+        releasingThread.start();
+
+        OnlineManagementClient client3 = pool.lease(SERVER_1);
+        releasingThread.join();
+
+        assertEquals(2, created.size());
+        assertTrue(pool.stats().totalWaitTime(TimeUnit.MILLISECONDS) > 0);
+
+        client2.close();
+        client3.close();
+    }
+
+    @Test
+    public void closingPoolClosesIdleAndReturnedClients() throws Exception {
+        pool.lease(SERVER_1).close();
+        OnlineManagementClient leased = pool.lease(SERVER_2);
+
+        pool.close();
+        verify(created.get(0), times(1)).close();
+        verify(created.get(1), never()).close();
+
+        leased.close();
+        verify(created.get(1), times(1)).close();
+    }
+}
@@ -3,7 +3,10 @@ package org.wildfly.extras.creaper.core.online;
 import org.jboss.as.controller.client.ModelControllerClient;
 import org.jboss.dmr.ModelNode;
 import org.wildfly.extras.creaper.core.ManagementVersionPart;
+import org.junit.After;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.wildfly.extras.creaper.core.ServerVersion;
 
 import java.io.IOException;
@@ -11,13 +14,20 @@ import java.io.IOException;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class OnlineServerVersionTest {
+    @After
+    public void clearCache() {
+        OnlineServerVersion.clearCache();
+    }
+
     private ModelControllerClient mockFor(Integer major, Integer minor, Integer micro) throws IOException {
-        ModelNode result = new ModelNode();
-        result.get(Constants.OUTCOME).set(Constants.SUCCESS);
-        ModelNode resultValue = result.get(Constants.RESULT);
+        final ModelNode readResourceResult = new ModelNode();
+        readResourceResult.get(Constants.OUTCOME).set(Constants.SUCCESS);
+        ModelNode resultValue = readResourceResult.get(Constants.RESULT);
         if (major != null) {
             resultValue.get(ManagementVersionPart.MAJOR.attributeName()).set(major);
         }
@@ -28,8 +38,31 @@ public class OnlineServerVersionTest {
             resultValue.get(ManagementVersionPart.MICRO.attributeName()).set(micro);
         }
 
+        // reading a non-existing attribute fails, which makes the entire composite fail
+        final ModelNode compositeResult = new ModelNode();
+        if (major != null && minor != null && micro != null) {
+            compositeResult.get(Constants.OUTCOME).set(Constants.SUCCESS);
+            compositeResult.get(Constants.RESULT, "step-1", Constants.OUTCOME).set(Constants.SUCCESS);
+            compositeResult.get(Constants.RESULT, "step-1", Constants.RESULT).set(major);
+            compositeResult.get(Constants.RESULT, "step-2", Constants.OUTCOME).set(Constants.SUCCESS);
+            compositeResult.get(Constants.RESULT, "step-2", Constants.RESULT).set(minor);
+            compositeResult.get(Constants.RESULT, "step-3", Constants.OUTCOME).set(Constants.SUCCESS);
+            compositeResult.get(Constants.RESULT, "step-3", Constants.RESULT).set(micro);
+        } else {
+            compositeResult.get(Constants.OUTCOME).set(Constants.FAILED);
+        }
+
         ModelControllerClient mock = mock(ModelControllerClient.class);
-        when(mock.execute(any(ModelNode.class))).thenReturn(result);
+        when(mock.execute(any(ModelNode.class))).thenAnswer(new Answer<ModelNode>() {
+            @Override
+            public ModelNode answer(InvocationOnMock invocation) throws Throwable {
+                ModelNode op = (ModelNode) invocation.getArguments()[0];
+                if (Constants.COMPOSITE.equals(op.get(Constants.OP).asString())) {
+                    return compositeResult;
+                }
+                return readResourceResult;
+            }
+        });
 
         return mock;
     }
@@ -107,4 +140,51 @@ public class OnlineServerVersionTest {
 
         OnlineServerVersion.discover(mock);
     }
+
+    @Test
+    public void singleOperationOnNewServers() throws IOException {
+        ModelControllerClient client = mockFor(4, 1, 0);
+        OnlineServerVersion.discover(client);
+        verify(client, times(1)).execute(any(ModelNode.class));
+    }
+
+    @Test
+    public void fallbackOnOldServers() throws IOException {
+        ModelControllerClient client = mockFor(1, 3, null);
+        OnlineServerVersion.discover(client);
+        verify(client, times(2)).execute(any(ModelNode.class));
+    }
+
+    @Test
+    public void cachedVersionIsReused() throws IOException {
+        OnlineOptions options = OnlineOptions.standalone().hostAndPort("cached", 9990).serverVersionCache(60000)
+                .build();
+        ModelControllerClient client = mockFor(4, 1, 0);
+
+        assertEquals(ServerVersion.VERSION_4_1_0, OnlineServerVersion.discover(client, options));
+        assertEquals(ServerVersion.VERSION_4_1_0, OnlineServerVersion.discover(client, options));
+        verify(client, times(1)).execute(any(ModelNode.class));
+    }
+
+    @Test
+    public void cachedVersionExpires() throws Exception {
+        OnlineOptions options = OnlineOptions.standalone().hostAndPort("expired", 9990).serverVersionCache(1)
+                .build();
+        ModelControllerClient client = mockFor(4, 1, 0);
+
+        OnlineServerVersion.discover(client, options);
+        Thread.sleep(10);
+        OnlineServerVersion.discover(client, options);
+        verify(client, times(2)).execute(any(ModelNode.class));
+    }
+
+    @Test
+    public void versionIsNotCachedByDefault() throws IOException {
+        OnlineOptions options = OnlineOptions.standalone().hostAndPort("uncached", 9990).build();
+        ModelControllerClient client = mockFor(4, 1, 0);
+
+        OnlineServerVersion.discover(client, options);
+        OnlineServerVersion.discover(client, options);
+        verify(client, times(2)).execute(any(ModelNode.class));
+    }
 }
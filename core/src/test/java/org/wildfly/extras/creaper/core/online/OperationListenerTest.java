@@ -0,0 +1,128 @@
+package org.wildfly.extras.creaper.core.online;
+
+import com.google.common.util.concurrent.SettableFuture;
+import org.jboss.dmr.ModelNode;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OperationListenerTest {
+    private static final ModelNode OPERATION = new ModelNode();
+
+    static {
+        OPERATION.get(Constants.OP).set(Constants.READ_RESOURCE_OPERATION);
+        OPERATION.get(Constants.OP_ADDR).setEmptyList();
+        OPERATION.protect();
+    }
+
+    private static final class RecordingListener implements OperationListener {
+        private final List<String> events = new ArrayList<String>();
+        private final List<Object> outcomes = new ArrayList<Object>();
+
+        @Override
+        public void beforeExecute(ModelNode operation) {
+            events.add("before " + operation.get(Constants.OP).asString());
+        }
+
+        @Override
+        public void afterExecute(ModelNode operation, ModelNodeResult result, Throwable failure,
+                                 long durationInNanos) {
+            events.add("after " + operation.get(Constants.OP).asString());
+            outcomes.add(result != null ? result : failure);
+            assertTrue(durationInNanos >= 0);
+        }
+    }
+
+    @Test
+    public void loggingListenerIsRegisteredFirst() {
+        RecordingListener listener = new RecordingListener();
+        OnlineOptions options = OnlineOptions.standalone().localDefault().operationListener(listener).build();
+        assertEquals(Arrays.<OperationListener>asList(LoggingOperationListener.INSTANCE, listener),
+                options.operationListeners);
+
+        OnlineOptions defaultOptions = OnlineOptions.standalone().localDefault().build();
+        assertEquals(Arrays.<OperationListener>asList(LoggingOperationListener.INSTANCE),
+                defaultOptions.operationListeners);
+        assertNotEquals(defaultOptions.poolKey(), options.poolKey());
+    }
+
+    @Test
+    public void instrumentationIsNotifiedAfterListeners() {
+        RecordingListener listener = new RecordingListener();
+        ClientInstrumentation instrumentation = new ClientInstrumentation() {};
+        OnlineOptions options = OnlineOptions.standalone().localDefault()
+                .instrumentation(instrumentation)
+                .operationListener(listener)
+                .build();
+        assertEquals(Arrays.<OperationListener>asList(LoggingOperationListener.INSTANCE, listener, instrumentation),
+                options.operationListeners);
+        assertSame(instrumentation, options.instrumentation);
+
+        OnlineOptions defaultOptions = OnlineOptions.standalone().localDefault().build();
+        assertSame(ClientInstrumentation.NONE, defaultOptions.instrumentation);
+    }
+
+    @Test
+    public void listenersAreNotifiedInOrder() {
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+        OperationListeners listeners = new OperationListeners(Arrays.<OperationListener>asList(first, second));
+
+        long start = listeners.beforeExecute(OPERATION);
+        ModelNodeResult result = new ModelNodeResult(ModelNodeConstants.SUCCESS);
+        listeners.afterExecute(OPERATION, result, null, start);
+
+        assertEquals(Arrays.asList("before read-resource", "after read-resource"), first.events);
+        assertEquals(first.events, second.events);
+        assertSame(result, first.outcomes.get(0));
+    }
+
+    @Test
+    public void asyncResultIsReportedOnce() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        OperationListeners listeners = new OperationListeners(Arrays.<OperationListener>asList(listener));
+        SettableFuture<ModelNode> rawFuture = SettableFuture.create();
+        Future<ModelNodeResult> future = new ModelNodeResultFuture(rawFuture, OPERATION, listeners,
+                listeners.beforeExecute(OPERATION));
+
+        assertEquals(Arrays.asList("before read-resource"), listener.events);
+
+        rawFuture.set(ModelNodeConstants.SUCCESS.clone());
+        assertTrue(future.get().isSuccess());
+        assertTrue(future.get().isSuccess());
+
+        assertEquals(Arrays.asList("before read-resource", "after read-resource"), listener.events);
+        assertTrue(((ModelNodeResult) listener.outcomes.get(0)).isSuccess());
+    }
+
+    @Test
+    public void asyncFailureIsReported() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        OperationListeners listeners = new OperationListeners(Arrays.<OperationListener>asList(listener));
+        SettableFuture<ModelNode> rawFuture = SettableFuture.create();
+        Future<ModelNodeResult> future = new ModelNodeResultFuture(rawFuture, OPERATION, listeners,
+                listeners.beforeExecute(OPERATION));
+
+        IOException failure = new IOException("connection lost");
+        rawFuture.setException(failure);
+        try {
+            future.get();
+            fail("ExecutionException expected");
+        } catch (ExecutionException ignored) {
+        }
+
+        assertEquals(1, listener.outcomes.size());
+        assertSame(failure, listener.outcomes.get(0));
+    }
+}
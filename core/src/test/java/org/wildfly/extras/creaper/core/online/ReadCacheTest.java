@@ -0,0 +1,176 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ReadCacheTest {
+    private ReadCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new ReadCache(100);
+    }
+
+    private static ModelNode op(String name, String... address) {
+        ModelNode op = new ModelNode();
+        op.get(Constants.OP).set(name);
+        ModelNode addr = op.get(Constants.OP_ADDR).setEmptyList();
+        for (int i = 0; i < address.length; i += 2) {
+            addr.add(address[i], address[i + 1]);
+        }
+        return op;
+    }
+
+    private static ModelNode readAttribute(String attribute, String... address) {
+        ModelNode op = op(Constants.READ_ATTRIBUTE_OPERATION, address);
+        op.get(Constants.NAME).set(attribute);
+        return op;
+    }
+
+    private static ModelNode composite(ModelNode... steps) {
+        ModelNode op = op(Constants.COMPOSITE);
+        ModelNode stepsNode = op.get(Constants.STEPS).setEmptyList();
+        for (ModelNode step : steps) {
+            stepsNode.add(step);
+        }
+        return op;
+    }
+
+    private void put(ModelNode operation) {
+        cache.put(operation, ModelNodeConstants.SUCCESS, cache.generation());
+    }
+
+    @Test
+    public void cacheableOperations() {
+        assertTrue(ReadCache.isCacheable(readAttribute("foo")));
+        assertTrue(ReadCache.isCacheable(op(Constants.READ_RESOURCE_OPERATION)));
+        assertTrue(ReadCache.isCacheable(op(Constants.READ_CHILDREN_NAMES_OPERATION)));
+        assertFalse(ReadCache.isCacheable(op(Constants.WRITE_ATTRIBUTE_OPERATION)));
+        assertFalse(ReadCache.isCacheable(op(Constants.READ_CHILDREN_TYPES)));
+
+        ModelNode includeRuntime = op(Constants.READ_RESOURCE_OPERATION);
+        includeRuntime.get(Constants.INCLUDE_RUNTIME).set(true);
+        assertFalse(ReadCache.isCacheable(includeRuntime));
+    }
+
+    @Test
+    public void runtimeStateIsNotCacheable() {
+        assertFalse(ReadCache.isCacheable(readAttribute(Constants.SERVER_STATE)));
+        assertFalse(ReadCache.isCacheable(readAttribute(Constants.HOST_STATE, "host", "master")));
+        assertFalse(ReadCache.isCacheable(readAttribute(Constants.PROCESS_STATE)));
+    }
+
+    @Test
+    public void failedResultIsNotCached() {
+        ModelNode read = readAttribute("foo", "subsystem", "bar");
+        cache.put(read, ModelNodeConstants.FAILED, cache.generation());
+        assertNull(cache.get(read));
+    }
+
+    @Test
+    public void modifyingOperations() {
+        assertTrue(ReadCache.isModifying(op(Constants.ADD)));
+        assertTrue(ReadCache.isModifying(op(Constants.RELOAD)));
+        assertFalse(ReadCache.isModifying(readAttribute("foo")));
+        assertFalse(ReadCache.isModifying(op(Constants.WHOAMI)));
+        assertFalse(ReadCache.isModifying(composite(readAttribute("foo"), op(Constants.WHOAMI))));
+        assertTrue(ReadCache.isModifying(composite(readAttribute("foo"), op(Constants.ADD))));
+    }
+
+    @Test
+    public void hitsAndMisses() {
+        ModelNode read = readAttribute("foo", "subsystem", "bar");
+        assertNull(cache.get(read));
+        put(read);
+        assertNotNull(cache.get(read));
+        assertNull(cache.get(readAttribute("baz", "subsystem", "bar")));
+
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(2, cache.stats().missCount());
+    }
+
+    @Test
+    public void writeInvalidatesSameParentAndChildAddresses() {
+        ModelNode sameAddress = readAttribute("foo", "subsystem", "bar", "child", "x");
+        ModelNode parentAddress = op(Constants.READ_CHILDREN_NAMES_OPERATION, "subsystem", "bar");
+        ModelNode childAddress = readAttribute("foo", "subsystem", "bar", "child", "x", "grandchild", "y");
+        ModelNode siblingAddress = readAttribute("foo", "subsystem", "bar", "child", "y");
+        ModelNode otherSubsystem = readAttribute("foo", "subsystem", "baz");
+        ModelNode root = op(Constants.READ_RESOURCE_OPERATION);
+        put(sameAddress);
+        put(parentAddress);
+        put(childAddress);
+        put(siblingAddress);
+        put(otherSubsystem);
+        put(root);
+
+        cache.invalidate(op(Constants.REMOVE_OPERATION, "subsystem", "bar", "child", "x"));
+
+        assertNull(cache.get(sameAddress));
+        assertNull(cache.get(parentAddress));
+        assertNull(cache.get(childAddress));
+        assertNull(cache.get(root));
+        assertNotNull(cache.get(siblingAddress));
+        assertNotNull(cache.get(otherSubsystem));
+    }
+
+    @Test
+    public void compositeStepsInvalidateIndividually() {
+        ModelNode bar = readAttribute("foo", "subsystem", "bar");
+        ModelNode baz = readAttribute("foo", "subsystem", "baz");
+        ModelNode qux = readAttribute("foo", "subsystem", "qux");
+        put(bar);
+        put(baz);
+        put(qux);
+
+        cache.invalidate(composite(
+                op(Constants.ADD, "subsystem", "bar"),
+                op(Constants.READ_RESOURCE_OPERATION, "subsystem", "qux"),
+                op(Constants.UNDEFINE_ATTRIBUTE_OPERATION, "subsystem", "baz")
+        ));
+
+        assertNull(cache.get(bar));
+        assertNull(cache.get(baz));
+        assertNotNull(cache.get(qux));
+    }
+
+    @Test
+    public void readDoesntInvalidate() {
+        ModelNode read = readAttribute("foo", "subsystem", "bar");
+        put(read);
+        cache.invalidate(op(Constants.READ_RESOURCE_OPERATION, "subsystem", "bar"));
+        assertNotNull(cache.get(read));
+    }
+
+    @Test
+    public void resultOfReadThatRacedWithWriteIsNotCached() {
+        ModelNode read = readAttribute("foo", "subsystem", "bar");
+        long generation = cache.generation();
+        cache.invalidate(op(Constants.WRITE_ATTRIBUTE_OPERATION, "subsystem", "other"));
+        cache.put(read, ModelNodeConstants.SUCCESS, generation);
+        assertNull(cache.get(read));
+    }
+
+    @Test
+    public void invalidateAll() {
+        ModelNode read = readAttribute("foo", "subsystem", "bar");
+        put(read);
+        cache.invalidateAll();
+        assertNull(cache.get(read));
+    }
+
+    @Test
+    public void cachedResultCantBeModifiedByCaller() {
+        ModelNode read = readAttribute("foo", "subsystem", "bar");
+        put(read);
+        cache.get(read).get(Constants.OUTCOME).set(Constants.FAILED);
+        assertEquals(Constants.SUCCESS, cache.get(read).get(Constants.OUTCOME).asString());
+    }
+}
@@ -0,0 +1,47 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WaitStrategyTest {
+    @Test
+    public void fixed() {
+        WaitStrategy strategy = WaitStrategy.fixed(1, TimeUnit.SECONDS);
+        assertEquals(1000, strategy.delayInMillis(1));
+        assertEquals(1000, strategy.delayInMillis(100));
+    }
+
+    @Test
+    public void exponentialBackoff() {
+        WaitStrategy strategy = WaitStrategy.exponentialBackoff(100, 1000, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 100; i++) {
+            assertBetween(50, 100, strategy.delayInMillis(1));
+            assertBetween(100, 200, strategy.delayInMillis(2));
+            assertBetween(200, 400, strategy.delayInMillis(3));
+            assertBetween(400, 800, strategy.delayInMillis(4));
+            assertBetween(500, 1000, strategy.delayInMillis(5));
+            assertBetween(500, 1000, strategy.delayInMillis(Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void awaitDoesntWaitPastEndTime() throws InterruptedException {
+        WaitStrategy strategy = WaitStrategy.fixed(1, TimeUnit.HOURS);
+        long start = System.currentTimeMillis();
+        strategy.await(1, start + 10);
+        assertTrue(System.currentTimeMillis() - start < 1000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxDelaySmallerThanInitialDelay() {
+        WaitStrategy.exponentialBackoff(100, 10, TimeUnit.MILLISECONDS);
+    }
+
+    private static void assertBetween(long min, long max, long actual) {
+        assertTrue("Expected " + actual + " to be between " + min + " and " + max, actual >= min && actual <= max);
+    }
+}
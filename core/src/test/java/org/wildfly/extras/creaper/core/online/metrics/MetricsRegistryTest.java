@@ -0,0 +1,161 @@
+package org.wildfly.extras.creaper.core.online.metrics;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.Test;
+import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.OnlineCommand;
+import org.wildfly.extras.creaper.core.online.OnlineCommandContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsRegistryTest {
+    private static final String DATASOURCE_KEY = "read-attribute /subsystem=datasources/data-source=*";
+
+    private static ModelNode op(String name, String... address) {
+        ModelNode op = new ModelNode();
+        op.get(Constants.OP).set(name);
+        ModelNode addr = op.get(Constants.OP_ADDR).setEmptyList();
+        for (int i = 0; i < address.length; i += 2) {
+            addr.add(address[i], address[i + 1]);
+        }
+        return op;
+    }
+
+    private static ModelNode readDatasource(String name) {
+        ModelNode op = op(Constants.READ_ATTRIBUTE_OPERATION, "subsystem", "datasources", "data-source", name);
+        op.get(Constants.NAME).set("jndi-name");
+        return op;
+    }
+
+    private static ModelNodeResult response(String outcome) {
+        ModelNode response = new ModelNode();
+        response.get(Constants.OUTCOME).set(outcome);
+        response.get(Constants.RESULT).set("some value");
+        return new ModelNodeResult(response);
+    }
+
+    private static final class SomeCommand implements OnlineCommand {
+        @Override
+        public void apply(OnlineCommandContext ctx) {
+        }
+    }
+
+    @Test
+    public void operationKey() {
+        assertEquals(DATASOURCE_KEY, MetricsRegistry.operationKey(readDatasource("ExampleDS")));
+        assertEquals("read-resource /", MetricsRegistry.operationKey(op(Constants.READ_RESOURCE_OPERATION)));
+        assertEquals("add /core-service=management/access=*",
+                MetricsRegistry.operationKey(op(Constants.ADD, "core-service", "management", "access", "audit")));
+        assertEquals("remove /host=*/server-config=*",
+                MetricsRegistry.operationKey(op(Constants.REMOVE_OPERATION, "host", "master", "server-config", "s1")));
+    }
+
+    @Test
+    public void operations() {
+        MetricsRegistry registry = new MetricsRegistry(true);
+        ModelNode readDatasource = readDatasource("ExampleDS");
+        ModelNode readOtherDatasource = readDatasource("OtherDS");
+
+        registry.afterExecute(readDatasource, response(Constants.SUCCESS), null, TimeUnit.MILLISECONDS.toNanos(3));
+        registry.afterExecute(readOtherDatasource, response(Constants.FAILED), null, TimeUnit.MILLISECONDS.toNanos(5));
+        registry.afterExecute(readDatasource, null, new IOException(), TimeUnit.MILLISECONDS.toNanos(7));
+
+        MetricsSnapshot snapshot = registry.snapshot();
+        assertEquals(3, snapshot.operationCount());
+        assertEquals(2, snapshot.failedOperationCount());
+
+        HistogramSnapshot latencies = snapshot.operationLatencies().get(DATASOURCE_KEY);
+        assertEquals(3, latencies.count());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(3), latencies.min());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(7), latencies.max());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5), latencies.mean(), 0.1);
+
+        HistogramSnapshot sizes = snapshot.responseSizes().get(DATASOURCE_KEY);
+        assertEquals(2, sizes.count());
+        assertTrue(sizes.min() > 0);
+        assertEquals(Long.valueOf(2), snapshot.operationFailures().get(DATASOURCE_KEY));
+    }
+
+    @Test
+    public void responseSizesAreNotRecordedByDefault() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.afterExecute(readDatasource("ExampleDS"), response(Constants.SUCCESS), null, 100);
+
+        MetricsSnapshot snapshot = registry.snapshot();
+        assertEquals(1, snapshot.operationLatencies().get(DATASOURCE_KEY).count());
+        assertTrue(snapshot.responseSizes().isEmpty());
+    }
+
+    @Test
+    public void commandsReconnectsReloadsAndRestarts() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.commandApplied(new SomeCommand(), 100, true);
+        registry.commandApplied(new SomeCommand(), 200, false);
+        registry.reconnectAttempted(false);
+        registry.reconnectAttempted(true);
+        registry.reloadFinished(1500);
+        registry.restartFinished(4000);
+
+        MetricsSnapshot snapshot = registry.snapshot();
+        String commandKey = SomeCommand.class.getName();
+        assertEquals(2, snapshot.commandDurations().get(commandKey).count());
+        assertEquals(Long.valueOf(1), snapshot.commandFailures().get(commandKey));
+        assertEquals(2, snapshot.reconnectAttempts());
+        assertEquals(1, snapshot.failedReconnectAttempts());
+        assertEquals(1500, snapshot.reloadDurations().max());
+        assertEquals(4000, snapshot.restartDurations().max());
+    }
+
+    @Test
+    public void reset() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.afterExecute(op(Constants.READ_RESOURCE_OPERATION), response(Constants.SUCCESS), null, 10);
+        registry.reset();
+        assertTrue(registry.snapshot().operationLatencies().isEmpty());
+        assertEquals(0, registry.snapshot().operationCount());
+    }
+
+    @Test
+    public void percentiles() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertEquals(100, snapshot.count());
+        assertEquals(5050, snapshot.sum());
+        assertEquals(1, snapshot.percentile(0));
+        assertEquals(63, snapshot.percentile(50)); // 50 falls into the bucket [32, 64)
+        assertEquals(100, snapshot.percentile(99)); // capped by max
+        assertEquals(100, snapshot.percentile(100));
+        assertEquals(0, new Histogram().snapshot().percentile(99));
+    }
+
+    @Test
+    public void jmx() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.afterExecute(op(Constants.READ_RESOURCE_OPERATION), response(Constants.SUCCESS), null, 10);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("org.wildfly.extras.creaper:type=MetricsRegistry,name=test");
+        registry.registerMBean(name);
+        try {
+            assertEquals(1L, server.getAttribute(name, "OperationCount"));
+            server.invoke(name, "reset", new Object[0], new String[0]);
+            assertEquals(0L, server.getAttribute(name, "OperationCount"));
+        } finally {
+            registry.unregisterMBean(name);
+        }
+        assertFalse(server.isRegistered(name));
+    }
+}
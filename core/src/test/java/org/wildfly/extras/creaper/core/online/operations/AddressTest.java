@@ -7,7 +7,9 @@ import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class AddressTest {
     @Test
@@ -161,4 +163,28 @@ public class AddressTest {
 
         assertEquals("/deployment=simple.war", singleElementAddress.toString());
     }
+
+    @Test
+    public void modelNodeIsReusedAndProtected() {
+        Address parent = Address.subsystem("foo");
+        Address address = parent.and("bar", "baz");
+
+        assertSame(address.toModelNode(), address.toModelNode());
+        assertEquals(1, parent.toModelNode().asList().size());
+        assertEquals(2, address.toModelNode().asList().size());
+
+        try {
+            address.toModelNode().add("qux", "quux");
+            fail("Shared ModelNode should be protected against modifications");
+        } catch (UnsupportedOperationException expected) {
+            // expected
+        }
+
+        ModelNode copy = new ModelNode();
+        copy.set(address.toModelNode());
+        copy.add("qux", "quux");
+        assertEquals(3, copy.asList().size());
+        assertEquals(2, address.toModelNode().asList().size());
+        assertEquals("/subsystem=foo/bar=baz", address.toString());
+    }
 }
@@ -0,0 +1,178 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.FailuresAllowedBlock;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AutoBatchingTest {
+    private static final Address ADDRESS = Address.subsystem("foo");
+
+    private final List<ModelNode> executed = new ArrayList<ModelNode>();
+    private String failingOperation;
+    private OnlineManagementClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        client = mock(OnlineManagementClient.class);
+        when(client.allowFailures()).thenReturn(mock(FailuresAllowedBlock.class));
+        when(client.execute(any(ModelNode.class))).thenAnswer(new Answer<ModelNodeResult>() {
+            @Override
+            public ModelNodeResult answer(InvocationOnMock invocation) throws Throwable {
+                ModelNode op = (ModelNode) invocation.getArguments()[0];
+                executed.add(op);
+                return new ModelNodeResult(respond(op));
+            }
+        });
+    }
+
+    private ModelNode respond(ModelNode op) {
+        ModelNode response = new ModelNode();
+        String name = op.get(Constants.OP).asString();
+        if (Constants.COMPOSITE.equals(name)) {
+            boolean failed = false;
+            int i = 1;
+            for (ModelNode step : op.get(Constants.STEPS).asList()) {
+                ModelNode stepResponse = respond(step);
+                failed |= Constants.FAILED.equals(stepResponse.get(Constants.OUTCOME).asString());
+                response.get(Constants.RESULT, "step-" + i).set(stepResponse);
+                i++;
+            }
+            response.get(Constants.OUTCOME).set(failed ? Constants.FAILED : Constants.SUCCESS);
+        } else if (name.equals(failingOperation)) {
+            response.get(Constants.OUTCOME).set(Constants.FAILED);
+            response.get(Constants.FAILURE_DESCRIPTION).set("WFLYCTL0158: boom");
+        } else {
+            response.get(Constants.OUTCOME).set(Constants.SUCCESS);
+            response.get(Constants.RESULT).set(name);
+        }
+        return response;
+    }
+
+    @Test
+    public void writesAreBufferedUntilFlush() throws IOException {
+        Operations ops = new Operations(client).autoBatching();
+
+        ModelNodeResult addResult = ops.add(ADDRESS);
+        ModelNodeResult writeResult = ops.writeAttribute(ADDRESS, "bar", true);
+        ModelNodeResult undefineResult = ops.undefineAttribute(ADDRESS, "baz");
+        assertTrue(executed.isEmpty());
+        assertFalse(addResult.isDefined());
+
+        ops.flush();
+        assertEquals(1, executed.size());
+        assertEquals(Constants.COMPOSITE, executed.get(0).get(Constants.OP).asString());
+        assertEquals(3, executed.get(0).get(Constants.STEPS).asList().size());
+
+        addResult.assertSuccess();
+        assertEquals(Constants.ADD, addResult.stringValue());
+        writeResult.assertSuccess();
+        undefineResult.assertSuccess();
+
+        ops.flush();
+        assertEquals(1, executed.size());
+    }
+
+    @Test
+    public void readFlushesBufferFirst() throws IOException {
+        Operations ops = new Operations(client).autoBatching();
+
+        ops.add(ADDRESS);
+        ops.writeAttribute(ADDRESS, "bar", 1);
+        ModelNodeResult readResult = ops.readAttribute(ADDRESS, "bar");
+
+        assertEquals(2, executed.size());
+        assertEquals(Constants.COMPOSITE, executed.get(0).get(Constants.OP).asString());
+        assertEquals(Constants.READ_ATTRIBUTE_OPERATION, executed.get(1).get(Constants.OP).asString());
+        assertEquals(Constants.READ_ATTRIBUTE_OPERATION, readResult.stringValue());
+    }
+
+    @Test
+    public void singleBufferedOperationIsExecutedDirectly() throws IOException {
+        Operations ops = new Operations(client).autoBatching();
+
+        ModelNodeResult result = ops.remove(ADDRESS);
+        ops.flush();
+
+        assertEquals(1, executed.size());
+        assertEquals(Constants.REMOVE_OPERATION, executed.get(0).get(Constants.OP).asString());
+        result.assertSuccess();
+    }
+
+    @Test
+    public void failureIsMappedToOriginatingOperation() throws IOException {
+        failingOperation = Constants.UNDEFINE_ATTRIBUTE_OPERATION;
+        Operations ops = new Operations(client).autoBatching();
+
+        ModelNodeResult addResult = ops.add(ADDRESS);
+        ModelNodeResult undefineResult = ops.undefineAttribute(ADDRESS, "bar");
+        ops.writeAttribute(ADDRESS, "baz", "qux");
+
+        try {
+            ops.flush();
+            fail("Flush should have failed");
+        } catch (AutoBatchFailedException e) {
+            assertEquals(2, e.stepIndex());
+            assertEquals(Constants.UNDEFINE_ATTRIBUTE_OPERATION,
+                    e.failedOperation().get(Constants.OP).asString());
+            assertEquals("bar", e.failedOperation().get(Constants.NAME).asString());
+            assertTrue(e.failedResult().isFailed());
+        }
+
+        addResult.assertSuccess();
+        undefineResult.assertFailed();
+
+        // the buffer is empty after a failed flush
+        ops.flush();
+        assertEquals(1, executed.size());
+    }
+
+    @Test
+    public void withoutAutoBatchingOperationsAreExecutedImmediately() throws IOException {
+        Operations ops = new Operations(client);
+
+        ops.add(ADDRESS);
+        ops.writeAttribute(ADDRESS, "bar", true);
+
+        assertEquals(2, executed.size());
+    }
+
+    @Test
+    public void operationsWithHeadersAreNotBuffered() throws IOException {
+        Operations ops = new Operations(client).autoBatching();
+
+        ops.add(ADDRESS);
+        ops.add(ADDRESS.and("bar", "baz"));
+        ModelNodeResult result = ops.headers(Values.of("rollback-on-runtime-failure", false))
+                .writeAttribute(ADDRESS, "bar", true);
+
+        assertEquals(2, executed.size());
+        assertEquals(Constants.COMPOSITE, executed.get(0).get(Constants.OP).asString());
+        assertEquals(2, executed.get(0).get(Constants.STEPS).asList().size());
+        assertEquals(Constants.WRITE_ATTRIBUTE_OPERATION, executed.get(1).get(Constants.OP).asString());
+        assertFalse(executed.get(1).get(Constants.OPERATION_HEADERS, "rollback-on-runtime-failure").asBoolean());
+        result.assertSuccess();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void autoBatchingCantBeEnabledTwice() {
+        new Operations(client).autoBatching().autoBatching();
+    }
+}
@@ -1,11 +1,13 @@
 package org.wildfly.extras.creaper.core.online.operations;
 
 import com.google.common.collect.ImmutableMap;
+import org.jboss.dmr.ModelNode;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 public class ValuesTest {
     @Test
@@ -42,4 +44,44 @@ public class ValuesTest {
         assertNotNull(Values.fromMap(ImmutableMap.of("foo", "bar", "baz", "quux")));
         assertEquals(2, Values.fromMap(ImmutableMap.of("foo", "bar", "baz", "quux")).size());
     }
+
+    @Test
+    public void valuesSharePrefix() {
+        Values prefix = Values.of("foo", "bar");
+        Values first = prefix.and("baz", 1);
+        Values second = prefix.and("baz", 2);
+
+        assertEquals(1, prefix.size());
+        assertEquals("(foo=bar, baz=1)", first.toString());
+        assertEquals("(foo=bar, baz=2)", second.toString());
+    }
+
+    @Test
+    public void manyValuesKeepOrder() {
+        Values values = Values.empty();
+        for (int i = 0; i < 100; i++) {
+            values = values.and("attr" + i, i);
+        }
+
+        assertEquals(100, values.size());
+        ModelNode node = new ModelNode();
+        values.addToModelNode(node);
+        assertEquals(100, node.keys().size());
+        assertEquals("attr0", node.asPropertyList().get(0).getName());
+        assertEquals(99, node.get("attr99").asInt());
+    }
+
+    @Test
+    public void objectValue() {
+        Values object = Values.of("b", "c").and("d", "e");
+        assertSame(object.toModelNode(), object.toModelNode());
+
+        ModelNode node = new ModelNode();
+        Values.ofObject("a", object).addToModelNode(node);
+        assertEquals("c", node.get("a", "b").asString());
+        assertEquals("e", node.get("a", "d").asString());
+
+        node.get("a", "f").set("g"); // the copy can be modified
+        assertEquals(2, object.toModelNode().keys().size());
+    }
 }
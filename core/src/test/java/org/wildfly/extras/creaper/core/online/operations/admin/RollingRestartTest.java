@@ -0,0 +1,247 @@
+package org.wildfly.extras.creaper.core.online.operations.admin;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
+import org.jboss.dmr.ModelNode;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.OnlineOptions;
+import org.wildfly.extras.creaper.core.online.WaitStrategy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RollingRestartTest {
+    private static final String POLL = "poll";
+
+    /** host/server -> server group */
+    private final Map<String, String> serverGroups = new LinkedHashMap<String, String>();
+    /** host/server -> time since which the server is running */
+    private final Map<String, Long> runningSince = new HashMap<String, Long>();
+    /** restart operations (as host/server) and polls of the server state, in the order they were performed */
+    private final List<String> events = new ArrayList<String>();
+    private final Set<String> failingRestarts = new HashSet<String>();
+    private final Set<String> hangingRestarts = new HashSet<String>();
+    private final List<SettableFuture<ModelNodeResult>> hanging = new ArrayList<SettableFuture<ModelNodeResult>>();
+    private long startupMillis;
+
+    private OnlineManagementClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        OnlineOptions options = OnlineOptions.domain().build()
+                .localDefault()
+                .waitStrategy(WaitStrategy.fixed(10, TimeUnit.MILLISECONDS))
+                .build();
+
+        client = mock(OnlineManagementClient.class);
+        when(client.options()).thenReturn(options);
+        when(client.execute(any(ModelNode.class))).thenAnswer(new Answer<ModelNodeResult>() {
+            @Override
+            public ModelNodeResult answer(InvocationOnMock invocation) throws Throwable {
+                return new ModelNodeResult(respond((ModelNode) invocation.getArguments()[0]));
+            }
+        });
+        when(client.executeAsync(any(ModelNode.class))).thenAnswer(new Answer<Future<ModelNodeResult>>() {
+            @Override
+            public Future<ModelNodeResult> answer(InvocationOnMock invocation) throws Throwable {
+                return restart((ModelNode) invocation.getArguments()[0]);
+            }
+        });
+    }
+
+    private ModelNode respond(ModelNode composite) {
+        assertEquals(Constants.COMPOSITE, composite.get(Constants.OP).asString());
+
+        ModelNode response = new ModelNode();
+        response.get(Constants.OUTCOME).set(Constants.SUCCESS);
+        int i = 1;
+        for (ModelNode step : composite.get(Constants.STEPS).asList()) {
+            ModelNode stepResponse = response.get(Constants.RESULT, "step-" + i);
+            stepResponse.get(Constants.OUTCOME).set(Constants.SUCCESS);
+
+            String operation = step.get(Constants.OP).asString();
+            if (Constants.READ_ATTRIBUTE_OPERATION.equals(operation)) {
+                assertEquals(Constants.GROUP, step.get(Constants.NAME).asString());
+                stepResponse.get(Constants.RESULT).set(serverGroups.get(hostAndServer(step)));
+            } else {
+                assertEquals(Constants.READ_CHILDREN_RESOURCES, operation);
+                String host = step.get(Constants.OP_ADDR).asList().get(0).asProperty().getValue().asString();
+                ModelNode servers = stepResponse.get(Constants.RESULT).setEmptyObject();
+                for (String hostAndServer : serverGroups.keySet()) {
+                    if (hostAndServer.startsWith(host + "/")) {
+                        boolean running = System.currentTimeMillis() >= runningSince.get(hostAndServer);
+                        servers.get(hostAndServer.substring(host.length() + 1), Constants.SERVER_STATE)
+                                .set(running ? "running" : "starting");
+                    }
+                }
+                if (i == 1) {
+                    events.add(POLL);
+                }
+            }
+            i++;
+        }
+        return response;
+    }
+
+    private Future<ModelNodeResult> restart(ModelNode operation) {
+        assertEquals(Constants.RESTART, operation.get(Constants.OP).asString());
+        String hostAndServer = hostAndServer(operation);
+        events.add(hostAndServer);
+        runningSince.put(hostAndServer, System.currentTimeMillis() + startupMillis);
+
+        if (failingRestarts.contains(hostAndServer)) {
+            SettableFuture<ModelNodeResult> future = SettableFuture.create();
+            future.setException(new IOException("Connection lost"));
+            return future;
+        }
+        if (hangingRestarts.contains(hostAndServer)) {
+            SettableFuture<ModelNodeResult> future = SettableFuture.create();
+            hanging.add(future);
+            return future;
+        }
+        ModelNode response = new ModelNode();
+        response.get(Constants.OUTCOME).set(Constants.SUCCESS);
+        return Futures.immediateFuture(new ModelNodeResult(response));
+    }
+
+    private static String hostAndServer(ModelNode operation) {
+        List<ModelNode> address = operation.get(Constants.OP_ADDR).asList();
+        return address.get(0).asProperty().getValue().asString() + "/"
+                + address.get(1).asProperty().getValue().asString();
+    }
+
+    private void server(String host, String server, String group) {
+        serverGroups.put(host + "/" + server, group);
+        runningSince.put(host + "/" + server, 0L);
+    }
+
+    private Map<String, List<String>> allServers() {
+        Map<String, List<String>> result = new LinkedHashMap<String, List<String>>();
+        for (String hostAndServer : serverGroups.keySet()) {
+            String[] parts = hostAndServer.split("/");
+            if (!result.containsKey(parts[0])) {
+                result.put(parts[0], new ArrayList<String>());
+            }
+            result.get(parts[0]).add(parts[1]);
+        }
+        return result;
+    }
+
+    private List<String> restartsBetweenPolls(int wave) {
+        List<String> result = new ArrayList<String>();
+        int polls = 0;
+        for (String event : events) {
+            if (POLL.equals(event)) {
+                polls++;
+            } else if (polls == wave) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void wavesAreFormedPerServerGroup() throws Exception {
+        server("a", "a-1", "g1");
+        server("a", "a-2", "g1");
+        server("a", "a-3", "g2");
+        server("b", "b-1", "g1");
+        server("b", "b-2", "g2");
+
+        assertTrue(new DomainAdministration(client).rollingRestartServers(allServers(), 2));
+
+        // g1 = [a-1, a-2, b-1], g2 = [a-3, b-2]; all servers are running on the first poll after each wave
+        assertEquals(new HashSet<String>(Arrays.asList("a/a-1", "a/a-2", "a/a-3", "b/b-2")),
+                new HashSet<String>(restartsBetweenPolls(0)));
+        assertEquals(Collections.singletonList("b/b-1"), restartsBetweenPolls(1));
+        assertEquals(POLL, events.get(events.size() - 1));
+    }
+
+    @Test
+    public void singleServerPerGroup() throws Exception {
+        server("a", "a-1", "g1");
+        server("a", "a-2", "g1");
+        server("b", "b-1", "g2");
+
+        assertTrue(new DomainAdministration(client).rollingRestartServers(allServers(), 1));
+
+        assertEquals(Arrays.asList("a/a-1", "b/b-1"), restartsBetweenPolls(0));
+        assertEquals(Collections.singletonList("a/a-2"), restartsBetweenPolls(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxConcurrencyMustBePositive() throws Exception {
+        server("a", "a-1", "g1");
+        new DomainAdministration(client).rollingRestartServers(allServers(), 0);
+    }
+
+    @Test
+    public void timeoutIsSharedByAllWaves() throws Exception {
+        server("a", "a-1", "g1");
+        server("a", "a-2", "g1");
+        startupMillis = 1200;
+
+        // each wave fits in the timeout of 2 seconds, but both of them don't
+        try {
+            new DomainAdministration(client, 2).rollingRestartServers(allServers(), 1);
+            fail("Rolling restart should have timed out");
+        } catch (TimeoutException expected) {
+            assertEquals(Collections.singletonList("a/a-1"), restartsBetweenPolls(0));
+            assertTrue(events.contains("a/a-2"));
+        }
+    }
+
+    @Test
+    public void failedRestartIsReported() throws Exception {
+        server("a", "a-1", "g1");
+        server("a", "a-2", "g1");
+        server("b", "b-1", "g1");
+        failingRestarts.add("a/a-2");
+
+        assertFalse(new DomainAdministration(client).restartServers(allServers()));
+
+        // the other servers are still restarted and waited for
+        assertEquals(Arrays.asList("a/a-1", "a/a-2", "b/b-1"), restartsBetweenPolls(0));
+        assertTrue(events.contains(POLL));
+    }
+
+    @Test
+    public void hangingRestartTimesOut() throws Exception {
+        server("a", "a-1", "g1");
+        server("b", "b-1", "g1");
+        hangingRestarts.add("b/b-1");
+
+        try {
+            new DomainAdministration(client, 1).restartServers(allServers());
+            fail("Restart should have timed out");
+        } catch (TimeoutException expected) {
+            assertEquals(Arrays.asList("a/a-1", "b/b-1"), events);
+            assertTrue(hanging.get(0).isCancelled());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package org.wildfly.extras.creaper.core.online.operations.admin;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.OnlineOptions;
+import org.wildfly.extras.creaper.core.online.WaitStrategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WaitUntilServersRunningTest {
+    /** server name -> number of the poll in which the server is running for the first time */
+    private final Map<String, Integer> runningSincePoll = new HashMap<String, Integer>();
+    /** hosts that were polled in each poll */
+    private final List<List<String>> polledHosts = new ArrayList<List<String>>();
+
+    private DomainAdministrationOperations domainOps;
+
+    @Before
+    public void setUp() throws Exception {
+        OnlineOptions options = OnlineOptions.domain().build()
+                .localDefault()
+                .waitStrategy(WaitStrategy.fixed(10, TimeUnit.MILLISECONDS))
+                .build();
+
+        OnlineManagementClient client = mock(OnlineManagementClient.class);
+        when(client.options()).thenReturn(options);
+        when(client.execute(any(ModelNode.class))).thenAnswer(new Answer<ModelNodeResult>() {
+            @Override
+            public ModelNodeResult answer(InvocationOnMock invocation) throws Throwable {
+                return new ModelNodeResult(poll((ModelNode) invocation.getArguments()[0]));
+            }
+        });
+
+        domainOps = new DomainAdministrationOperations(client, 10);
+    }
+
+    private ModelNode poll(ModelNode composite) {
+        assertEquals(Constants.COMPOSITE, composite.get(Constants.OP).asString());
+
+        List<String> hosts = new ArrayList<String>();
+        int poll = polledHosts.size() + 1;
+
+        ModelNode response = new ModelNode();
+        response.get(Constants.OUTCOME).set(Constants.SUCCESS);
+        int i = 1;
+        for (ModelNode step : composite.get(Constants.STEPS).asList()) {
+            assertEquals(Constants.READ_CHILDREN_RESOURCES, step.get(Constants.OP).asString());
+            hosts.add(step.get(Constants.OP_ADDR).asList().get(0).asProperty().getValue().asString());
+
+            ModelNode stepResponse = response.get(Constants.RESULT, "step-" + i);
+            stepResponse.get(Constants.OUTCOME).set(Constants.SUCCESS);
+            ModelNode servers = stepResponse.get(Constants.RESULT).setEmptyObject();
+            for (Map.Entry<String, Integer> server : runningSincePoll.entrySet()) {
+                if (server.getKey().startsWith(hosts.get(i - 1))) {
+                    String state = poll >= server.getValue() ? "running" : "starting";
+                    servers.get(server.getKey(), Constants.SERVER_STATE).set(state);
+                }
+            }
+            i++;
+        }
+
+        polledHosts.add(hosts);
+        return response;
+    }
+
+    @Test
+    public void allServersAreCheckedInSinglePoll() throws Exception {
+        runningSincePoll.put("a-1", 1);
+        runningSincePoll.put("a-2", 3);
+        runningSincePoll.put("b-1", 2);
+
+        Map<String, List<String>> serversOnHosts = new LinkedHashMap<String, List<String>>();
+        serversOnHosts.put("a", Arrays.asList("a-1", "a-2"));
+        serversOnHosts.put("b", Collections.singletonList("b-1"));
+
+        ServersRunningTimings timings = domainOps.waitUntilServersAreRunning(serversOnHosts, domainOps.endTime());
+
+        assertEquals(3, timings.polls());
+        assertEquals(Arrays.asList("a", "b"), polledHosts.get(0));
+        assertEquals(Arrays.asList("a", "b"), polledHosts.get(1));
+        assertEquals(Collections.singletonList("a"), polledHosts.get(2));
+
+        assertTrue(timings.millisUntilRunning("a", "a-1") >= 0);
+        assertTrue(timings.millisUntilRunning("a", "a-2") >= timings.millisUntilRunning("b", "b-1"));
+        assertTrue(timings.millisUntilRunning("b", "b-1") >= timings.millisUntilRunning("a", "a-1"));
+        assertEquals(-1, timings.millisUntilRunning("b", "b-2"));
+        assertTrue(timings.totalMillis() >= timings.millisUntilRunning("a", "a-2"));
+    }
+
+    @Test
+    public void nothingToWaitFor() throws Exception {
+        Map<String, List<String>> serversOnHosts = new LinkedHashMap<String, List<String>>();
+        serversOnHosts.put("a", Collections.<String>emptyList());
+
+        ServersRunningTimings timings = domainOps.waitUntilServersAreRunning(serversOnHosts, domainOps.endTime());
+
+        assertEquals(0, timings.polls());
+        assertTrue(polledHosts.isEmpty());
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void timeout() throws Exception {
+        runningSincePoll.put("a-1", Integer.MAX_VALUE);
+
+        Map<String, List<String>> serversOnHosts = new LinkedHashMap<String, List<String>>();
+        serversOnHosts.put("a", Collections.singletonList("a-1"));
+
+        domainOps.waitUntilServersAreRunning(serversOnHosts, System.currentTimeMillis() + 700);
+    }
+}
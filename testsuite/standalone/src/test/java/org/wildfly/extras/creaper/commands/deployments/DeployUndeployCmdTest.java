@@ -1,6 +1,7 @@
 package org.wildfly.extras.creaper.commands.deployments;
 
 import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.dmr.ModelNode;
 import org.jboss.shrinkwrap.api.Archive;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.jboss.shrinkwrap.api.asset.StringAsset;
@@ -15,6 +16,7 @@ import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.wildfly.extras.creaper.core.CommandFailedException;
 import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.online.Constants;
 import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
 import org.wildfly.extras.creaper.core.online.OnlineOptions;
 import org.wildfly.extras.creaper.core.online.operations.Address;
@@ -25,6 +27,8 @@ import org.wildfly.extras.creaper.core.online.operations.admin.Administration;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -34,6 +38,7 @@ import java.util.concurrent.TimeoutException;
 public class DeployUndeployCmdTest {
 
     private static final String DEPLOYMENT_NAME = "test-deployment.war";
+    private static final String SECOND_DEPLOYMENT_NAME = "test-deployment-2.war";
     private static final Address TEST_DEPLOYMENT_ADDRESS = Address.deployment(DEPLOYMENT_NAME);
     private static final WebArchive TEST_DEPLOYMENT = ShrinkWrap.create(WebArchive.class, DEPLOYMENT_NAME)
             .add(new StringAsset("Hello Creaper"), "index.html");
@@ -94,6 +99,94 @@ public class DeployUndeployCmdTest {
         ops.removeIfExists(TEST_DEPLOYMENT_ADDRESS);
     }
 
+    @Test
+    public void deploySkipIfUnchanged() throws Exception {
+        client.apply(new Deploy.Builder(TEST_DEPLOYMENT.as(ZipExporter.class).exportAsInputStream(), DEPLOYMENT_NAME,
+                true).skipIfUnchanged().build());
+        assertDeploymentExists(DEPLOYMENT_NAME, true);
+        ModelNode originalContent = ops.readAttribute(TEST_DEPLOYMENT_ADDRESS, Constants.CONTENT).value();
+
+        // same content, nothing happens
+        File testDeploymentFile = new File(tmp.getRoot(), DEPLOYMENT_NAME);
+        TEST_DEPLOYMENT.as(ZipExporter.class).exportTo(testDeploymentFile, true);
+        client.apply(new Deploy.Builder(testDeploymentFile).skipIfUnchanged().build());
+        Assert.assertEquals(originalContent, ops.readAttribute(TEST_DEPLOYMENT_ADDRESS, Constants.CONTENT).value());
+
+        // different content, deployment is replaced
+        WebArchive changedDeployment = ShrinkWrap.create(WebArchive.class, DEPLOYMENT_NAME)
+                .add(new StringAsset("Hello again, Creaper"), "index.html");
+        client.apply(new Deploy.Builder(changedDeployment.as(ZipExporter.class).exportAsInputStream(),
+                DEPLOYMENT_NAME, true).skipIfUnchanged().build());
+        assertDeploymentExists(DEPLOYMENT_NAME, true);
+        Assert.assertNotEquals(originalContent,
+                ops.readAttribute(TEST_DEPLOYMENT_ADDRESS, Constants.CONTENT).value());
+        Assert.assertTrue(ops.readAttribute(TEST_DEPLOYMENT_ADDRESS, "enabled").booleanValue());
+
+        undeploy(DEPLOYMENT_NAME);
+    }
+
+    @Test
+    public void deploySkipIfUnchanged_disabledDeploymentIsEnabled() throws Exception {
+        File testDeploymentFile = new File(tmp.getRoot(), DEPLOYMENT_NAME);
+        TEST_DEPLOYMENT.as(ZipExporter.class).exportTo(testDeploymentFile, true);
+        client.apply(new Deploy.Builder(testDeploymentFile).skipIfUnchanged().build());
+        client.apply(new Undeploy.Builder(DEPLOYMENT_NAME).keepContent().build());
+        Assert.assertFalse(ops.readAttribute(TEST_DEPLOYMENT_ADDRESS, "enabled").booleanValue());
+
+        // same content, but the deployment is deployed again
+        client.apply(new Deploy.Builder(testDeploymentFile).skipIfUnchanged().build());
+        Assert.assertTrue(ops.readAttribute(TEST_DEPLOYMENT_ADDRESS, "enabled").booleanValue());
+
+        undeploy(DEPLOYMENT_NAME);
+    }
+
+    @Test
+    public void deployMultiple() throws Exception {
+        File testDeploymentFile = new File(tmp.getRoot(), DEPLOYMENT_NAME);
+        TEST_DEPLOYMENT.as(ZipExporter.class).exportTo(testDeploymentFile, true);
+        WebArchive secondDeployment = ShrinkWrap.create(WebArchive.class, SECOND_DEPLOYMENT_NAME)
+                .add(new StringAsset("Hello again, Creaper"), "index.html");
+
+        try {
+            DeployMultiple deployMultiple = new DeployMultiple.Builder()
+                    .deployment(testDeploymentFile)
+                    .deployment(secondDeployment.as(ZipExporter.class).exportAsInputStream(), SECOND_DEPLOYMENT_NAME,
+                            true)
+                    .maxConcurrentUploads(2)
+                    .build();
+            client.apply(deployMultiple);
+            assertDeploymentExists(DEPLOYMENT_NAME, true);
+            assertDeploymentExists(SECOND_DEPLOYMENT_NAME, true);
+            Assert.assertEquals(Arrays.asList(DEPLOYMENT_NAME, SECOND_DEPLOYMENT_NAME),
+                    new ArrayList<String>(deployMultiple.uploadMillis().keySet()));
+        } finally {
+            ops.removeIfExists(Address.deployment(SECOND_DEPLOYMENT_NAME));
+        }
+    }
+
+    @Test
+    public void deployMultiple_failureRollsBackAll() throws Exception {
+        deployAsFile(TEST_DEPLOYMENT);
+        WebArchive secondDeployment = ShrinkWrap.create(WebArchive.class, SECOND_DEPLOYMENT_NAME)
+                .add(new StringAsset("Hello again, Creaper"), "index.html");
+
+        try {
+            client.apply(new DeployMultiple.Builder()
+                    .deployment(secondDeployment.as(ZipExporter.class).exportAsInputStream(), SECOND_DEPLOYMENT_NAME,
+                            true)
+                    .deployment(TEST_DEPLOYMENT.as(ZipExporter.class).exportAsInputStream(), DEPLOYMENT_NAME, true)
+                    .build());
+            Assert.fail("Deploying an existing deployment should fail");
+        } catch (CommandFailedException expected) {
+            // expected
+        } finally {
+            ops.removeIfExists(Address.deployment(SECOND_DEPLOYMENT_NAME));
+        }
+
+        assertDeploymentExists(SECOND_DEPLOYMENT_NAME, false);
+        undeploy(DEPLOYMENT_NAME);
+    }
+
     private void assertDeploymentExists(String deploymentName, boolean shouldExist)
             throws IOException, OperationException {
         boolean exists = ops.exists(Address.deployment(deploymentName));
@@ -0,0 +1,84 @@
+package org.wildfly.extras.creaper.commands.foundation.offline.xml;
+
+import com.google.common.base.Charsets;
+import com.google.common.cache.CacheStats;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.offline.OfflineManagementClient;
+import org.wildfly.extras.creaper.core.offline.OfflineOptions;
+
+import java.io.File;
+import java.net.URL;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CompiledScriptCacheTest {
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void sameScriptIsCompiledOnce() throws Exception {
+        CompiledScriptCache cache = new CompiledScriptCache(10);
+        URL script = script("Script1.groovy", "root.foo = { bar() }");
+
+        Class first = cache.get(script);
+        Class second = cache.get(script);
+
+        assertSame(first, second);
+        assertEquals(1, cache.stats().missCount());
+        assertEquals(1, cache.stats().hitCount());
+    }
+
+    @Test
+    public void changedScriptIsRecompiled() throws Exception {
+        CompiledScriptCache cache = new CompiledScriptCache(10);
+        URL script = script("Script2.groovy", "root.foo = { bar() }");
+
+        Class first = cache.get(script);
+        Files.write("root.foo = { baz() }", new File(script.toURI()), Charsets.UTF_8);
+        Class second = cache.get(script);
+
+        assertNotSame(first, second);
+        assertEquals(2, cache.stats().missCount());
+        assertEquals(0, cache.stats().hitCount());
+    }
+
+    @Test
+    public void cacheIsBounded() throws Exception {
+        CompiledScriptCache cache = new CompiledScriptCache(2);
+        cache.get(script("Script3.groovy", "root.foo = { a() }"));
+        cache.get(script("Script4.groovy", "root.foo = { b() }"));
+        cache.get(script("Script5.groovy", "root.foo = { c() }"));
+
+        assertTrue(cache.size() <= 2);
+        assertTrue(cache.stats().evictionCount() >= 1);
+    }
+
+    @Test
+    public void transformationUsesSharedCache() throws Exception {
+        File cfg = tmp.newFile("cachedTransform.xml");
+        Files.write("<server xmlns='urn:jboss:domain:1.7'><foo/></server>", cfg, Charsets.UTF_8);
+        OfflineManagementClient client = ManagementClient.offline(
+                OfflineOptions.standalone().configurationFile(cfg).build());
+
+        client.apply(new ExampleSimpleTransformation());
+        CacheStats before = GroovyXmlTransform.compiledScriptCacheStats();
+        client.apply(new ExampleSimpleTransformation());
+        CacheStats after = GroovyXmlTransform.compiledScriptCacheStats();
+
+        assertEquals(before.hitCount() + 1, after.hitCount());
+        assertEquals(before.missCount(), after.missCount());
+    }
+
+    private URL script(String name, String content) throws Exception {
+        File file = tmp.newFile(name);
+        Files.write(content, file, Charsets.UTF_8);
+        return file.toURI().toURL();
+    }
+}
@@ -0,0 +1,165 @@
+package org.wildfly.extras.creaper.commands.foundation.offline.xml;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.custommonkey.xmlunit.XMLUnit;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.extras.creaper.commands.foundation.offline.ConfigurationFileBackup;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.offline.OfflineCommand;
+import org.wildfly.extras.creaper.core.offline.OfflineCommandContext;
+import org.wildfly.extras.creaper.core.offline.OfflineManagementClient;
+import org.wildfly.extras.creaper.core.offline.OfflineOptions;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.wildfly.extras.creaper.XmlAssert.assertXmlIdentical;
+
+public class GroovyXmlTransformBufferedTest {
+    private static final String ORIGINAL = "<server xmlns='urn:jboss:domain:1.7'/>";
+    private static final String EXPECTED = ""
+            + "<server xmlns='urn:jboss:domain:1.7'>\n"
+            + "    <system-properties>\n"
+            + "        <property name=\"foo\" value=\"bar\"/>\n"
+            + "    </system-properties>\n"
+            + "    <paths>\n"
+            + "        <path name=\"foobar\" path=\"foobar\" relative-to=\"jboss.home.dir\"/>\n"
+            + "    </paths>\n"
+            + "</server>";
+
+    private static final String SIMPLE_ORIGINAL = "<server xmlns='urn:jboss:domain:1.7'><foo/></server>";
+    private static final String SIMPLE_EXPECTED = "<server xmlns='urn:jboss:domain:1.7'><bar/></server>";
+
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private File cfg;
+    private OfflineManagementClient client;
+
+    @BeforeClass
+    public static void setUpXmlUnit() {
+        XMLUnit.setIgnoreWhitespace(true);
+    }
+
+    @Before
+    public void setUpConfigurationFile() throws IOException {
+        cfg = tmp.newFile("bufferedTransform.xml");
+        Files.write(ORIGINAL, cfg, Charsets.UTF_8);
+
+        client = ManagementClient.offline(OfflineOptions.standalone().configurationFile(cfg).build());
+    }
+
+    @Test
+    public void bufferedTransformsAreWrittenOnceAtTheEnd() throws Exception {
+        client.applyBuffered(
+                new ExampleSubtreePathsTransformation(),
+                new AssertFileUnchanged(),
+                new ExampleSubtreeSystemPropertiesTransformation(),
+                new AssertFileUnchanged()
+        );
+        assertXmlIdentical(EXPECTED, Files.toString(cfg, Charsets.UTF_8));
+    }
+
+    @Test
+    public void bufferedTransformsGiveSameResultAsUnbuffered() throws Exception {
+        client.apply(new ExampleSubtreePathsTransformation(), new ExampleSubtreeSystemPropertiesTransformation());
+        String unbuffered = Files.toString(cfg, Charsets.UTF_8);
+
+        Files.write(ORIGINAL, cfg, Charsets.UTF_8);
+        client.applyBuffered(new ExampleSubtreePathsTransformation(),
+                new ExampleSubtreeSystemPropertiesTransformation());
+        String buffered = Files.toString(cfg, Charsets.UTF_8);
+
+        assertXmlIdentical(unbuffered, buffered);
+    }
+
+    @Test
+    public void flushMakesPreviousChangesVisibleInFile() throws Exception {
+        Files.write(SIMPLE_ORIGINAL, cfg, Charsets.UTF_8);
+        client.applyBuffered(
+                new ExampleSimpleTransformation(),
+                new OfflineCommand() {
+                    @Override
+                    public void apply(OfflineCommandContext ctx) throws Exception {
+                        assertXmlIdentical(SIMPLE_ORIGINAL, Files.toString(ctx.configurationFile, Charsets.UTF_8));
+                        ctx.configurationFileBuffer.flush();
+                        assertXmlIdentical(SIMPLE_EXPECTED, Files.toString(ctx.configurationFile, Charsets.UTF_8));
+                    }
+                }
+        );
+        assertXmlIdentical(SIMPLE_EXPECTED, Files.toString(cfg, Charsets.UTF_8));
+    }
+
+    @Test
+    public void restoreDiscardsPendingChanges() throws Exception {
+        Files.write(SIMPLE_ORIGINAL, cfg, Charsets.UTF_8);
+        ConfigurationFileBackup backup = new ConfigurationFileBackup();
+        client.applyBuffered(
+                backup.backup(),
+                new ExampleSimpleTransformation(),
+                backup.restore(),
+                new OfflineCommand() {
+                    @Override
+                    public void apply(OfflineCommandContext ctx) throws Exception {
+                        assertXmlIdentical(SIMPLE_ORIGINAL, ctx.configurationFileBuffer.read());
+                    }
+                }
+        );
+        assertXmlIdentical(SIMPLE_ORIGINAL, Files.toString(cfg, Charsets.UTF_8));
+    }
+
+    @Test
+    public void entireFileTransform() throws Exception {
+        Files.write(SIMPLE_ORIGINAL, cfg, Charsets.UTF_8);
+        client.applyBuffered(new ExampleEntireFileTransformation());
+        assertXmlIdentical(SIMPLE_EXPECTED, Files.toString(cfg, Charsets.UTF_8));
+    }
+
+    @Test
+    public void nothingIsWrittenWhenCommandFails() throws Exception {
+        try {
+            client.applyBuffered(
+                    new ExampleSubtreePathsTransformation(),
+                    new ExampleSubtreeSystemPropertiesTransformation(),
+                    new FailingCommand()
+            );
+            fail("applyBuffered should have failed");
+        } catch (CommandFailedException expected) {
+            // expected
+        }
+
+        assertXmlIdentical(ORIGINAL, Files.toString(cfg, Charsets.UTF_8));
+
+        // the client is usable in the unbuffered mode afterwards
+        client.apply(new AssertNotBuffered());
+    }
+
+    private static final class AssertFileUnchanged implements OfflineCommand {
+        @Override
+        public void apply(OfflineCommandContext ctx) throws Exception {
+            assertXmlIdentical(ORIGINAL, Files.toString(ctx.configurationFile, Charsets.UTF_8));
+        }
+    }
+
+    private static final class AssertNotBuffered implements OfflineCommand {
+        @Override
+        public void apply(OfflineCommandContext ctx) {
+            assertNull(ctx.configurationFileBuffer);
+        }
+    }
+
+    private static final class FailingCommand implements OfflineCommand {
+        @Override
+        public void apply(OfflineCommandContext ctx) throws CommandFailedException {
+            throw new CommandFailedException("expected failure");
+        }
+    }
+}
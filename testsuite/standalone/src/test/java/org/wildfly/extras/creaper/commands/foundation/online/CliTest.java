@@ -9,10 +9,15 @@ import org.wildfly.extras.creaper.core.CommandFailedException;
 import org.wildfly.extras.creaper.core.ManagementClient;
 import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
 import org.wildfly.extras.creaper.core.online.OnlineOptions;
+import org.wildfly.extras.creaper.core.online.operations.Address;
 import org.wildfly.extras.creaper.core.online.operations.Operations;
+import org.wildfly.extras.creaper.core.online.operations.Values;
 
 import java.io.IOException;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 @RunWith(Arquillian.class)
@@ -97,4 +102,153 @@ public class CliTest {
 
         assertStillValid();
     }
+
+    @Test
+    public void cliScript_compiled_good() throws Exception {
+        Operations ops = new Operations(client);
+        try {
+            CliScript script = new CliScript(""
+                    + "/system-property=creaper-cli-1:add(value=a)\n"
+                    + "\n"
+                    + "# comment\n"
+                    + "/system-property=creaper-cli-2:add(value=b)\n"
+                    + "/system-property=creaper-cli-3:add(value=c)\n"
+                    + ":whoami\n"
+                    + "/system-property=creaper-cli-1:write-attribute(name=value, value=d)\n"
+            ).compileToComposites(2);
+            client.apply(script);
+
+            // 5 operations performed using 3 requests
+            assertEquals(2, script.savedRoundTrips());
+
+            assertEquals("d", ops.readAttribute(Address.of("system-property", "creaper-cli-1"), "value").stringValue());
+            assertEquals("c", ops.readAttribute(Address.of("system-property", "creaper-cli-3"), "value").stringValue());
+        } finally {
+            for (int i = 1; i <= 3; i++) {
+                ops.removeIfExists(Address.of("system-property", "creaper-cli-" + i));
+            }
+        }
+    }
+
+    @Test
+    public void cliScript_compiled_bad() throws Exception {
+        Operations ops = new Operations(client);
+        try {
+            client.apply(new CliScript(""
+                    + "/system-property=creaper-cli-1:add(value=a)\n"
+                    + ":write-attribute(name=management-major-version, value=42)\n"
+                    + ":whoami\n"
+            ).compileToComposites(10));
+            fail();
+        } catch (CommandFailedException e) {
+            assertTrue(e.getCause() instanceof CliScriptFailedException);
+            CliScriptFailedException failure = (CliScriptFailedException) e.getCause();
+            // the failed step of the composite operation, not the last line of the composite
+            assertEquals(2, failure.failedLine());
+            assertEquals(1, failure.resumeFromLine());
+            assertTrue(failure.getCause() instanceof CommandFailedException);
+        }
+
+        // the whole composite was rolled back
+        assertFalse(ops.exists(Address.of("system-property", "creaper-cli-1")));
+        assertStillValid();
+    }
+
+    @Test
+    public void cliFile_compiled_good() {
+        try {
+            client.apply(new CliFile(CliTest.class, "GoodCliFile.cli").compileToComposites(10));
+        } catch (Exception e) {
+            fail();
+        }
+    }
+
+    @Test
+    public void cliFile_streaming_good() {
+        try {
+            client.apply(new CliFile(CliTest.class, "GoodCliFile.cli").streaming());
+        } catch (Exception e) {
+            fail();
+        }
+    }
+
+    @Test
+    public void cliFile_streaming_bad() throws IOException {
+        try {
+            client.apply(new CliFile(CliTest.class, "BadCliFile.cli").streaming());
+            fail();
+        } catch (CommandFailedException e) {
+            assertTrue(e.getCause() instanceof CliScriptFailedException);
+            CliScriptFailedException failure = (CliScriptFailedException) e.getCause();
+            assertEquals(1, failure.failedLine());
+            // the internal exception used inside commands is unwrapped
+            assertTrue(failure.getCause() instanceof CommandFailedException);
+        }
+
+        assertStillValid();
+    }
+
+    @Test
+    public void cliScript_failedAndResumed() throws Exception {
+        Operations ops = new Operations(client);
+        try {
+            CliScript script = new CliScript(""
+                    + "/system-property=creaper-cli-1:add(value=a)\n"
+                    + "/system-property=creaper-cli-2:write-attribute(name=value, value=b)\n"
+                    + "/system-property=creaper-cli-3:add(value=c)\n");
+            try {
+                client.apply(script);
+                fail();
+            } catch (CommandFailedException e) {
+                assertTrue(e.getCause() instanceof CliScriptFailedException);
+                CliScriptFailedException failure = (CliScriptFailedException) e.getCause();
+                assertEquals(2, failure.failedLine());
+                assertEquals(2, failure.resumeFromLine());
+            }
+
+            assertTrue(ops.exists(Address.of("system-property", "creaper-cli-1")));
+            assertFalse(ops.exists(Address.of("system-property", "creaper-cli-3")));
+
+            ops.add(Address.of("system-property", "creaper-cli-2"), Values.of("value", "x"));
+            client.apply(script.resumeFromLine(2));
+
+            assertEquals("b", ops.readAttribute(Address.of("system-property", "creaper-cli-2"), "value").stringValue());
+            assertEquals("c", ops.readAttribute(Address.of("system-property", "creaper-cli-3"), "value").stringValue());
+        } finally {
+            for (int i = 1; i <= 3; i++) {
+                ops.removeIfExists(Address.of("system-property", "creaper-cli-" + i));
+            }
+        }
+    }
+
+    @Test
+    public void cliScript_failedInBatch() throws Exception {
+        Operations ops = new Operations(client);
+        try {
+            try {
+                client.apply(new CliScript(""
+                        + "/system-property=creaper-cli-1:add(value=a)\n"
+                        + "batch\n"
+                        + "/system-property=creaper-cli-2:add(value=b)\n"
+                        + "/system-property=creaper-cli-3:write-attribute(name=value, value=c)\n"
+                        + "run-batch\n"
+                ).compileToComposites(10));
+                fail();
+            } catch (CommandFailedException e) {
+                assertTrue(e.getCause() instanceof CliScriptFailedException);
+                CliScriptFailedException failure = (CliScriptFailedException) e.getCause();
+                assertEquals(5, failure.failedLine());
+                assertEquals(2, failure.resumeFromLine());
+            }
+
+            assertTrue(ops.exists(Address.of("system-property", "creaper-cli-1")));
+            assertFalse(ops.exists(Address.of("system-property", "creaper-cli-2")));
+            // the batch was discarded, so the client can be used for another batch
+            client.apply(new CliScript("batch\n:whoami\nrun-batch"));
+        } finally {
+            for (int i = 1; i <= 3; i++) {
+                ops.removeIfExists(Address.of("system-property", "creaper-cli-" + i));
+            }
+        }
+    }
 }
@@ -13,6 +13,7 @@ import org.junit.runner.RunWith;
 
 import java.io.IOException;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -109,6 +110,19 @@ public class OnlineManagementClientTest {
         assertStillValid();
     }
 
+    @Test
+    public void parseCli() throws IOException, CliException {
+        ModelNode op = client.parseCli("/:read-attribute(name=management-major-version)");
+        assertEquals(Constants.READ_ATTRIBUTE_OPERATION, op.get(Constants.OP).asString());
+        assertEquals(ManagementVersionPart.MAJOR.attributeName(), op.get(Constants.NAME).asString());
+        client.execute(op).assertSuccess();
+    }
+
+    @Test(expected = CliException.class)
+    public void parseCli_syntaxError() throws IOException, CliException {
+        client.parseCli("123");
+    }
+
     @Test
     public void executeThroughCli_operationSucceeds() {
         try {
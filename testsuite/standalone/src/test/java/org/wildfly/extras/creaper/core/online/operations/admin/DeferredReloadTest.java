@@ -0,0 +1,103 @@
+package org.wildfly.extras.creaper.core.online.operations.admin;
+
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.ServerVersion;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.OnlineCommand;
+import org.wildfly.extras.creaper.core.online.OnlineCommandContext;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.OnlineOptions;
+import org.wildfly.extras.creaper.core.online.operations.Address;
+import org.wildfly.extras.creaper.core.online.operations.Operations;
+import org.wildfly.extras.creaper.core.online.operations.ReadAttributeOption;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+@RunWith(Arquillian.class)
+public class DeferredReloadTest {
+    private OnlineManagementClient client;
+    private Operations ops;
+    private Administration admin;
+    private Address jspConfigurationAddress;
+    private ModelNodeResult originalValueIgnoreDefaults;
+
+    @Before
+    public void connect() throws Exception {
+        client = ManagementClient.online(OnlineOptions.standalone().localDefault().build());
+        ops = new Operations(client);
+        admin = new Administration(client);
+
+        admin.reloadIfRequired();
+
+        if (client.version().lessThan(ServerVersion.VERSION_2_0_0)) { // AS7, JBoss Web
+            jspConfigurationAddress = Address.subsystem("web").and("configuration", "jsp-configuration");
+        } else { // WildFly, Undertow
+            jspConfigurationAddress = Address.subsystem("undertow").and("servlet-container", "default").and("setting", "jsp");
+        }
+        originalValueIgnoreDefaults = ops.readAttribute(jspConfigurationAddress, "development",
+                ReadAttributeOption.NOT_INCLUDE_DEFAULTS);
+    }
+
+    @After
+    public void close() throws Exception {
+        try {
+            ops.writeAttribute(jspConfigurationAddress, "development", originalValueIgnoreDefaults.value());
+            admin.reloadIfRequired();
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void reloadsAreCoalesced() throws Exception {
+        DeferredReload.Report report = new DeferredReload(client).apply(
+                new ToggleDevelopmentAndReloadIfRequired(),
+                new ToggleDevelopmentAndReloadIfRequired(),
+                new ToggleDevelopmentAndReloadIfRequired()
+        );
+
+        assertEquals(3, report.deferredReloads());
+        assertEquals(1, report.performedReloads());
+        assertEquals(2, report.avoidedReloads());
+        assertFalse(admin.isReloadRequired());
+    }
+
+    @Test
+    public void barrierPerformsPendingReload() throws Exception {
+        DeferredReload.Report report = new DeferredReload(client).apply(
+                new ToggleDevelopmentAndReloadIfRequired(),
+                DeferredReload.BARRIER,
+                DeferredReload.BARRIER,
+                new ToggleDevelopmentAndReloadIfRequired()
+        );
+
+        assertEquals(2, report.deferredReloads());
+        assertEquals(2, report.performedReloads());
+        assertFalse(admin.isReloadRequired());
+    }
+
+    @Test
+    public void noReloadWhenNotRequired() throws Exception {
+        DeferredReload.Report report = new DeferredReload(client).apply(DeferredReload.BARRIER);
+
+        assertEquals(0, report.deferredReloads());
+        assertEquals(0, report.performedReloads());
+    }
+
+    private final class ToggleDevelopmentAndReloadIfRequired implements OnlineCommand {
+        @Override
+        public void apply(OnlineCommandContext ctx) throws Exception {
+            Operations ops = new Operations(ctx.client);
+            boolean development = ops.readAttribute(jspConfigurationAddress, "development",
+                    ReadAttributeOption.INCLUDE_DEFAULTS).booleanValue();
+            ops.writeAttribute(jspConfigurationAddress, "development", !development);
+            new Administration(ctx.client).reloadIfRequired();
+        }
+    }
+}